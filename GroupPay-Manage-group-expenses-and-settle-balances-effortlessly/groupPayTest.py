@@ -100,8 +100,8 @@ class GroupPayTester:
         log("Requesting reset token...")
         res = request("POST", f"auth/forgot-password?email={reset_email}")
         if res['status'] != 200: fail("Forgot password failed")
-        token = res['body']
-        log(f"Got token: {token}", "INFO")
+        # The token is only delivered out of band (logged by the server in the dev profile)
+        token = input("Reset token from the server log: ").strip()
 
         # 3. Reset
         log("Resetting password...")
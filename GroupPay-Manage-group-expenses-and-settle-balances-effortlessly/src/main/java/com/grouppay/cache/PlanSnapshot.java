@@ -0,0 +1,13 @@
+package com.grouppay.cache;
+
+import com.grouppay.settlement.domain.Settlement;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A group's settle-up plan as computed from the ledger at {@code ledgerVersion}
+ * (the group's latest balance delta id at the time) with {@code ledgerRowCount} delta rows.
+ */
+public record PlanSnapshot(long ledgerVersion, long ledgerRowCount, Instant computedAt, List<Settlement> settlements) {
+}
@@ -1,4 +1,224 @@
 package com.grouppay.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.MinimumCashFlowService;
+import com.grouppay.settlement.domain.BalancesChangedEvent;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.settlement.infrastructure.BalanceDeltaRepository;
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps each active group's settle-up plan precomputed, so opening the settle-up screen is a read.
+ * <p>
+ * After a transaction that changed a group's balances commits, a recompute is scheduled on a background
+ * pool. It waits until the group has been quiet for {@code grouppay.settlement.precompute.debounce}, so a
+ * burst of writes costs one recompute, but never longer than {@code max-delay} after the first write.
+ * </p>
+ * <p>
+ * Every plan is stamped with the ledger version it was computed from: the group's latest balance delta id
+ * and its number of delta rows, so removed rows are noticed as well as added ones. {@link #getPlan(Long)}
+ * compares that against the current version with one indexed query: a match is served as is, anything
+ * else (no plan yet, or writes since) is computed synchronously and stored.
+ * </p>
+ * <p>
+ * Plans are held per instance. Another instance's writes still reach this one through the version check,
+ * which reads the shared ledger; they just cost this instance a synchronous compute on the next read.
+ * </p>
+ */
+@Slf4j
+@Service
 public class SettlementCacheService {
+
+    private final BalanceLedgerService balanceLedgerService;
+    private final MinimumCashFlowService minimumCashFlowService;
+    private final GroupRepository groupRepository;
+    private final BalanceDeltaRepository balanceDeltaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final Cache<Long, PlanSnapshot> plans;
+    private final ScheduledExecutorService scheduler;
+    // Groups with a recompute scheduled but not started yet
+    private final Map<Long, PendingRecompute> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled  Whether writes schedule background recomputes; reads fall back to computing either way.
+     * @param debounce Quiet period after the last write before recomputing.
+     * @param maxDelay Upper bound on how long continuous writes can postpone a recompute.
+     * @param threads  Size of the background pool.
+     */
+    public SettlementCacheService(BalanceLedgerService balanceLedgerService,
+                                  MinimumCashFlowService minimumCashFlowService,
+                                  GroupRepository groupRepository,
+                                  BalanceDeltaRepository balanceDeltaRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${grouppay.settlement.precompute.enabled:true}") boolean enabled,
+                                  @Value("${grouppay.settlement.precompute.debounce:PT0.5S}") Duration debounce,
+                                  @Value("${grouppay.settlement.precompute.max-delay:PT5S}") Duration maxDelay,
+                                  @Value("${grouppay.settlement.precompute.threads:2}") int threads,
+                                  @Value("${grouppay.settlement.precompute.max-cached-groups:10000}") long maxCachedGroups) {
+        this.balanceLedgerService = balanceLedgerService;
+        this.minimumCashFlowService = minimumCashFlowService;
+        this.groupRepository = groupRepository;
+        this.balanceDeltaRepository = balanceDeltaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.debounceNanos = debounce.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.plans = Caffeine.newBuilder().maximumSize(maxCachedGroups).build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "settlement-precompute-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the group's plan, from the precomputed copy if it is still current.
+     */
+    public PlanRead getPlan(Long groupId) {
+        Object[] stats = balanceDeltaRepository.findGroupStats(groupId).get(0);
+        PlanSnapshot cached = plans.getIfPresent(groupId);
+        if (cached != null && cached.ledgerVersion() == ((Number) stats[0]).longValue()
+                && cached.ledgerRowCount() == ((Number) stats[1]).longValue()) {
+            count(PlanSource.PRECOMPUTED);
+            return new PlanRead(cached, PlanSource.PRECOMPUTED);
+        }
+        count(PlanSource.COMPUTED);
+        return new PlanRead(recompute(groupId), PlanSource.COMPUTED);
+    }
+
+    /**
+     * Schedules a debounced recompute once the transaction that changed the balances has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBalancesChanged(BalancesChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        pending.compute(event.groupId(), (groupId, existing) -> {
+            if (existing != null) {
+                existing.lastWriteNanos = now;
+                return existing;
+            }
+            scheduler.schedule(() -> fire(groupId), debounceNanos, TimeUnit.NANOSECONDS);
+            return new PendingRecompute(now);
+        });
+    }
+
+    private void fire(Long groupId) {
+        PendingRecompute recompute = pending.get(groupId);
+        if (recompute == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long quietFor = now - recompute.lastWriteNanos;
+        long waitingFor = now - recompute.firstWriteNanos;
+        if (quietFor < debounceNanos && waitingFor < maxDelayNanos) {
+            long delay = Math.min(debounceNanos - quietFor, maxDelayNanos - waitingFor);
+            scheduler.schedule(() -> fire(groupId), delay, TimeUnit.NANOSECONDS);
+            return;
+        }
+        // Writes committing after this point schedule a new recompute
+        pending.remove(groupId, recompute);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            recompute(groupId);
+        } catch (RuntimeException e) {
+            outcome = "error";
+            log.warn("Background settlement recompute failed for group {}: {}", groupId, e.getMessage());
+        } finally {
+            sample.stop(Timer.builder(AppConstants.METRIC_SETTLEMENT_PRECOMPUTE)
+                    .description("Background settlement plan recomputes after balance changes")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Computes the plan from the ledger and stores it unless a newer one is already stored.
+     * The version is read first in the same transaction, so the balances are at least that new.
+     */
+    private PlanSnapshot recompute(Long groupId) {
+        PlanSnapshot computed = transactionTemplate.execute(status -> {
+            Object[] stats = balanceDeltaRepository.findGroupStats(groupId).get(0);
+            Group group = groupRepository.findById(groupId)
+                    .orElseThrow(() -> new RuntimeException("Group not found"));
+            List<Settlement> settlements = new ArrayList<>();
+            new TreeMap<>(balanceLedgerService.getBalancesInMinorUnits(groupId)).forEach((currencyCode, netBalances) ->
+                    settlements.addAll(minimumCashFlowService.calculateSettlements(group, currencyCode, netBalances)));
+            return new PlanSnapshot(((Number) stats[0]).longValue(), ((Number) stats[1]).longValue(), Instant.now(),
+                    List.copyOf(settlements));
+        });
+        return plans.asMap().merge(groupId, computed,
+                (old, fresh) -> fresh.ledgerVersion() >= old.ledgerVersion() ? fresh : old);
+    }
+
+    private void count(PlanSource source) {
+        Counter.builder(AppConstants.METRIC_SETTLEMENT_PLAN_READS)
+                .description("Settle-up plan reads, by whether the precomputed plan was current")
+                .tag("source", source.headerValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public enum PlanSource {
+        PRECOMPUTED, COMPUTED;
+
+        public String headerValue() {
+            return name().toLowerCase();
+        }
+    }
+
+    public record PlanRead(PlanSnapshot plan, PlanSource source) {
+    }
+
+    private static final class PendingRecompute {
+        final long firstWriteNanos;
+        volatile long lastWriteNanos;
+
+        PendingRecompute(long now) {
+            this.firstWriteNanos = now;
+            this.lastWriteNanos = now;
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package com.grouppay.currency.application;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Source of exchange rates for {@link FxRateService}.
+ * Implementations are local (file, database) so a refresh never waits on a remote API.
+ */
+public interface FxRateProvider {
+
+    /**
+     * @return Currency Code -> units of the base currency per one unit of that currency.
+     */
+    Map<String, BigDecimal> loadRates();
+}
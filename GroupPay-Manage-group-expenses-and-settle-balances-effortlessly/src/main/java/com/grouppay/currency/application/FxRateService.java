@@ -0,0 +1,91 @@
+package com.grouppay.currency.application;
+
+import com.grouppay.currency.domain.FxRateTable;
+import com.grouppay.currency.infrastructure.DbFxRateProvider;
+import com.grouppay.currency.infrastructure.FileFxRateProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Holds the current {@link FxRateTable} and refreshes it from the configured {@link FxRateProvider}.
+ * <p>
+ * Readers only read a volatile reference to an immutable table, so the conversion path takes no locks.
+ * A refresh builds a new table and swaps the reference. If the rates have not changed, the current
+ * version is kept. If the provider fails, the previous table stays in place.
+ * </p>
+ */
+@Slf4j
+@Service
+public class FxRateService {
+
+    private final FxRateProvider fxRateProvider;
+    private final String baseCurrency;
+    private volatile FxRateTable current;
+
+    /**
+     * @param mode         Which {@link FxRateProvider} to use: {@code file} (default) or {@code db}.
+     * @param baseCurrency Currency the provider's rates are quoted against.
+     */
+    public FxRateService(FileFxRateProvider fileFxRateProvider,
+                         DbFxRateProvider dbFxRateProvider,
+                         @Value("${grouppay.fx.provider:file}") String mode,
+                         @Value("${grouppay.fx.base-currency:INR}") String baseCurrency) {
+        this.fxRateProvider = switch (mode) {
+            case "file" -> fileFxRateProvider;
+            case "db" -> dbFxRateProvider;
+            default -> throw new IllegalArgumentException("Unknown grouppay.fx.provider: " + mode);
+        };
+        this.baseCurrency = baseCurrency;
+    }
+
+    @PostConstruct
+    void loadInitialRates() {
+        refresh();
+    }
+
+    /**
+     * @return The table to use for a whole read (e.g. one summary), so every amount uses the same version.
+     */
+    public FxRateTable current() {
+        return current;
+    }
+
+    public boolean supports(String currencyCode) {
+        return current.supports(currencyCode);
+    }
+
+    /**
+     * Reloads rates from the provider and publishes a new table version if they changed.
+     * Writers are serialized; readers never block on this.
+     */
+    @Scheduled(fixedDelayString = "${grouppay.fx.refresh-interval:PT15M}",
+            initialDelayString = "${grouppay.fx.refresh-interval:PT15M}")
+    public synchronized void refresh() {
+        Map<String, BigDecimal> rates;
+        try {
+            rates = fxRateProvider.loadRates();
+        } catch (RuntimeException e) {
+            if (current == null) {
+                throw e;
+            }
+            log.warn("FX rate refresh failed, keeping table v{}: {}", current.getVersion(), e.getMessage());
+            return;
+        }
+
+        FxRateTable previous = current;
+        if (previous != null && previous.hasSameRates(rates)) {
+            return;
+        }
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        current = new FxRateTable(version, baseCurrency, rates, Instant.now());
+        log.info("Published FX rate table v{} with {} currencies (base {})",
+                version, current.getRatesToBase().size(), baseCurrency);
+    }
+}
@@ -0,0 +1,35 @@
+package com.grouppay.currency.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One exchange rate row read by the {@code db} FX provider.
+ * The rate is units of the base currency ({@code grouppay.fx.base-currency}) per one unit of {@link #currencyCode}.
+ */
+@Entity
+@Table(name = "fx_rates")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class FxRate {
+
+    @Id
+    @Column(name = "currency_code", length = 3)
+    private String currencyCode;
+
+    @Column(name = "rate_to_base", nullable = false, precision = 19, scale = 8)
+    private BigDecimal rateToBase;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,94 @@
+package com.grouppay.currency.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of exchange rates, identified by a version number.
+ * <p>
+ * Rates are stored as units of the base currency per one unit of each currency, so any pair
+ * converts through the base: {@code amount * rate(from) / rate(to)}. A refresh never mutates a
+ * table; it publishes a new one. A caller that converts several amounts should therefore take
+ * one table and use it for all of them, so every amount uses the same version.
+ * </p>
+ */
+public final class FxRateTable {
+
+    private final long version;
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> ratesToBase;
+    private final Instant loadedAt;
+
+    /**
+     * @param version      Monotonic version, incremented whenever the rates change.
+     * @param baseCurrency Currency all rates are quoted against; always has rate 1.
+     * @param ratesToBase  Currency Code -> units of base currency per one unit of it. Must be positive.
+     * @param loadedAt     When the rates were read from their provider.
+     * @throws IllegalArgumentException if a rate is not positive.
+     */
+    public FxRateTable(long version, String baseCurrency, Map<String, BigDecimal> ratesToBase, Instant loadedAt) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        ratesToBase.forEach((currencyCode, rate) -> {
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("FX rate for " + currencyCode + " must be positive");
+            }
+            rates.put(currencyCode, rate.stripTrailingZeros());
+        });
+        rates.put(baseCurrency, BigDecimal.ONE);
+
+        this.version = version;
+        this.baseCurrency = baseCurrency;
+        this.ratesToBase = Map.copyOf(rates);
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Converts an amount between two currencies, rounded to 2 decimal places (half-even).
+     *
+     * @throws IllegalArgumentException if either currency has no rate.
+     */
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return amount;
+        }
+        return amount.multiply(rate(fromCurrency)).divide(rate(toCurrency), 2, RoundingMode.HALF_EVEN);
+    }
+
+    public boolean supports(String currencyCode) {
+        return currencyCode != null && ratesToBase.containsKey(currencyCode);
+    }
+
+    /**
+     * @return {@code true} if {@code rates} (same format as the constructor argument) would build an identical table.
+     */
+    public boolean hasSameRates(Map<String, BigDecimal> rates) {
+        return new FxRateTable(version, baseCurrency, rates, loadedAt).ratesToBase.equals(ratesToBase);
+    }
+
+    private BigDecimal rate(String currencyCode) {
+        BigDecimal rate = ratesToBase.get(currencyCode);
+        if (rate == null) {
+            throw new IllegalArgumentException("No FX rate for currency: " + currencyCode);
+        }
+        return rate;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public Map<String, BigDecimal> getRatesToBase() {
+        return ratesToBase;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
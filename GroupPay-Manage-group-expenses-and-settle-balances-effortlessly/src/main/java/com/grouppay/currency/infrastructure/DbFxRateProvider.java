@@ -0,0 +1,31 @@
+package com.grouppay.currency.infrastructure;
+
+import com.grouppay.currency.application.FxRateProvider;
+import com.grouppay.currency.domain.FxRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads rates from the {@code fx_rates} table ({@code grouppay.fx.provider=db}).
+ */
+@Component
+@RequiredArgsConstructor
+public class DbFxRateProvider implements FxRateProvider {
+
+    private final FxRateRepository fxRateRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> loadRates() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (FxRate rate : fxRateRepository.findAll()) {
+            rates.put(rate.getCurrencyCode(), rate.getRateToBase());
+        }
+        return rates;
+    }
+}
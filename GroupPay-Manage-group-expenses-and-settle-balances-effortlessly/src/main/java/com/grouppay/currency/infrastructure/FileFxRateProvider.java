@@ -0,0 +1,43 @@
+package com.grouppay.currency.infrastructure;
+
+import com.grouppay.currency.application.FxRateProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads rates from a properties file ({@code grouppay.fx.provider=file}), one {@code CODE=rate} line per currency.
+ * The file is re-read on every refresh, so editing it is enough to publish new rates.
+ */
+@Component
+public class FileFxRateProvider implements FxRateProvider {
+
+    private final Resource file;
+
+    public FileFxRateProvider(@Value("${grouppay.fx.file:classpath:fx-rates.properties}") Resource file) {
+        this.file = file;
+    }
+
+    @Override
+    public Map<String, BigDecimal> loadRates() {
+        Properties properties = new Properties();
+        try (InputStream in = file.getInputStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read FX rates from " + file, e);
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String currencyCode : properties.stringPropertyNames()) {
+            rates.put(currencyCode.trim(), new BigDecimal(properties.getProperty(currencyCode).trim()));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,9 @@
+package com.grouppay.currency.infrastructure;
+
+import com.grouppay.currency.domain.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, String> {
+}
@@ -0,0 +1,44 @@
+package com.grouppay.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka value deserializer reading events written by {@link BinaryEventSerializer}.
+ * <p>
+ * Records published as JSON before the switch to the binary encoding start with {@code '{'}, which is never
+ * a binary type byte; they are still read, through their type header, but only into classes of this package.
+ * </p>
+ */
+public class BinaryEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> legacyJson = new JsonDeserializer<>()
+            .trustedPackages(BinaryEventDeserializer.class.getPackageName());
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            return legacyJson.deserialize(topic, headers, data);
+        }
+        try {
+            return BinaryEventCodec.decode(data);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new SerializationException("Cannot decode event from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        legacyJson.close();
+    }
+}
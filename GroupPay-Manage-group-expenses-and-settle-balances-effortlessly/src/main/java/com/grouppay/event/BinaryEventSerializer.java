@@ -0,0 +1,22 @@
+package com.grouppay.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing events with {@link BinaryEventCodec}.
+ */
+public class BinaryEventSerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return BinaryEventCodec.encode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot encode event for topic " + topic, e);
+        }
+    }
+}
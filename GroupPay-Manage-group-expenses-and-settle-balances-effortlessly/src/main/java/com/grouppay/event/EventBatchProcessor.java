@@ -0,0 +1,127 @@
+package com.grouppay.event;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs a batch listener's poll batch through one database transaction.
+ * <p>
+ * Every failure reaches the container's error handler as a {@link BatchListenerFailedException} naming one
+ * record: the handler commits the offsets before it, retries from it and, once retries run out, sends only
+ * that record to the dead-letter topic and carries on with the rest.
+ * </p>
+ * <ul>
+ *     <li>A record whose value could not be deserialized arrives with a {@code null} value (see
+ *     {@code ErrorHandlingDeserializer}). The records before it are handled and committed, then it is named.</li>
+ *     <li>A {@linkplain #isTransient transient} database failure rolls the batch back and names its first
+ *     record; {@link KafkaConsumerConfig} retries those with a growing backoff and never dead-letters them.</li>
+ *     <li>Any other failure rolls the batch back, which is then handled again one record per transaction to
+ *     find the record that fails. The records before it stay committed, and it is named.</li>
+ * </ul>
+ */
+@Component
+public class EventBatchProcessor {
+
+    private static final LogAccessor LOG = new LogAccessor(EventBatchProcessor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public EventBatchProcessor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param handler Called inside a transaction with the values of the batch up to the first poison record;
+     *                if that fails, called again with one value per transaction.
+     * @throws BatchListenerFailedException naming the record that could not be deserialized or handled.
+     */
+    public <V> void process(String topic, List<ConsumerRecord<String, V>> records, Consumer<List<V>> handler) {
+        DistributionSummary.builder(AppConstants.METRIC_EVENT_BATCH)
+                .description("Records per consumer poll batch, handled in one transaction")
+                .baseUnit("records")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .record(records.size());
+
+        List<V> values = new ArrayList<>(records.size());
+        int poison = -1;
+        for (int i = 0; i < records.size(); i++) {
+            V value = records.get(i).value();
+            if (value == null) {
+                poison = i;
+                break;
+            }
+            values.add(value);
+        }
+
+        if (!values.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> handler.accept(values));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    throw new BatchListenerFailedException("Transient failure handling a batch of " + topic, e, 0);
+                }
+                handleOneByOne(records, values, handler);
+            }
+        }
+        if (poison >= 0) {
+            ConsumerRecord<String, V> record = records.get(poison);
+            DeserializationException cause = SerializationUtils.getExceptionFromHeader(record,
+                    SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG);
+            throw new BatchListenerFailedException("Undeserializable record at offset " + record.offset()
+                    + " of " + record.topic() + "-" + record.partition(), cause, poison);
+        }
+    }
+
+    /**
+     * Finds the record that made the batch fail: each value is handled and committed on its own until one
+     * fails again.
+     */
+    private <V> void handleOneByOne(List<ConsumerRecord<String, V>> records, List<V> values, Consumer<List<V>> handler) {
+        for (int i = 0; i < values.size(); i++) {
+            List<V> single = List.of(values.get(i));
+            try {
+                transactionTemplate.executeWithoutResult(status -> handler.accept(single));
+            } catch (RuntimeException e) {
+                ConsumerRecord<String, V> record = records.get(i);
+                throw new BatchListenerFailedException("Failed to handle record at offset " + record.offset()
+                        + " of " + record.topic() + "-" + record.partition(), e, i);
+            }
+        }
+    }
+
+    /**
+     * Whether {@code failure} is caused by the database being briefly unavailable or contended rather than by
+     * the records: retrying the same records later is expected to succeed.
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -15,4 +15,5 @@ public class ExpenseCreatedEvent {
     private Long groupId;
     private BigDecimal amount;
     private Long payerId;
+    private String currencyCode;
 }
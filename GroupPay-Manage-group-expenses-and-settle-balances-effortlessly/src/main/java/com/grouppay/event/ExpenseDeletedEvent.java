@@ -0,0 +1,22 @@
+package com.grouppay.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ExpenseDeletedEvent {
+    private Long expenseId;
+    private Long groupId;
+    private BigDecimal amount;
+    private String currencyCode;
+    private Long payerId;
+    // Split users, so consumers can notify them without reading the deleted rows
+    private List<Long> participantIds;
+}
@@ -1,4 +1,93 @@
 package com.grouppay.event;
 
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Batch listener containers for the notification consumers.
+ * <p>
+ * Each container thread polls up to {@code spring.kafka.consumer.max-poll-records} records and hands them to
+ * the listener as one list, which is handled in one database transaction (see {@link EventBatchProcessor}).
+ * Producers key every event by group ID, so a group's events land on one partition and stay ordered;
+ * {@code grouppay.kafka.consumer.concurrency} threads share the partitions, so more than the partition count
+ * would sit idle.
+ * </p>
+ * <p>
+ * {@link EventBatchProcessor} names the record a batch failed on. That record is retried {@code retries}
+ * times, {@code retry-backoff} apart; if it still fails, or could not be deserialized at all, it alone is
+ * published to {@code <topic>-dlt} with the exception in its headers, keyed as before, and the consumer moves
+ * on. Transient database failures are retried with an exponential backoff capped at
+ * {@code transient-max-backoff} for as long as they last, so an outage delays events instead of
+ * dead-lettering them.
+ * </p>
+ */
+@Configuration
 public class KafkaConsumerConfig {
+
+    public static final String BATCH_LISTENER_FACTORY = "batchListenerContainerFactory";
+
+    @Bean(BATCH_LISTENER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler eventErrorHandler,
+            @Value("${grouppay.kafka.consumer.concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(eventErrorHandler);
+        return factory;
+    }
+
+    @Bean
+    public DefaultErrorHandler eventErrorHandler(KafkaTemplate<String, Object> kafkaTemplate,
+                                                 KafkaProperties kafkaProperties,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${grouppay.kafka.consumer.retries:2}") long retries,
+                                                 @Value("${grouppay.kafka.consumer.retry-backoff:PT1S}") Duration retryBackoff,
+                                                 @Value("${grouppay.kafka.consumer.transient-max-backoff:PT30S}") Duration transientMaxBackoff) {
+        // Poison records come back as their original bytes, which the event serializer would reject
+        KafkaTemplate<String, byte[]> bytesTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null), new StringSerializer(), new ByteArraySerializer()));
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, bytesTemplate);
+        templates.put(Object.class, kafkaTemplate);
+
+        // Partition -1 lets the producer partition by key, so the DLT needs no particular partition count
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(templates, (record, ex) -> {
+            Counter.builder(AppConstants.METRIC_EVENT_DEAD_LETTERS)
+                    .description("Records given up on and published to a dead-letter topic")
+                    .tag("topic", record.topic())
+                    .register(meterRegistry)
+                    .increment();
+            return new TopicPartition(record.topic() + AppConstants.DEAD_LETTER_TOPIC_SUFFIX, -1);
+        });
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(retryBackoff.toMillis(), retries));
+        // No elapsed-time or attempt limit: transient failures are retried until they clear
+        ExponentialBackOff transientBackOff = new ExponentialBackOff(retryBackoff.toMillis(), 2.0);
+        transientBackOff.setMaxInterval(transientMaxBackoff.toMillis());
+        errorHandler.setBackOffFunction((record, ex) -> EventBatchProcessor.isTransient(ex) ? transientBackOff : null);
+        return errorHandler;
+    }
 }
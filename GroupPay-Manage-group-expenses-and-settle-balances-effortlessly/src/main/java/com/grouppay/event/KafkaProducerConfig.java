@@ -1,4 +1,32 @@
 package com.grouppay.event;
 
+import com.grouppay.shared.constants.AppConstants;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+/**
+ * Declares the event topics and their dead-letter topics; {@link KafkaAdmin} creates any that are missing
+ * on startup. Events are keyed by group ID, so the partition count bounds how many consumer threads
+ * ({@code grouppay.kafka.consumer.concurrency}) can work on a topic at once.
+ */
+@Configuration
 public class KafkaProducerConfig {
+
+    @Bean
+    public KafkaAdmin.NewTopics eventTopics(@Value("${grouppay.kafka.partitions:6}") int partitions,
+                                            @Value("${grouppay.kafka.replicas:1}") int replicas) {
+        return new KafkaAdmin.NewTopics(
+                topic(AppConstants.SETTLEMENT_CREATED_TOPIC, partitions, replicas),
+                topic(AppConstants.SETTLEMENT_CREATED_TOPIC + AppConstants.DEAD_LETTER_TOPIC_SUFFIX, partitions, replicas),
+                topic(AppConstants.EXPENSE_DELETED_TOPIC, partitions, replicas),
+                topic(AppConstants.EXPENSE_DELETED_TOPIC + AppConstants.DEAD_LETTER_TOPIC_SUFFIX, partitions, replicas));
+    }
+
+    private static NewTopic topic(String name, int partitions, int replicas) {
+        return TopicBuilder.name(name).partitions(partitions).replicas(replicas).build();
+    }
 }
@@ -1,4 +1,21 @@
 package com.grouppay.event;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor @AllArgsConstructor
+@Builder
 public class SettlementCreatedEvent {
+    private Long settlementId;
+    private Long groupId;
+    private Integer batchVersion;
+    private Long payerId;
+    private Long payeeId;
+    private BigDecimal amount;
+    private String currencyCode;
 }
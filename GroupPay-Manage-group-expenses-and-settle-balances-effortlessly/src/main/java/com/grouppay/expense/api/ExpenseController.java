@@ -24,11 +24,16 @@ public class ExpenseController {
      * <p>
      * Endpoint: POST /expenses
      * </p>
+     * <p>
+     * Clients that retry on timeouts should send an {@code Idempotency-Key} header: retries with the same key
+     * get the first response back instead of creating the expense again (see {@code IdempotencyFilter}).
+     * </p>
      *
      * @param userId      ID of the payer.
      * @param groupId     ID of the group.
      * @param description Description of expense.
      * @param amount      Total amount (must be positive).
+     * @param currencyCode Optional currency of the amount; defaults to the payer's currency.
      * @param type        Splitting strategy (EQUAL, EXACT, PERCENTAGE).
      * @param splits      Optional JSON body map for custom splits (UserId -> Value).
      * @return The created Expense object.
@@ -39,11 +44,12 @@ public class ExpenseController {
             @RequestParam Long groupId,
             @RequestParam String description,
             @RequestParam BigDecimal amount,
+            @RequestParam(required = false) String currencyCode,
             @RequestParam ExpenseType type,
             @RequestParam(required = false) String upiId,
             @RequestBody(required = false) Map<Long, BigDecimal> splits // Key: UserId, Value: Amount (for exact split)
     ) {
-        return ResponseEntity.ok(addExpenseService.addExpense(userId, groupId, description, amount, type, splits, upiId));
+        return ResponseEntity.ok(addExpenseService.addExpense(userId, groupId, description, amount, currencyCode, type, splits, upiId));
     }
 
     @GetMapping("/group/{groupId}")
@@ -1,22 +1,32 @@
 package com.grouppay.expense.application;
 
+import com.grouppay.currency.application.FxRateService;
 import com.grouppay.expense.domain.Expense;
 import com.grouppay.expense.domain.ExpenseSplit;
 import com.grouppay.expense.domain.ExpenseType;
 import com.grouppay.expense.infrastructure.ExpenseRepository;
 import com.grouppay.group.domain.Group;
 import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.concurrency.TransactionRetryExecutor;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.util.MetricTags;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AddExpenseService {
@@ -24,8 +34,13 @@ public class AddExpenseService {
     private final ExpenseRepository expenseRepository;
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final BalanceLedgerService balanceLedgerService;
     // Event publisher placeholder
     private final com.grouppay.notification.application.NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+    private final FxRateService fxRateService;
+    private final TransactionRetryExecutor transactionRetryExecutor;
+    private final GroupWriteLocks groupWriteLocks;
 
     /**
      * Adds a new expense to the group and calculates the splits among members.
@@ -34,19 +49,43 @@ public class AddExpenseService {
      * creates an Expense entity, and determines how the amount should be split
      * based on the ExpenseType (EQUAL, EXACT, PERCENTAGE).
      * </p>
+     * <p>
+     * Runs in its own transaction, which is retried with jitter if it loses a race with another writer
+     * of the same group.
+     * </p>
      *
      * @param userId      The ID of the user who paid for the expense.
      * @param groupId     The ID of the group where the expense is added.
      * @param description A brief description of the expense.
      * @param amount      The total amount of the expense. Must be positive.
+     * @param currencyCode Currency of {@code amount}; defaults to the payer's currency. Must have an FX rate.
      * @param type        The type of split (EQUAL, EXACT, PERCENTAGE).
      * @param splits      A map containing split details (User ID -> Amount or Percentage), required for EXACT/PERCENTAGE.
      * @return The saved Expense entity with all splits persisted.
-     * @throws IllegalArgumentException if validation fails (e.g., non-member payer, invalid amount).
+     * @throws IllegalArgumentException if validation fails (e.g., non-member payer, invalid amount, unknown currency).
      * @throws RuntimeException if User or Group is not found.
      */
-    @Transactional
-    public Expense addExpense(Long userId, Long groupId, String description, BigDecimal amount, ExpenseType type, Map<Long, BigDecimal> splits, String upiId) {
+    public Expense addExpense(Long userId, Long groupId, String description, BigDecimal amount, String currencyCode, ExpenseType type, Map<Long, BigDecimal> splits, String upiId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String splitBucket = "none";
+        String outcome = "error";
+        try {
+            Expense saved = transactionRetryExecutor.execute(
+                    () -> createExpense(userId, groupId, description, amount, currencyCode, type, splits, upiId));
+            splitBucket = MetricTags.sizeBucket(saved.getSplits().size());
+            outcome = "success";
+            return saved;
+        } finally {
+            sample.stop(Timer.builder(AppConstants.METRIC_EXPENSE_ADD)
+                    .description("Time to validate, split and persist an expense")
+                    .tag("type", String.valueOf(type))
+                    .tag("splits", splitBucket)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private Expense createExpense(Long userId, Long groupId, String description, BigDecimal amount, String currencyCode, ExpenseType type, Map<Long, BigDecimal> splits, String upiId) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
@@ -54,11 +93,20 @@ public class AddExpenseService {
             throw new IllegalArgumentException("Description cannot be empty");
         }
 
+        // Serialize writers of this group before the first read, so the ledger update below starts
+        // from the previous writer's committed state even under REPEATABLE READ snapshots
+        groupWriteLocks.lockUntilCompletion(groupId);
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
 
+        String expenseCurrency = currencyCode != null ? currencyCode : user.getCurrencyCode();
+        if (!fxRateService.supports(expenseCurrency)) {
+            throw new IllegalArgumentException("Unsupported currency: " + expenseCurrency);
+        }
+
         boolean isPayerInGroup = group.getMembers().stream()
                 .anyMatch(member -> member.getUser().getId().equals(userId));
         if (!isPayerInGroup) {
@@ -68,6 +116,7 @@ public class AddExpenseService {
         Expense expense = Expense.builder()
                 .description(description)
                 .amount(amount)
+                .currencyCode(expenseCurrency)
                 .paidBy(user)
                 .group(group)
                 .type(type)
@@ -78,10 +127,13 @@ public class AddExpenseService {
         expense.setSplits(expenseSplits);
 
         Expense savedExpense = expenseRepository.save(expense);
+        balanceLedgerService.recordExpense(savedExpense);
         
         // Notify all users involved in the split (except the payer)
+        int notified = 0;
         for (ExpenseSplit split : expenseSplits) {
             if (!split.getUser().getId().equals(userId)) {
+                notified++;
                 notificationService.createNotification(
                         split.getUser().getId(),
                         "New Expense Added",
@@ -90,9 +142,13 @@ public class AddExpenseService {
                 );
             }
         }
-        
+        DistributionSummary.builder(AppConstants.METRIC_NOTIFICATION_FANOUT)
+                .description("Notifications created by a single write")
+                .baseUnit("notifications")
+                .tag("source", "expense")
+                .register(meterRegistry)
+                .record(notified);
 
-        
         return savedExpense;
     }
 
@@ -144,10 +200,12 @@ public class AddExpenseService {
                 throw new IllegalArgumentException("Exact splits must be provided for type EXACT");
             }
             
-            System.out.println("DEBUG: Processing EXACT split. splitData size: " + splitData.size());
-            
+            log.debug("Processing EXACT split with {} entries", splitData.size());
+
              for (Map.Entry<Long, BigDecimal> entry : splitData.entrySet()) {
-                 System.out.println("DEBUG: Split for User " + entry.getKey() + " = " + entry.getValue());
+                 if (log.isTraceEnabled()) {
+                     log.trace("EXACT split for user {} = {}", entry.getKey(), entry.getValue());
+                 }
                  if (!memberIds.contains(entry.getKey())) {
                      throw new IllegalArgumentException("User ID " + entry.getKey() + " is not a member of this group");
                  }
@@ -161,7 +219,7 @@ public class AddExpenseService {
                          .build());
                  totalSplit = totalSplit.add(entry.getValue());
              }
-             System.out.println("DEBUG: Total Split Sum: " + totalSplit + ", Expected: " + expense.getAmount());
+             log.debug("EXACT split total {}, expected {}", totalSplit, expense.getAmount());
              if (totalSplit.compareTo(expense.getAmount()) != 0) {
                  throw new IllegalArgumentException("Sum of expense splits (" + totalSplit + ") does not equal total amount (" + expense.getAmount() + ")");
              }
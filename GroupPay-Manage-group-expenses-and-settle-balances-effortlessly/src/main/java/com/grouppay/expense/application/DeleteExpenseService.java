@@ -1,21 +1,69 @@
 package com.grouppay.expense.application;
 
+import com.grouppay.event.ExpenseDeletedEvent;
 import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.expense.infrastructure.ExpenseSummary;
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 public class DeleteExpenseService {
 
     private final ExpenseRepository expenseRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final GroupWriteLocks groupWriteLocks;
+    private final ExpenseEventPublisher expenseEventPublisher;
 
+    /**
+     * Deletes an expense and reverts its effect on the group's balances.
+     * <p>
+     * Neither the expense nor its splits are loaded as entities: the balance change to revert is read
+     * as one aggregate over the splits, and the rows are removed with two bulk deletes (splits, then the
+     * expense). The statement count is constant however many splits the expense has. Writes to the ledger
+     * publish a balance change, which invalidates the group's derived caches; an {@link ExpenseDeletedEvent}
+     * is published after commit for the participants' notifications.
+     * </p>
+     *
+     * @throws RuntimeException if the expense does not exist (or was deleted concurrently).
+     */
     @Transactional
     public void deleteExpense(Long expenseId) {
-        if (!expenseRepository.existsById(expenseId)) {
+        ExpenseSummary expense = expenseRepository.findSummaryById(expenseId)
+                .orElseThrow(() -> new RuntimeException("Expense not found"));
+        groupWriteLocks.lockUntilCompletion(expense.getGroupId());
+
+        List<UserCurrencyAmountTotal> owed = expenseRepository.sumOwedByUserForExpense(expenseId);
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(expense.getPayerId(), expense.getAmount(), BigDecimal::add);
+        for (UserCurrencyAmountTotal row : owed) {
+            deltas.merge(row.getUserId(), row.getTotal().negate(), BigDecimal::add);
+        }
+        // While the rows still exist, so a lazy ledger rebuild counts the expense before reverting it
+        balanceLedgerService.reverseExpense(expense.getGroupId(), expense.getCurrencyCode(), deltas);
+
+        expenseRepository.deleteSplitsByExpenseId(expenseId);
+        if (expenseRepository.deleteExpenseRowById(expenseId) == 0) {
+            // Another transaction deleted it first; roll back this reversal
             throw new RuntimeException("Expense not found");
         }
-        expenseRepository.deleteById(expenseId);
+
+        expenseEventPublisher.publishExpenseDeleted(ExpenseDeletedEvent.builder()
+                .expenseId(expenseId)
+                .groupId(expense.getGroupId())
+                .amount(expense.getAmount())
+                .currencyCode(expense.getCurrencyCode())
+                .payerId(expense.getPayerId())
+                .participantIds(owed.stream().map(UserCurrencyAmountTotal::getUserId).toList())
+                .build());
     }
 }
@@ -1,4 +1,47 @@
 package com.grouppay.expense.application;
 
+import com.grouppay.event.ExpenseDeletedEvent;
+import com.grouppay.shared.constants.AppConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes expense events to Kafka, keyed by group ID so a group's events stay ordered.
+ * Events are sent only after the surrounding transaction commits, so consumers never see rolled-back deletes.
+ * The send runs on the committing thread; {@code max.block.ms} bounds how long it can wait on an unreachable
+ * broker, after which the event is dropped with a warning.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
 public class ExpenseEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void publishExpenseDeleted(ExpenseDeletedEvent event) {
+        afterCommit(() -> kafkaTemplate.send(AppConstants.EXPENSE_DELETED_TOPIC, String.valueOf(event.getGroupId()), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Failed to publish deletion of expense {} in group {}: {}",
+                                event.getExpenseId(), event.getGroupId(), ex.getMessage());
+                    }
+                }));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -25,6 +25,10 @@ public class Expense {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    @Builder.Default
+    @Column(name = "currency_code", nullable = false, length = 3)
+    private String currencyCode = com.grouppay.shared.constants.AppConstants.DEFAULT_CURRENCY; // ISO 4217, e.g. INR, USD
+
     @Column(name = "upi_id") // Optional, can be null if not provided
     private String upiId;
 
@@ -2,12 +2,46 @@ package com.grouppay.expense.infrastructure;
 
 import com.grouppay.expense.domain.Expense;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findByGroupId(Long groupId);
     List<Expense> findByPaidById(Long userId);
+    long countByGroupId(Long groupId);
+
+    // Total paid per payer and currency in a group (one row per payer per currency)
+    @Query("SELECT e.paidBy.id AS userId, e.currencyCode AS currencyCode, SUM(e.amount) AS total, " +
+            "COUNT(e) AS expenseCount FROM Expense e WHERE e.group.id = :groupId GROUP BY e.paidBy.id, e.currencyCode")
+    List<PayerCurrencyAmountTotal> sumPaidByUser(@Param("groupId") Long groupId);
+
+    // Total owed per split user and currency in a group (one row per borrower per currency)
+    @Query("SELECT s.user.id AS userId, s.expense.currencyCode AS currencyCode, SUM(s.amount) AS total " +
+            "FROM ExpenseSplit s WHERE s.expense.group.id = :groupId GROUP BY s.user.id, s.expense.currencyCode")
+    List<UserCurrencyAmountTotal> sumOwedByUser(@Param("groupId") Long groupId);
+
+    // Scalar columns of one expense, without loading the entity or its splits
+    @Query("SELECT e.id AS id, e.group.id AS groupId, e.paidBy.id AS payerId, e.amount AS amount, " +
+            "e.currencyCode AS currencyCode FROM Expense e WHERE e.id = :expenseId")
+    Optional<ExpenseSummary> findSummaryById(@Param("expenseId") Long expenseId);
+
+    // Total owed per split user of one expense (one row per user)
+    @Query("SELECT s.user.id AS userId, s.expense.currencyCode AS currencyCode, SUM(s.amount) AS total " +
+            "FROM ExpenseSplit s WHERE s.expense.id = :expenseId GROUP BY s.user.id, s.expense.currencyCode")
+    List<UserCurrencyAmountTotal> sumOwedByUserForExpense(@Param("expenseId") Long expenseId);
+
+    @Modifying
+    @Query("DELETE FROM ExpenseSplit s WHERE s.expense.id = :expenseId")
+    int deleteSplitsByExpenseId(@Param("expenseId") Long expenseId);
+
+    // Bulk delete that bypasses the cascade; splits must be deleted first
+    @Modifying
+    @Query("DELETE FROM Expense e WHERE e.id = :expenseId")
+    int deleteExpenseRowById(@Param("expenseId") Long expenseId);
 }
@@ -0,0 +1,14 @@
+package com.grouppay.expense.infrastructure;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of an expense's own columns, for paths that must not hydrate the entity and its splits.
+ */
+public interface ExpenseSummary {
+    Long getId();
+    Long getGroupId();
+    Long getPayerId();
+    BigDecimal getAmount();
+    String getCurrencyCode();
+}
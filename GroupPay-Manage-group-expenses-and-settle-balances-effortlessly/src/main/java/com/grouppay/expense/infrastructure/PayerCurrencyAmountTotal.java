@@ -0,0 +1,8 @@
+package com.grouppay.expense.infrastructure;
+
+/**
+ * A payer's total in one currency, with the number of expenses summed into it.
+ */
+public interface PayerCurrencyAmountTotal extends UserCurrencyAmountTotal {
+    long getExpenseCount();
+}
@@ -0,0 +1,13 @@
+package com.grouppay.expense.infrastructure;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a per-user, per-currency aggregate returned by GROUP BY queries.
+ * Amounts in different currencies are never summed together.
+ */
+public interface UserCurrencyAmountTotal {
+    Long getUserId();
+    String getCurrencyCode();
+    BigDecimal getTotal();
+}
@@ -0,0 +1,9 @@
+package com.grouppay.group.api;
+
+import java.util.List;
+
+/**
+ * Body of the bulk membership endpoints.
+ */
+public record BulkMembersRequest(List<Long> userIds) {
+}
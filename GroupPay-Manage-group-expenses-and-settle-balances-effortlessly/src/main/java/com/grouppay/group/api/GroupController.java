@@ -2,8 +2,11 @@ package com.grouppay.group.api;
 
 import com.grouppay.group.application.AddMemberService;
 import com.grouppay.group.application.CreateGroupService;
+import com.grouppay.group.domain.BulkMembershipResult;
 import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupDeletionStatus;
 import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.domain.GroupSummaryPage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -44,13 +47,38 @@ public class GroupController {
     }
 
     /**
-     * Get groups for a user.
+     * Adds several users to the group at once. Users that are already members are skipped.
+     *
+     * @param groupId ID of the group.
+     * @param request IDs of the users to add.
+     * @return Which users were added and which were members already.
+     */
+    @PostMapping("/{groupId}/members/bulk")
+    public ResponseEntity<BulkMembershipResult> addMembers(@PathVariable Long groupId, @RequestBody BulkMembersRequest request) {
+        return ResponseEntity.ok(addMemberService.addMembers(groupId, request.userIds()));
+    }
+
+    /**
+     * Removes several users from the group at once. Users that are not members are ignored.
+     */
+    @PostMapping("/{groupId}/members/bulk-remove")
+    public ResponseEntity<Void> removeMembers(@PathVariable Long groupId, @RequestBody BulkMembersRequest request) {
+        addMemberService.removeMembers(groupId, request.userIds());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get groups for a user, most recently active first.
      * @param userId ID of the user.
-     * @return List of groups.
+     * @param cursor {@code nextCursor} of the previous page; omit for the first page.
+     * @param limit  Page size.
+     * @return One page of group summaries with the user's balance in each.
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<java.util.List<Group>> getUserGroups(@PathVariable Long userId) {
-        return ResponseEntity.ok(getUserGroupsService.getUserGroups(userId));
+    public ResponseEntity<GroupSummaryPage> getUserGroups(@PathVariable Long userId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(getUserGroupsService.getUserGroups(userId, cursor, limit));
     }
 
     @DeleteMapping("/{groupId}/members/{userId}")
@@ -59,9 +87,23 @@ public class GroupController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Deletes the group. It disappears immediately; its expenses, settlements and balances are purged in the
+     * background, which {@code GET /groups/{groupId}/deletion} reports on.
+     */
     @DeleteMapping("/{groupId}")
     public ResponseEntity<Void> deleteGroup(@PathVariable Long groupId) {
         deleteGroupService.deleteGroup(groupId);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Progress of the background purge of a deleted group.
+     * @param groupId ID of the deleted group.
+     * @return Rows still to delete per table; "Group not found" once the purge has finished.
+     */
+    @GetMapping("/{groupId}/deletion")
+    public ResponseEntity<GroupDeletionStatus> getDeletionStatus(@PathVariable Long groupId) {
+        return ResponseEntity.ok(deleteGroupService.getDeletionStatus(groupId));
     }
 }
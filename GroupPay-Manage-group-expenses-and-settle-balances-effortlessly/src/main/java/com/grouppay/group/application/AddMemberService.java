@@ -1,54 +1,92 @@
 package com.grouppay.group.application;
 
+import com.grouppay.group.domain.BulkMembershipResult;
 import com.grouppay.group.domain.Group;
 import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupMemberBatchWriter;
+import com.grouppay.group.infrastructure.GroupMemberRepository;
 import com.grouppay.group.infrastructure.GroupRepository;
 import com.grouppay.notification.application.NotificationService;
 import com.grouppay.notification.domain.NotificationType;
-import com.grouppay.user.domain.User;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.concurrency.TransactionRetryExecutor;
 import com.grouppay.user.infrastructure.UserRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class AddMemberService {
 
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final TransactionRetryExecutor transactionRetryExecutor;
+    private final GroupWriteLocks groupWriteLocks;
+    private final EntityManagerFactory entityManagerFactory;
+    private final GroupMemberBatchWriter groupMemberBatchWriter;
+    private final GroupMemberRepository groupMemberRepository;
+    private final int maxBulkSize;
+
+    /**
+     * @param maxBulkSize Most user ids one bulk add or remove accepts.
+     */
+    public AddMemberService(GroupRepository groupRepository,
+                            UserRepository userRepository,
+                            NotificationService notificationService,
+                            TransactionRetryExecutor transactionRetryExecutor,
+                            GroupWriteLocks groupWriteLocks,
+                            EntityManagerFactory entityManagerFactory,
+                            GroupMemberBatchWriter groupMemberBatchWriter,
+                            GroupMemberRepository groupMemberRepository,
+                            @Value("${grouppay.groups.members.max-bulk-size:500}") int maxBulkSize) {
+        this.groupRepository = groupRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.transactionRetryExecutor = transactionRetryExecutor;
+        this.groupWriteLocks = groupWriteLocks;
+        this.entityManagerFactory = entityManagerFactory;
+        this.groupMemberBatchWriter = groupMemberBatchWriter;
+        this.groupMemberRepository = groupMemberRepository;
+        this.maxBulkSize = maxBulkSize;
+    }
 
     /**
      * Adds a user to an existing group.
+     * <p>
+     * The member list is never loaded: one indexed lookup by (group_id, user_id) decides whether the user
+     * already is a member, and the membership row is inserted directly (see {@link GroupMemberBatchWriter}).
+     * Writers on this instance are serialized by the group's write lock. The group's version is also
+     * force-incremented, so a concurrent change from another instance conflicts at commit and is retried on
+     * fresh state.
+     * </p>
+     *
+     * @throws IllegalArgumentException if the user is already a member.
      */
-    @Transactional
     public GroupMember addMember(Long groupId, Long userId) {
-        Group group = groupRepository.findById(groupId)
+        return transactionRetryExecutor.execute(() -> doAddMember(groupId, userId));
+    }
+
+    private GroupMember doAddMember(Long groupId, Long userId) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        Group group = groupRepository.findByIdForMembershipChange(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Check if already member
-        boolean isAlreadyMember = group.getMembers() != null && group.getMembers().stream()
-                .anyMatch(m -> m.getUser().getId().equals(userId));
-        
-        if (isAlreadyMember) {
-            throw new IllegalArgumentException("User is already a member of this group");
+        evictGroupAfterCommit(groupId);
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
         }
 
-        GroupMember member = GroupMember.builder()
-                .group(group)
-                .user(user)
-                .isAdmin(false)
-                .build();
-
-        if (group.getMembers() != null) {
-            group.getMembers().add(member);
+        if (groupMemberBatchWriter.insertMembers(groupId, List.of(userId)).isEmpty()) {
+            throw new IllegalArgumentException("User is already a member of this group");
         }
-        
-        
-        groupRepository.save(group);
 
         // Notify the user
         notificationService.createNotification(
@@ -58,18 +96,109 @@ public class AddMemberService {
                 NotificationType.SYSTEM
         );
 
-        return member;
+        return groupMemberRepository.findByGroupIdAndUserId(groupId, userId).orElseThrow();
     }
 
     /**
-     * Removes a user from a group.
+     * Adds several users to an existing group in one transaction.
+     * <p>
+     * Costs a constant number of statements however many users are added: one query for which users
+     * exist, one for which are already members, one JDBC batch of {@code INSERT}s for the rest and one batched
+     * notification insert. Users already in the group are skipped and reported, so a retried request is
+     * harmless. Concurrency is handled as in {@link #addMember(Long, Long)}.
+     * </p>
+     *
+     * @throws IllegalArgumentException if {@code userIds} is empty or longer than
+     *                                  {@code grouppay.groups.members.max-bulk-size}.
+     * @throws RuntimeException         if the group or any of the users does not exist.
+     */
+    public BulkMembershipResult addMembers(Long groupId, List<Long> userIds) {
+        checkBulkSize(userIds);
+        return transactionRetryExecutor.execute(() -> doAddMembers(groupId, new LinkedHashSet<>(userIds)));
+    }
+
+    private BulkMembershipResult doAddMembers(Long groupId, Set<Long> userIds) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        Group group = groupRepository.findByIdForMembershipChange(groupId)
+                .orElseThrow(() -> new RuntimeException("Group not found"));
+        evictGroupAfterCommit(groupId);
+
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(userIds));
+        if (existing.size() < userIds.size()) {
+            List<Long> missing = userIds.stream().filter(id -> !existing.contains(id)).toList();
+            throw new RuntimeException("User not found: " + missing);
+        }
+
+        List<Long> added = groupMemberBatchWriter.insertMembers(groupId, new ArrayList<>(userIds));
+        Set<Long> addedSet = new HashSet<>(added);
+        List<Long> alreadyMembers = userIds.stream().filter(id -> !addedSet.contains(id)).toList();
+
+        if (!added.isEmpty()) {
+            notificationService.createNotifications(added, "Added to Group",
+                    "You have been added to the group: " + group.getName(), NotificationType.SYSTEM);
+        }
+        return new BulkMembershipResult(added, alreadyMembers);
+    }
+
+    /**
+     * Removes several users from a group with one bulk delete. Users that are not members are ignored.
+     *
+     * @return The number of memberships removed.
+     * @throws IllegalArgumentException if {@code userIds} is empty or longer than
+     *                                  {@code grouppay.groups.members.max-bulk-size}.
+     */
+    public int removeMembers(Long groupId, List<Long> userIds) {
+        checkBulkSize(userIds);
+        return transactionRetryExecutor.execute(() -> {
+            groupWriteLocks.lockUntilCompletion(groupId);
+            groupRepository.findByIdForMembershipChange(groupId)
+                    .orElseThrow(() -> new RuntimeException("Group not found"));
+            evictGroupAfterCommit(groupId);
+            return groupMemberRepository.deleteMembers(groupId, new LinkedHashSet<>(userIds));
+        });
+    }
+
+    /**
+     * Removes a user from a group with a single DELETE by (group, user). Removing a non-member does nothing.
      */
-    @Transactional
     public void removeMember(Long groupId, Long userId) {
-        Group group = groupRepository.findById(groupId)
+        transactionRetryExecutor.execute(() -> {
+            doRemoveMember(groupId, userId);
+            return null;
+        });
+    }
+
+    private void doRemoveMember(Long groupId, Long userId) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        groupRepository.findByIdForMembershipChange(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
-        
-        group.getMembers().removeIf(m -> m.getUser().getId().equals(userId));
-        groupRepository.save(group);
+        evictGroupAfterCommit(groupId);
+
+        groupMemberRepository.deleteMember(groupId, userId);
+    }
+
+    private void checkBulkSize(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("userIds must not be empty");
+        }
+        if (userIds.size() > maxBulkSize) {
+            throw new IllegalArgumentException("At most " + maxBulkSize + " userIds per request, got " + userIds.size());
+        }
+    }
+
+    /**
+     * The forced version increment is written with a direct UPDATE that bypasses the second-level cache,
+     * so the cached Group would keep its old version. Evicting it makes the next load read the new one.
+     * Batch-inserted members bypass it too, so the cached member list is evicted with it.
+     */
+    private void evictGroupAfterCommit(Long groupId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Group.class, groupId);
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class)
+                        .evictCollectionData(Group.class.getName() + ".members", groupId);
+            }
+        });
     }
 }
@@ -9,6 +9,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class CreateGroupService {
@@ -41,6 +43,7 @@ public class CreateGroupService {
                 .name(name)
                 .description(description)
                 .createdBy(creator)
+                .balancesInitializedAt(LocalDateTime.now())   // no expenses yet, so its empty ledger is complete
                 .build();
 
         GroupMember adminMember = GroupMember.builder()
@@ -1,21 +1,70 @@
 package com.grouppay.group.application;
 
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupDeletionStatus;
+import com.grouppay.group.infrastructure.GroupPurgeRepository;
 import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class DeleteGroupService {
 
     private final GroupRepository groupRepository;
+    private final GroupPurgeRepository groupPurgeRepository;
+    private final GroupWriteLocks groupWriteLocks;
+    private final EntityManagerFactory entityManagerFactory;
 
+    /**
+     * Deletes a group. The group is only marked deleted here, which hides it from every read at once and
+     * costs one row update however large it is; {@link GroupPurgeService} removes its rows in the background.
+     * <p>
+     * Takes the group's write lock and bumps its version, so writes already in flight either finish first
+     * or fail, and later writes no longer find the group.
+     * </p>
+     *
+     * @throws RuntimeException if the group does not exist or is already deleted.
+     */
     @Transactional
     public void deleteGroup(Long groupId) {
-        if (!groupRepository.existsById(groupId)) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        Group group = groupRepository.findByIdForMembershipChange(groupId)
+                .orElseThrow(() -> new RuntimeException("Group not found"));
+        group.setDeletedAt(LocalDateTime.now());
+
+        // The cached copy would still be served by id lookups, which skip the deleted_at restriction
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Group.class, groupId);
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class)
+                        .evictCollectionData(Group.class.getName() + ".members", groupId);
+            }
+        });
+    }
+
+    /**
+     * Reports how far the purge of a deleted group has got.
+     *
+     * @throws RuntimeException if the group is not deleted, or has been purged completely.
+     */
+    @Transactional(readOnly = true)
+    public GroupDeletionStatus getDeletionStatus(Long groupId) {
+        LocalDateTime deletedAt = groupPurgeRepository.findDeletedAt(groupId);
+        if (deletedAt == null) {
             throw new RuntimeException("Group not found");
         }
-        groupRepository.deleteById(groupId);
+        Map<String, Long> remaining = groupPurgeRepository.countRemaining(groupId);
+        return new GroupDeletionStatus(groupId, deletedAt, remaining,
+                remaining.values().stream().mapToLong(Long::longValue).sum());
     }
 }
@@ -1,21 +1,105 @@
 package com.grouppay.group.application;
 
-import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupSummary;
+import com.grouppay.group.domain.GroupSummaryPage;
 import com.grouppay.group.infrastructure.GroupRepository;
-import lombok.RequiredArgsConstructor;
+import com.grouppay.group.infrastructure.GroupSummaryRow;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Lists the groups a user belongs to, most recently active first.
+ * <p>
+ * Groups are read as {@link GroupSummaryRow} projections, never as entities, so none of their members,
+ * expenses or settlements are loaded. A page costs three queries whatever its size: the summaries, the user's
+ * ledger rows for the groups on the page, and a check for groups whose ledger was never built. Listing is
+ * read-only; see {@link BalanceLedgerService#getUserBalancesInGroups} for groups older than the ledger.
+ * </p>
+ * <p>
+ * Pages are keyset-paginated on the group's (last_activity_id, id), the id of its latest balance delta as
+ * stored on the group row by the ledger. Delta ids grow with time, so this orders by last activity, and a
+ * page never skips or repeats a group that did not change in between.
+ * </p>
+ */
 @Service
-@RequiredArgsConstructor
 public class GetUserGroupsService {
 
     private final GroupRepository groupRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final int defaultLimit;
+    private final int maxLimit;
 
+    public GetUserGroupsService(GroupRepository groupRepository,
+                                BalanceLedgerService balanceLedgerService,
+                                @Value("${grouppay.groups.listing.default-limit:20}") int defaultLimit,
+                                @Value("${grouppay.groups.listing.max-limit:100}") int maxLimit) {
+        this.groupRepository = groupRepository;
+        this.balanceLedgerService = balanceLedgerService;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Returns one page of the user's groups.
+     *
+     * @param userId The ID of the user; balances in the summaries are theirs.
+     * @param cursor {@link GroupSummaryPage#nextCursor()} of the previous page, or {@code null} for the first.
+     * @param limit  Page size; defaults to {@code grouppay.groups.listing.default-limit} and is capped at
+     *               {@code grouppay.groups.listing.max-limit}.
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is below 1.
+     */
     @Transactional(readOnly = true)
-    public List<Group> getUserGroups(Long userId) {
-        return groupRepository.findByMembers_User_Id(userId);
+    public GroupSummaryPage getUserGroups(Long userId, String cursor, Integer limit) {
+        int size = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        if (size < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        long[] after = cursor == null ? new long[]{Long.MAX_VALUE, Long.MAX_VALUE} : decodeCursor(cursor);
+
+        // One extra row tells whether there is a next page
+        List<GroupSummaryRow> rows = groupRepository.findSummariesForUser(userId, after[0], after[1], Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        Map<Long, Map<String, BigDecimal>> balances = balanceLedgerService.getUserBalancesInGroups(userId,
+                rows.stream().map(GroupSummaryRow::getId).toList());
+        List<GroupSummary> groups = new ArrayList<>(rows.size());
+        for (GroupSummaryRow row : rows) {
+            groups.add(new GroupSummary(row.getId(), row.getName(), row.getMemberCount(), row.getLastActivityAt(),
+                    new TreeMap<>(balances.getOrDefault(row.getId(), Map.of()))));
+        }
+
+        GroupSummaryRow last = hasMore ? rows.get(rows.size() - 1) : null;
+        return new GroupSummaryPage(groups, last == null ? null : encodeCursor(last.getLastActivityId(), last.getId()));
+    }
+
+    private static String encodeCursor(long lastActivityId, long groupId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((lastActivityId + ":" + groupId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IllegalArgumentException e) {   // includes NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,146 @@
+package com.grouppay.group.application;
+
+import com.grouppay.group.infrastructure.GroupPurgeRepository;
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Removes the rows of groups deleted through {@link DeleteGroupService}.
+ * <p>
+ * Each run picks up a few deleted groups and empties them table by table in foreign-key order: settlement
+ * payments, settlements, expenses with their splits, balances, balance deltas, members, and finally the
+ * group row. Every statement deletes at most {@code grouppay.groups.purge.chunk-size} rows and commits on its
+ * own, so no transaction holds locks on a large group for long and an interrupted purge resumes where it
+ * stopped on the next run.
+ * </p>
+ * <p>
+ * Progress is logged per table, counted in {@value AppConstants#METRIC_GROUP_PURGE_ROWS} (tagged by table),
+ * and can be polled through {@link DeleteGroupService#getDeletionStatus(Long)}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class GroupPurgeService {
+
+    private final GroupPurgeRepository groupPurgeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int groupsPerRun;
+
+    /**
+     * @param chunkSize    Most rows deleted by one statement / transaction.
+     * @param groupsPerRun Most deleted groups picked up by one scheduled run.
+     */
+    public GroupPurgeService(GroupPurgeRepository groupPurgeRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${grouppay.groups.purge.enabled:true}") boolean enabled,
+                             @Value("${grouppay.groups.purge.chunk-size:1000}") int chunkSize,
+                             @Value("${grouppay.groups.purge.groups-per-run:10}") int groupsPerRun) {
+        this.groupPurgeRepository = groupPurgeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.groupsPerRun = groupsPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${grouppay.groups.purge.interval:PT1M}")
+    public void purgeDeletedGroups() {
+        if (!enabled) {
+            return;
+        }
+        for (Long groupId : groupPurgeRepository.findGroupsToPurge(groupsPerRun)) {
+            try {
+                purgeGroup(groupId);
+            } catch (RuntimeException e) {
+                // Whatever was deleted stays deleted; the next run carries on from there
+                log.warn("Purge of deleted group {} failed: {}", groupId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes every row of a soft-deleted group, then the group itself.
+     *
+     * @return Number of rows deleted, the group row included.
+     */
+    public long purgeGroup(Long groupId) {
+        long total = 0;
+        for (String table : GroupPurgeRepository.GROUP_TABLES_BEFORE_EXPENSES) {
+            total += purgeTable(groupId, table, () -> groupPurgeRepository.deleteChunk(table, groupId, chunkSize));
+        }
+        total += purgeExpenses(groupId);
+        for (String table : GroupPurgeRepository.GROUP_TABLES_AFTER_EXPENSES) {
+            total += purgeTable(groupId, table, () -> groupPurgeRepository.deleteChunk(table, groupId, chunkSize));
+        }
+        int groupRow = inTransaction(() -> groupPurgeRepository.deleteGroupRow(groupId));
+        count("groups", groupRow);
+        log.info("Purged deleted group {}: {} rows", groupId, total + groupRow);
+        return total + groupRow;
+    }
+
+    private long purgeTable(Long groupId, String table, IntSupplier deleteChunk) {
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = inTransaction(deleteChunk);
+            count(table, chunk);
+            deleted += chunk;
+        } while (chunk == chunkSize);
+        if (deleted > 0) {
+            log.info("Purging group {}: deleted {} rows from {}", groupId, deleted, table);
+        }
+        return deleted;
+    }
+
+    private long purgeExpenses(Long groupId) {
+        long deleted = 0;
+        long expenses = 0;
+        while (true) {
+            int[] chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = groupPurgeRepository.findExpenseIdChunk(groupId, chunkSize);
+                return ids.isEmpty() ? new int[]{0, 0} : groupPurgeRepository.deleteExpenses(ids);
+            });
+            count("expense_splits", chunk[0]);
+            count("expenses", chunk[1]);
+            deleted += chunk[0] + chunk[1];
+            expenses += chunk[1];
+            if (chunk[1] < chunkSize) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Purging group {}: deleted {} expenses with {} splits", groupId, expenses, deleted - expenses);
+        }
+        return deleted;
+    }
+
+    private int inTransaction(IntSupplier work) {
+        Integer result = transactionTemplate.execute(status -> work.getAsInt());
+        return result == null ? 0 : result;
+    }
+
+    private void count(String table, int rows) {
+        if (rows == 0) {
+            return;
+        }
+        Counter.builder(AppConstants.METRIC_GROUP_PURGE_ROWS)
+                .description("Rows removed by the background purge of deleted groups")
+                .tag("table", table)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+}
@@ -0,0 +1,12 @@
+package com.grouppay.group.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of adding several users to a group at once.
+ *
+ * @param added          Users that became members, in request order.
+ * @param alreadyMembers Requested users that were members already and were left as they were.
+ */
+public record BulkMembershipResult(List<Long> added, List<Long> alreadyMembers) {
+}
@@ -1,10 +1,14 @@
 package com.grouppay.group.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import com.grouppay.user.domain.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -14,6 +18,8 @@ import java.util.List;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @NoArgsConstructor @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@SQLRestriction("deleted_at IS NULL") // Deleted groups vanish at once; their rows are purged in the background
 public class Group {
 
     @Id
@@ -29,7 +35,10 @@ public class Group {
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
+    // Memberships are written with batch INSERTs and bulk DELETEs that bypass this collection, so Hibernate
+    // never invalidates it by itself: AddMemberService and DeleteGroupService evict it after they commit
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<GroupMember> members;
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -41,6 +50,30 @@ public class Group {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    @Version
+    private Long version;
+
+    // Set by DeleteGroupService; GroupPurgeService then deletes the group and everything in it
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
+    // Set once the group's ledger rows have been built: on insert by CreateGroupService (a new group's ledger
+    // is empty) or later by GroupRepository.markBalancesInitialized, so saving a stale Group cannot clear it.
+    @JsonIgnore
+    @Column(updatable = false)
+    private LocalDateTime balancesInitializedAt;
+
+    // Id and time of the group's newest BalanceDelta (0 / null while it has none), kept by GroupActivityWriter
+    // with plain JDBC so ledger writes do not evict the Group cache region. Only the listing query reads them;
+    // a cached Group may hold older values.
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private long lastActivityId;
+
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastActivityAt;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,13 @@
+package com.grouppay.group.domain;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress of the background purge of a deleted group.
+ *
+ * @param remaining      Rows still to delete, per table in the order they are purged.
+ * @param totalRemaining Sum of {@code remaining}; the group row itself goes once this reaches zero.
+ */
+public record GroupDeletionStatus(Long groupId, LocalDateTime deletedAt, Map<String, Long> remaining, long totalRemaining) {
+}
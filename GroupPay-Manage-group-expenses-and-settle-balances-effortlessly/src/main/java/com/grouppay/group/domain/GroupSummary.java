@@ -0,0 +1,15 @@
+package com.grouppay.group.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A group as shown in a user's group list.
+ *
+ * @param lastActivityAt When the group's balances last changed, or when it was created if they never did.
+ * @param balances       The listing user's net balance in the group, per currency; empty if they have none.
+ */
+public record GroupSummary(Long id, String name, long memberCount, LocalDateTime lastActivityAt,
+                           Map<String, BigDecimal> balances) {
+}
@@ -0,0 +1,11 @@
+package com.grouppay.group.domain;
+
+import java.util.List;
+
+/**
+ * One page of a user's group list.
+ *
+ * @param nextCursor Opaque cursor for the next page, or {@code null} if this is the last one.
+ */
+public record GroupSummaryPage(List<GroupSummary> groups, String nextCursor) {
+}
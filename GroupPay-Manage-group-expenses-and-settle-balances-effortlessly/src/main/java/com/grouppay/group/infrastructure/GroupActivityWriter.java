@@ -0,0 +1,30 @@
+package com.grouppay.group.infrastructure;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Moves a group's {@code last_activity_id} / {@code last_activity_at} forward to its newest balance delta.
+ * <p>
+ * Runs on every ledger write. A JPQL bulk UPDATE would evict the whole {@link com.grouppay.group.domain.Group}
+ * cache region each time, so this is plain JDBC: the cached entity keeps its old (unread) values instead.
+ * The id guard keeps the columns from moving backwards.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class GroupActivityWriter {
+
+    private static final String UPDATE_SQL =
+            "UPDATE `groups` SET last_activity_id = ?, last_activity_at = ? WHERE id = ? AND last_activity_id < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void recordActivity(Long groupId, long deltaId, LocalDateTime at) {
+        jdbcTemplate.update(UPDATE_SQL, deltaId, Timestamp.valueOf(at), groupId, deltaId);
+    }
+}
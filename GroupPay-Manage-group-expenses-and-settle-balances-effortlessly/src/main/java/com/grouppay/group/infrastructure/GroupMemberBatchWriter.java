@@ -0,0 +1,92 @@
+package com.grouppay.group.infrastructure;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inserts memberships with one JDBC batch of plain {@code INSERT}s.
+ * <p>
+ * {@link com.grouppay.group.domain.GroupMember} ids are IDENTITY-generated, so Hibernate would send one
+ * INSERT per member. Users that already are members are filtered out first with one indexed query on
+ * uk_group_members_group_user. A member added in between by another instance makes its INSERT hit that
+ * unique key, which is reported as a {@link ConcurrencyFailureException} so the caller retries on fresh
+ * state. Foreign key violations (unknown users) are not swallowed.
+ * </p>
+ * This bypasses the persistence context and the second-level cache; callers must evict
+ * {@code Group.members} for the group themselves.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GroupMemberBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO group_members (group_id, user_id, is_admin, joined_at, version) VALUES (?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param userIds Distinct ids of existing users.
+     * @return The users that became members, in input order; users that already were are left out.
+     * @throws ConcurrencyFailureException if another transaction added one of the users concurrently.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a user does not exist.
+     */
+    public List<Long> insertMembers(Long groupId, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> members = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM group_members WHERE group_id = ? AND user_id IN ("
+                        + String.join(", ", Collections.nCopies(userIds.size(), "?")) + ")",
+                Long.class, prepend(groupId, userIds)));
+        List<Long> newMembers = userIds.stream().filter(id -> !members.contains(id)).toList();
+        if (newMembers.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp joinedAt = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts;
+        try {
+            counts = jdbcTemplate.batchUpdate(INSERT_SQL, newMembers, newMembers.size(), (ps, userId) -> {
+                ps.setLong(1, groupId);
+                ps.setLong(2, userId);
+                ps.setBoolean(3, false);
+                ps.setTimestamp(4, joinedAt);
+            });
+        } catch (DuplicateKeyException e) {
+            throw new ConcurrencyFailureException("Group " + groupId + " gained a member concurrently", e);
+        }
+        List<Long> inserted = new ArrayList<>(newMembers.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO only comes from drivers rewriting the batch, which this datasource does not enable
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(newMembers.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    private static Object[] prepend(Long groupId, List<Long> userIds) {
+        Object[] args = new Object[userIds.size() + 1];
+        args[0] = groupId;
+        for (int i = 0; i < userIds.size(); i++) {
+            args[i + 1] = userIds.get(i);
+        }
+        return args;
+    }
+}
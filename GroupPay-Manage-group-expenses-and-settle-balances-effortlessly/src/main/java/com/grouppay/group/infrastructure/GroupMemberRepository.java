@@ -0,0 +1,30 @@
+package com.grouppay.group.infrastructure;
+
+import com.grouppay.group.domain.GroupMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Single-row access to memberships by (group, user), served by uk_group_members_group_user.
+ * None of these load {@code Group.members}.
+ */
+@Repository
+public interface GroupMemberRepository extends JpaRepository<GroupMember, Long> {
+
+    @Query("SELECT m FROM GroupMember m WHERE m.group.id = :groupId AND m.user.id = :userId")
+    Optional<GroupMember> findByGroupIdAndUserId(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM GroupMember m WHERE m.group.id = :groupId AND m.user.id = :userId")
+    int deleteMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM GroupMember m WHERE m.group.id = :groupId AND m.user.id IN :userIds")
+    int deleteMembers(@Param("groupId") Long groupId, @Param("userIds") Collection<Long> userIds);
+}
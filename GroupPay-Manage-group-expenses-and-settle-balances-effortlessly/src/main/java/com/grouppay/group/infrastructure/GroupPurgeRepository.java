@@ -0,0 +1,103 @@
+package com.grouppay.group.infrastructure;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded bulk deletes of a soft-deleted group's rows, in plain SQL so nothing is loaded into a
+ * persistence context. Every statement deletes at most {@code limit} rows through an index on the
+ * group (or expense) id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GroupPurgeRepository {
+
+    /**
+     * Tables keyed directly by group_id, in foreign-key order: a table is emptied before any table it
+     * references. Expenses and their splits are handled separately, and the group row itself comes last.
+     */
+    public static final List<String> GROUP_TABLES_BEFORE_EXPENSES = List.of("settlement_payments", "settlements");
+    public static final List<String> GROUP_TABLES_AFTER_EXPENSES = List.of("group_balances", "balance_deltas", "group_members");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public List<Long> findGroupsToPurge(int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM `groups` WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT ?", Long.class, limit);
+    }
+
+    /**
+     * @param table One of {@link #GROUP_TABLES_BEFORE_EXPENSES} or {@link #GROUP_TABLES_AFTER_EXPENSES}.
+     * @return Rows deleted; fewer than {@code limit} means the table holds no more rows of the group.
+     */
+    public int deleteChunk(String table, Long groupId, int limit) {
+        if (!GROUP_TABLES_BEFORE_EXPENSES.contains(table) && !GROUP_TABLES_AFTER_EXPENSES.contains(table)) {
+            throw new IllegalArgumentException("Not a purgeable table: " + table);
+        }
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE group_id = ? LIMIT ?", groupId, limit);
+    }
+
+    public List<Long> findExpenseIdChunk(Long groupId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM expenses WHERE group_id = ? ORDER BY id LIMIT ?", Long.class, groupId, limit);
+    }
+
+    /**
+     * Deletes the given expenses and all their splits.
+     *
+     * @return Number of splits and expenses deleted, in that order.
+     */
+    public int[] deleteExpenses(List<Long> expenseIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", expenseIds);
+        int splits = namedParameterJdbcTemplate.update("DELETE FROM expense_splits WHERE expense_id IN (:ids)", ids);
+        int expenses = namedParameterJdbcTemplate.update("DELETE FROM expenses WHERE id IN (:ids)", ids);
+        return new int[]{splits, expenses};
+    }
+
+    /**
+     * Deletes the group row once nothing references it any more. Only soft-deleted groups qualify.
+     */
+    public int deleteGroupRow(Long groupId) {
+        return jdbcTemplate.update("DELETE FROM `groups` WHERE id = ? AND deleted_at IS NOT NULL", groupId);
+    }
+
+    /**
+     * Rows of the group still waiting to be purged, per table in purge order. Expense splits have no
+     * group_id and go with their expenses, so they are covered by the expenses count.
+     */
+    public Map<String, Long> countRemaining(Long groupId) {
+        Map<String, Long> remaining = new LinkedHashMap<>();
+        for (String table : GROUP_TABLES_BEFORE_EXPENSES) {
+            remaining.put(table, count("SELECT COUNT(*) FROM " + table + " WHERE group_id = ?", groupId));
+        }
+        remaining.put("expenses", count("SELECT COUNT(*) FROM expenses WHERE group_id = ?", groupId));
+        for (String table : GROUP_TABLES_AFTER_EXPENSES) {
+            remaining.put(table, count("SELECT COUNT(*) FROM " + table + " WHERE group_id = ?", groupId));
+        }
+        return remaining;
+    }
+
+    /**
+     * @return When the group was soft-deleted, or {@code null} if it is not deleted or does not exist.
+     */
+    public LocalDateTime findDeletedAt(Long groupId) {
+        List<Timestamp> rows = jdbcTemplate.queryForList(
+                "SELECT deleted_at FROM `groups` WHERE id = ? AND deleted_at IS NOT NULL", Timestamp.class, groupId);
+        return rows.isEmpty() ? null : rows.get(0).toLocalDateTime();
+    }
+
+    private long count(String sql, Long groupId) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, groupId);
+        return count == null ? 0 : count;
+    }
+}
@@ -1,7 +1,13 @@
 package com.grouppay.group.infrastructure;
 
 import com.grouppay.group.domain.Group;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +18,29 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     // Custom queries can be added here
     Optional<Group> findByName(String name);
     List<Group> findByMembers_User_Id(Long userId);
+
+    // A page of the user's groups, most recently active first, resuming after (afterActivityId, afterGroupId).
+    // Activity is read from the group row (see Group.lastActivityId); expenses and deltas are never read.
+    @Query("SELECT g.id AS id, g.name AS name, " +
+            "(SELECT COUNT(m2) FROM GroupMember m2 WHERE m2.group.id = g.id) AS memberCount, " +
+            "g.lastActivityId AS lastActivityId, COALESCE(g.lastActivityAt, g.createdAt) AS lastActivityAt " +
+            "FROM GroupMember m JOIN m.group g WHERE m.user.id = :userId AND g.deletedAt IS NULL " +
+            "AND (g.lastActivityId < :afterActivityId " +
+            "OR (g.lastActivityId = :afterActivityId AND g.id < :afterGroupId)) " +
+            "ORDER BY g.lastActivityId DESC, g.id DESC")
+    List<GroupSummaryRow> findSummariesForUser(@Param("userId") Long userId,
+                                               @Param("afterActivityId") long afterActivityId,
+                                               @Param("afterGroupId") long afterGroupId, Limit limit);
+
+    // Bumps the group's version at commit, so concurrent membership changes conflict instead of overwriting each other
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT g FROM Group g WHERE g.id = :id")
+    Optional<Group> findByIdForMembershipChange(@Param("id") Long id);
+
+    boolean existsByIdAndBalancesInitializedAtIsNotNull(Long id);
+
+    @Modifying
+    @Query("UPDATE Group g SET g.balancesInitializedAt = CURRENT_TIMESTAMP " +
+            "WHERE g.id = :id AND g.balancesInitializedAt IS NULL")
+    void markBalancesInitialized(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package com.grouppay.group.infrastructure;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one group for listings, with its member count computed in the query.
+ */
+public interface GroupSummaryRow {
+    Long getId();
+    String getName();
+    Long getMemberCount();
+    // Id of the group's latest balance delta, 0 if it has none; orders and pages the listing
+    Long getLastActivityId();
+    LocalDateTime getLastActivityAt();
+}
@@ -0,0 +1,90 @@
+package com.grouppay.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Uses the primary (Redis) store and falls back to the in-memory store for any call that fails with a
+ * data access error. Deduplication degrades to per-instance while Redis is down, but requests keep working.
+ * <p>
+ * A failure also opens a circuit: for the following {@code coolDown} every call goes straight to the
+ * in-memory store, so a Redis outage costs one command timeout per cool-down instead of one per call.
+ * The first call after the cool-down tries Redis again and reopens the circuit if it still fails.
+ * </p>
+ */
+@Slf4j
+class FailoverIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyStore primary;
+    private final IdempotencyStore fallback;
+    private final long coolDownNanos;
+    private final LongSupplier nanoClock;
+    // nanoClock value until which the primary is skipped
+    private volatile long openUntil;
+    private volatile boolean open;
+
+    FailoverIdempotencyStore(IdempotencyStore primary, IdempotencyStore fallback, Duration coolDown) {
+        this(primary, fallback, coolDown, System::nanoTime);
+    }
+
+    FailoverIdempotencyStore(IdempotencyStore primary, IdempotencyStore fallback, Duration coolDown,
+                             LongSupplier nanoClock) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.coolDownNanos = coolDown.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public boolean claim(String key, String requestHash, Duration ttl) {
+        return call(() -> primary.claim(key, requestHash, ttl), () -> fallback.claim(key, requestHash, ttl));
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return call(() -> primary.find(key), () -> fallback.find(key));
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record, Duration ttl) {
+        call(() -> {
+            primary.complete(key, record, ttl);
+            return null;
+        }, () -> {
+            fallback.complete(key, record, ttl);
+            return null;
+        });
+    }
+
+    @Override
+    public void release(String key) {
+        // Release both: the claim may have been taken in either store
+        fallback.release(key);
+        call(() -> {
+            primary.release(key);
+            return null;
+        }, () -> null);
+    }
+
+    private <T> T call(Supplier<T> primaryCall, Supplier<T> fallbackCall) {
+        if (open && nanoClock.getAsLong() - openUntil < 0) {
+            return fallbackCall.get();
+        }
+        try {
+            T result = primaryCall.get();
+            open = false;
+            return result;
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, using in-memory fallback for {} ms: {}",
+                    coolDownNanos / 1_000_000, e.getMessage());
+            openUntil = nanoClock.getAsLong() + coolDownNanos;
+            open = true;
+            return fallbackCall.get();
+        }
+    }
+}
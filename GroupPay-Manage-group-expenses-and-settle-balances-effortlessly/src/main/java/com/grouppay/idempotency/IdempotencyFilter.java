@@ -0,0 +1,241 @@
+package com.grouppay.idempotency;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes retried writes safe: a request with an {@code Idempotency-Key} header runs once, and every retry
+ * with the same key gets the first response back.
+ * <p>
+ * Keys are scoped to the authenticated user and stored with a hash of the request (method, path,
+ * parameters, body). Reusing a key for a different request is rejected with 422. A duplicate that arrives
+ * while the first request is still executing waits for its result instead of executing again, and gets
+ * 409 if that takes longer than {@code grouppay.idempotency.wait-timeout}. Responses with status 5xx are
+ * not stored, so the client can retry them.
+ * </p>
+ * Applies to POST requests on {@code grouppay.idempotency.paths}. Runs after the security filter chain, so
+ * only authenticated requests reach the store.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_MILLIS = 25;
+
+    private final IdempotencyStore store;
+    private final Set<String> paths;
+    private final Duration ttl;
+    private final Duration inFlightTtl;
+    private final Duration waitTimeout;
+    private final MeterRegistry meterRegistry;
+    // Requests executing on this instance, so local duplicates wait on a future instead of polling the store
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param mode        {@code redis} (default; in-memory fallback when Redis fails) or {@code memory}.
+     * @param ttl         How long a completed response is replayed.
+     * @param inFlightTtl How long a claim survives if its request never completes.
+     * @param waitTimeout How long a duplicate waits for the in-flight request before giving up with 409.
+     * @param coolDown    How long to stay on the in-memory store after a Redis failure.
+     */
+    public IdempotencyFilter(InMemoryIdempotencyStore memoryStore,
+                             RedisIdempotencyStore redisStore,
+                             MeterRegistry meterRegistry,
+                             @Value("${grouppay.idempotency.store:redis}") String mode,
+                             @Value("${grouppay.idempotency.paths:/expenses}") Set<String> paths,
+                             @Value("${grouppay.idempotency.ttl:PT1H}") Duration ttl,
+                             @Value("${grouppay.idempotency.in-flight-ttl:PT30S}") Duration inFlightTtl,
+                             @Value("${grouppay.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+                             @Value("${grouppay.idempotency.fallback-cool-down:PT30S}") Duration coolDown) {
+        this.store = switch (mode) {
+            case "redis" -> new FailoverIdempotencyStore(redisStore, memoryStore, coolDown);
+            case "memory" -> memoryStore;
+            default -> throw new IllegalArgumentException("Unknown grouppay.idempotency.store: " + mode);
+        };
+        this.paths = paths;
+        this.ttl = ttl;
+        this.inFlightTtl = inFlightTtl;
+        this.waitTimeout = waitTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(AppConstants.IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(AppConstants.IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = scope() + ":" + idempotencyKey;
+
+        // Parameters first: for form posts, parsing them consumes the body
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = hash(request, parameters, cachedRequest.getBody());
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Optional<IdempotencyRecord> existing = store.find(key);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                if (!record.requestHash().equals(requestHash)) {
+                    count("mismatch");
+                    writeError(response, 422, "Idempotency-Key was already used for a different request");
+                    return;
+                }
+                if (record.completed()) {
+                    count("replayed");
+                    replay(response, record);
+                    return;
+                }
+                if (!awaitInFlight(key, deadline)) {
+                    count("in_progress");
+                    writeError(response, HttpServletResponse.SC_CONFLICT,
+                            "A request with this Idempotency-Key is still in progress");
+                    return;
+                }
+            } else if (store.claim(key, requestHash, inFlightTtl)) {
+                count("executed");
+                execute(key, requestHash, cachedRequest, response, filterChain);
+                return;
+            }
+        }
+    }
+
+    private void execute(String key, String requestHash, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        CompletableFuture<IdempotencyRecord> future = new CompletableFuture<>();
+        inFlight.put(key, future);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        IdempotencyRecord record = null;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < 500) {
+                record = IdempotencyRecord.completed(requestHash, wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getContentAsByteArray());
+                store.complete(key, record, ttl);
+            }
+        } finally {
+            if (record == null) {
+                store.release(key);
+            }
+            inFlight.remove(key, future);
+            future.complete(record);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Waits until the in-flight request for {@code key} finishes (or one poll interval if it runs elsewhere).
+     *
+     * @return {@code false} if the deadline has passed.
+     */
+    private boolean awaitInFlight(String key, long deadline) throws IOException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        try {
+            CompletableFuture<IdempotencyRecord> local = inFlight.get(key);
+            if (local != null) {
+                local.get(remaining, TimeUnit.NANOSECONDS);
+            } else {
+                Thread.sleep(Math.min(POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            }
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for in-flight request", e);
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        response.setStatus(record.status());
+        if (record.contentType() != null) {
+            response.setContentType(record.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.getOutputStream().write(record.body());
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\",\"status\":\"" + status + "\"}");
+    }
+
+    private void count(String outcome) {
+        Counter.builder(AppConstants.METRIC_IDEMPOTENCY_REQUESTS)
+                .description("Requests carrying an Idempotency-Key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String scope() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonymous";
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String hash(HttpServletRequest request, Map<String, String[]> parameters, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + path(request) + "\n").getBytes(StandardCharsets.UTF_8));
+            parameters.forEach((name, values) ->
+                    digest.update((name + "=" + String.join(",", values) + "\n").getBytes(StandardCharsets.UTF_8)));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.grouppay.idempotency;
+
+/**
+ * What is stored under an idempotency key: the hash of the request that claimed the key and, once that
+ * request has finished, the response to replay for retries.
+ *
+ * @param requestHash SHA-256 of the claiming request (method, path, parameters, body), hex encoded.
+ * @param completed   {@code false} while the first request is still executing.
+ * @param status      HTTP status of the stored response.
+ * @param contentType Content type of the stored response, may be {@code null}.
+ * @param body        Body of the stored response.
+ */
+public record IdempotencyRecord(String requestHash, boolean completed, int status, String contentType, byte[] body) {
+
+    public static IdempotencyRecord inProgress(String requestHash) {
+        return new IdempotencyRecord(requestHash, false, 0, null, null);
+    }
+
+    public static IdempotencyRecord completed(String requestHash, int status, String contentType, byte[] body) {
+        return new IdempotencyRecord(requestHash, true, status, contentType, body);
+    }
+}
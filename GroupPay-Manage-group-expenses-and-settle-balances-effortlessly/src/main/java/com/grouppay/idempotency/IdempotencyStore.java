@@ -0,0 +1,30 @@
+package com.grouppay.idempotency;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived key -> {@link IdempotencyRecord} store shared by all requests carrying an Idempotency-Key.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Atomically stores an in-progress record for {@code key} if the key is free.
+     *
+     * @param ttl How long the claim survives if the claiming request never completes (e.g. the instance dies).
+     * @return {@code true} if this caller now owns the key.
+     */
+    boolean claim(String key, String requestHash, Duration ttl);
+
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Replaces the claim with the final response, kept for {@code ttl}.
+     */
+    void complete(String key, IdempotencyRecord record, Duration ttl);
+
+    /**
+     * Drops the claim so that a retry executes the request again (used when the request failed).
+     */
+    void release(String key);
+}
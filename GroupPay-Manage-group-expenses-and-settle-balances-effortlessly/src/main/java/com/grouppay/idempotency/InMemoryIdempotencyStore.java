@@ -0,0 +1,67 @@
+package com.grouppay.idempotency;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-instance {@link IdempotencyStore}, used when Redis is disabled or unreachable.
+ * Expired entries are dropped on access and swept every {@value #SWEEP_EVERY} claims.
+ */
+@Component
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private static final int SWEEP_EVERY = 1024;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger claims = new AtomicInteger();
+
+    @Override
+    public boolean claim(String key, String requestHash, Duration ttl) {
+        if (claims.incrementAndGet() % SWEEP_EVERY == 0) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> e.isExpired(now));
+        }
+        Entry claim = new Entry(IdempotencyRecord.inProgress(requestHash), expiry(ttl));
+        Entry current = entries.compute(key, (k, existing) ->
+                existing == null || existing.isExpired(System.nanoTime()) ? claim : existing);
+        return current == claim;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.record());
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record, Duration ttl) {
+        entries.put(key, new Entry(record, expiry(ttl)));
+    }
+
+    @Override
+    public void release(String key) {
+        entries.remove(key);
+    }
+
+    private static long expiry(Duration ttl) {
+        return System.nanoTime() + ttl.toNanos();
+    }
+
+    private record Entry(IdempotencyRecord record, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.grouppay.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * {@link IdempotencyStore} in Redis, shared by all instances. Records are stored as JSON under
+ * {@code idempotency:<key>} with a Redis TTL; claims use {@code SET NX}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String PREFIX = "idempotency:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean claim(String key, String requestHash, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(PREFIX + key, write(IdempotencyRecord.inProgress(requestHash)), ttl));
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        String json = redisTemplate.opsForValue().get(PREFIX + key);
+        return Optional.ofNullable(json).map(this::read);
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord record, Duration ttl) {
+        redisTemplate.opsForValue().set(PREFIX + key, write(record), ttl);
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(PREFIX + key);
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotency record", e);
+        }
+    }
+
+    private IdempotencyRecord read(String json) {
+        try {
+            return objectMapper.readValue(json, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read idempotency record", e);
+        }
+    }
+}
@@ -1,4 +1,64 @@
 package com.grouppay.notification;
 
+import com.grouppay.event.EventBatchProcessor;
+import com.grouppay.event.ExpenseDeletedEvent;
+import com.grouppay.event.KafkaConsumerConfig;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.domain.NotificationDraft;
+import com.grouppay.notification.domain.NotificationType;
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Notifies the payer and every participant of a deleted expense. A whole poll batch of deletions becomes
+ * one JDBC batch insert in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
 public class ExpenseNotificationConsumer {
+
+    private final EventBatchProcessor eventBatchProcessor;
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+
+    @KafkaListener(topics = AppConstants.EXPENSE_DELETED_TOPIC,
+            containerFactory = KafkaConsumerConfig.BATCH_LISTENER_FACTORY)
+    public void onExpensesDeleted(List<ConsumerRecord<String, ExpenseDeletedEvent>> records) {
+        eventBatchProcessor.process(AppConstants.EXPENSE_DELETED_TOPIC, records, this::notifyParticipants);
+    }
+
+    private void notifyParticipants(List<ExpenseDeletedEvent> events) {
+        DistributionSummary fanout = DistributionSummary.builder(AppConstants.METRIC_NOTIFICATION_FANOUT)
+                .description("Notifications created by a single write")
+                .baseUnit("notifications")
+                .tag("source", "expense-deleted")
+                .register(meterRegistry);
+
+        List<NotificationDraft> drafts = new ArrayList<>();
+        for (ExpenseDeletedEvent event : events) {
+            Set<Long> recipients = new LinkedHashSet<>();
+            recipients.add(event.getPayerId());
+            if (event.getParticipantIds() != null) {
+                recipients.addAll(event.getParticipantIds());
+            }
+            String message = "An expense of " + event.getAmount().toPlainString() + " " + event.getCurrencyCode()
+                    + " was deleted from your group";
+            String eventKey = event.getExpenseId() == null ? null : "expense-deleted:" + event.getExpenseId();
+            for (Long userId : recipients) {
+                drafts.add(new NotificationDraft(userId, "Expense Deleted", message, NotificationType.EXPENSE, eventKey));
+            }
+            fanout.record(recipients.size());
+        }
+        notificationService.createNotifications(drafts);
+    }
 }
@@ -1,4 +1,76 @@
 package com.grouppay.notification;
 
+import com.grouppay.event.EventBatchProcessor;
+import com.grouppay.event.KafkaConsumerConfig;
+import com.grouppay.event.SettlementCreatedEvent;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.domain.NotificationDraft;
+import com.grouppay.notification.domain.NotificationType;
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tells both sides of every transfer in a new settle-up plan what they owe or are owed.
+ * <p>
+ * A group's plan is republished each time it is recomputed, so when a poll batch holds several versions of
+ * one group's plan only the newest is notified about. Everything else in the batch becomes one JDBC batch
+ * insert in one transaction.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
 public class SettlementNotificationConsumer {
+
+    private final EventBatchProcessor eventBatchProcessor;
+    private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
+
+    @KafkaListener(topics = AppConstants.SETTLEMENT_CREATED_TOPIC,
+            containerFactory = KafkaConsumerConfig.BATCH_LISTENER_FACTORY)
+    public void onSettlementsCreated(List<ConsumerRecord<String, SettlementCreatedEvent>> records) {
+        eventBatchProcessor.process(AppConstants.SETTLEMENT_CREATED_TOPIC, records, this::notifyParties);
+    }
+
+    private void notifyParties(List<SettlementCreatedEvent> events) {
+        Map<Long, Integer> latestVersions = new HashMap<>();
+        for (SettlementCreatedEvent event : events) {
+            latestVersions.merge(event.getGroupId(), version(event), Math::max);
+        }
+
+        List<NotificationDraft> drafts = new ArrayList<>();
+        for (SettlementCreatedEvent event : events) {
+            if (!Objects.equals(version(event), latestVersions.get(event.getGroupId()))) {
+                continue;
+            }
+            String amount = event.getAmount().toPlainString() + " " + event.getCurrencyCode();
+            String eventKey = event.getSettlementId() == null ? null : "settlement:" + event.getSettlementId();
+            drafts.add(new NotificationDraft(event.getPayerId(), "Settle Up",
+                    "Pay " + amount + " to settle your group balance", NotificationType.PAYMENT, eventKey));
+            drafts.add(new NotificationDraft(event.getPayeeId(), "Settle Up",
+                    "You will receive " + amount + " when your group settles up", NotificationType.PAYMENT, eventKey));
+        }
+        notificationService.createNotifications(drafts);
+
+        DistributionSummary.builder(AppConstants.METRIC_NOTIFICATION_FANOUT)
+                .description("Notifications created by a single write")
+                .baseUnit("notifications")
+                .tag("source", "settlement")
+                .register(meterRegistry)
+                .record(drafts.size());
+    }
+
+    private static int version(SettlementCreatedEvent event) {
+        return event.getBatchVersion() == null ? 0 : event.getBatchVersion();
+    }
 }
@@ -1,7 +1,9 @@
 package com.grouppay.notification.application;
 
 import com.grouppay.notification.domain.Notification;
+import com.grouppay.notification.domain.NotificationDraft;
 import com.grouppay.notification.domain.NotificationType;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
 import com.grouppay.notification.infrastructure.NotificationRepository;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.UserRepository;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -17,6 +20,7 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationBatchWriter notificationBatchWriter;
 
     @Transactional(readOnly = true)
     public List<Notification> getUserNotifications(Long userId) {
@@ -39,6 +43,27 @@ public class NotificationService {
         notificationRepository.save(notification);
     }
     
+    /**
+     * Creates the same notification for every user in {@code userIds} with one batched insert.
+     * The users are not loaded, so callers pass ids they have already checked exist.
+     */
+    @Transactional
+    public void createNotifications(Collection<Long> userIds, String title, String message, NotificationType type) {
+        if (!userIds.isEmpty()) {
+            notificationBatchWriter.insertForUsers(userIds, title, message, type);
+        }
+    }
+
+    /**
+     * Creates notifications that differ per user with one batched insert. As above, the users are not loaded.
+     */
+    @Transactional
+    public void createNotifications(Collection<NotificationDraft> drafts) {
+        if (!drafts.isEmpty()) {
+            notificationBatchWriter.insertAll(drafts);
+        }
+    }
+
     @Transactional
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
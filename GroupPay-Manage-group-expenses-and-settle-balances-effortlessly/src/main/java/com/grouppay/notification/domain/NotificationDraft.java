@@ -0,0 +1,10 @@
+package com.grouppay.notification.domain;
+
+/**
+ * A notification to insert, before it has an id or a loaded {@code User}.
+ *
+ * @param eventKey Identifies the event behind the notification; a second draft for the same user and key is
+ *                 not inserted. {@code null} for notifications that are not created from an event.
+ */
+public record NotificationDraft(Long userId, String title, String message, NotificationType type, String eventKey) {
+}
@@ -0,0 +1,58 @@
+package com.grouppay.notification.infrastructure;
+
+import com.grouppay.notification.domain.NotificationDraft;
+import com.grouppay.notification.domain.NotificationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Inserts the same notification for many users with one JDBC batch, instead of one load and one
+ * IDENTITY insert per user through {@link NotificationRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, message, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    // A duplicate (user_id, event_key) is a redelivered event: keep the existing row
+    private static final String INSERT_DRAFT_SQL =
+            "INSERT INTO notifications (user_id, title, message, type, is_read, created_at, event_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertForUsers(Collection<Long> userIds, String title, String message, NotificationType type) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setString(2, title);
+            ps.setString(3, message);
+            ps.setString(4, type.name());
+            ps.setBoolean(5, false);
+            ps.setTimestamp(6, createdAt);
+        });
+    }
+
+    /**
+     * Inserts notifications that differ per user (e.g. a consumer batch of events) with one JDBC batch.
+     * Drafts whose user already has a notification for the same event key are skipped.
+     */
+    public void insertAll(Collection<NotificationDraft> drafts) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_DRAFT_SQL, drafts, drafts.size(), (ps, draft) -> {
+            ps.setLong(1, draft.userId());
+            ps.setString(2, draft.title());
+            ps.setString(3, draft.message());
+            ps.setString(4, draft.type().name());
+            ps.setBoolean(5, false);
+            ps.setTimestamp(6, createdAt);
+            ps.setString(7, draft.eventKey());
+        });
+    }
+}
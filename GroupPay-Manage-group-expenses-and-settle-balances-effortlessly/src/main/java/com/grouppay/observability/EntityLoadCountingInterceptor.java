@@ -0,0 +1,16 @@
+package com.grouppay.observability;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts entity instances Hibernate materializes, from the database or the second-level cache.
+ */
+public class EntityLoadCountingInterceptor implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryStats.recordEntityLoad();
+        return false;
+    }
+}
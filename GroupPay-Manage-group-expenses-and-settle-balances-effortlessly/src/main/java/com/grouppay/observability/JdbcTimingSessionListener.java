@@ -0,0 +1,36 @@
+package com.grouppay.observability;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Accumulates time spent executing JDBC statements and batches.
+ * <p>
+ * Hibernate creates one instance per session (see {@code hibernate.session.events.auto}),
+ * so the start timestamp needs no synchronization.
+ * </p>
+ */
+public class JdbcTimingSessionListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryStats.recordJdbcTime(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryStats.recordJdbcTime(System.nanoTime() - batchStart);
+    }
+}
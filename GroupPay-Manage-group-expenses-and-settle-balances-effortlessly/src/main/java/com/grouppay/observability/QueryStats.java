@@ -0,0 +1,68 @@
+package com.grouppay.observability;
+
+/**
+ * SQL activity of the current request, collected by the Hibernate hooks in this package.
+ * <p>
+ * Hibernate instantiates the hooks itself, so the counters travel in a {@link ThreadLocal}
+ * opened by {@link QueryStatsFilter}. Work done outside a request (Kafka listeners, schedulers)
+ * has no current stats and is not counted.
+ * </p>
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcNanos;
+    private int entityLoads;
+
+    private QueryStats() {
+    }
+
+    /**
+     * Starts collecting for the current thread, replacing any previous stats.
+     */
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return The stats of the current request, or {@code null} outside a request.
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    static void recordStatement() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.statements++;
+    }
+
+    static void recordJdbcTime(long nanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.jdbcNanos += nanos;
+    }
+
+    static void recordEntityLoad() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.entityLoads++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+}
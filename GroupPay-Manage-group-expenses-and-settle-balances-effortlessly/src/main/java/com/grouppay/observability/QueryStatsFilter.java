@@ -0,0 +1,104 @@
+package com.grouppay.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many SQL statements, how much JDBC time and how many entity loads each request costs.
+ * <p>
+ * The numbers are published as {@code grouppay.request.*} meters tagged by method and URI pattern.
+ * With {@code grouppay.query-stats.headers=true} (the dev profile) they are also returned as
+ * {@code X-Query-Count}, {@code X-Query-Time-Ms} and {@code X-Entity-Loads}. Requests issuing more than
+ * {@code grouppay.query-stats.n-plus-one-threshold} statements are logged as likely N+1 candidates.
+ * </p>
+ * Runs ahead of the security filter chain so that user lookups done during authentication are counted.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "grouppay.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Query-Count";
+    static final String JDBC_TIME_HEADER = "X-Query-Time-Ms";
+    static final String ENTITY_LOADS_HEADER = "X-Entity-Loads";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headers;
+    private final int nPlusOneThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${grouppay.query-stats.headers:false}") boolean headers,
+                            @Value("${grouppay.query-stats.n-plus-one-threshold:20}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Headers must be set before the body is committed, so buffer it only when they are wanted
+        ContentCachingResponseWrapper wrapper = headers ? new ContentCachingResponseWrapper(response) : null;
+        QueryStats stats = QueryStats.start();
+        try {
+            filterChain.doFilter(request, wrapper != null ? wrapper : response);
+        } finally {
+            QueryStats.clear();
+            record(request, stats);
+            if (wrapper != null) {
+                wrapper.setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+                wrapper.setHeader(JDBC_TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos())));
+                wrapper.setHeader(ENTITY_LOADS_HEADER, String.valueOf(stats.getEntityLoads()));
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("grouppay.request.statements")
+                .description("SQL statements issued per request")
+                .baseUnit("statements")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("grouppay.request.entity.loads")
+                .description("Entities materialized per request")
+                .baseUnit("entities")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getEntityLoads());
+        Timer.builder("grouppay.request.jdbc")
+                .description("Time spent executing JDBC statements per request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getStatements() > nPlusOneThreshold) {
+            log.warn("Possible N+1: {} {} issued {} statements ({} ms JDBC, {} entity loads), threshold {}",
+                    method, request.getRequestURI(), stats.getStatements(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos()), stats.getEntityLoads(), nPlusOneThreshold);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.grouppay.observability;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Registers the per-request query statistics hooks with Hibernate.
+ */
+@Configuration
+@ConditionalOnProperty(name = "grouppay.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsHibernateConfig implements HibernatePropertiesCustomizer {
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingSessionListener.class.getName());
+    }
+}
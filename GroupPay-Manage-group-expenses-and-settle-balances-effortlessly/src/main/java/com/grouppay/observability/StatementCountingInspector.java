@@ -0,0 +1,15 @@
+package com.grouppay.observability;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares; the SQL itself is passed through unchanged.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats.recordStatement();
+        return sql;
+    }
+}
@@ -0,0 +1,30 @@
+package com.grouppay.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Uses the primary (Redis) counter and falls back to the in-memory one for any call that fails with a data
+ * access error. Limits degrade to per-instance while Redis is down, but logins keep working.
+ */
+@Slf4j
+class FailoverSlidingWindowCounter implements SlidingWindowCounter {
+
+    private final SlidingWindowCounter primary;
+    private final SlidingWindowCounter fallback;
+
+    FailoverSlidingWindowCounter(SlidingWindowCounter primary, SlidingWindowCounter fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public long increment(String key) {
+        try {
+            return primary.increment(key);
+        } catch (DataAccessException e) {
+            log.warn("Rate limit store unavailable, using in-memory fallback: {}", e.getMessage());
+            return fallback.increment(key);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.grouppay.ratelimit;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Throttles {@code POST /auth/login} per client address and per email before anything else runs.
+ * <p>
+ * Every attempt counts against a sliding window of {@code grouppay.security.login-rate-limit.window} for its
+ * address and, if the address is within its limit, for the email it tries. Over either limit the request
+ * is answered 429 with {@code Retry-After} right here, ahead of the security chain: no user lookup and no
+ * password hash are spent on it. The address limit stops one source spraying many accounts; the email
+ * limit stops many sources guessing one account. Addresses and emails are counted in separate sketches, so a
+ * flood of one kind does not inflate the counts of the other.
+ * </p>
+ * <p>
+ * The address is {@link HttpServletRequest#getRemoteAddr()}. Behind a load balancer that is the proxy's
+ * address unless {@code server.forward-headers-strategy} is set: {@code native} (the default here) lets
+ * Tomcat take the client from {@code X-Forwarded-For} when the request comes from a trusted internal proxy
+ * ({@code server.tomcat.remoteip.internal-proxies}), so clients cannot spoof it directly.
+ * </p>
+ * Outcomes are counted in {@value AppConstants#METRIC_LOGIN_RATE_LIMIT}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    static final String LOGIN_PATH = "/auth/login";
+
+    private final SlidingWindowCounter ipCounter;
+    private final SlidingWindowCounter emailCounter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long perIp;
+    private final long perEmail;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param mode             {@code memory} (default; per instance) or {@code redis} (shared by all instances,
+     *                         with the in-memory counter as a fallback when Redis fails).
+     * @param perIp            Attempts allowed per client address and window.
+     * @param perEmail         Attempts allowed per email and window.
+     * @param expectedAttempts Attempts per window the in-memory sketches are sized for.
+     * @param maxOvercount     How far a count may read high while traffic stays within {@code expectedAttempts}.
+     */
+    public LoginRateLimitFilter(StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${grouppay.security.login-rate-limit.enabled:true}") boolean enabled,
+                                @Value("${grouppay.security.login-rate-limit.store:memory}") String mode,
+                                @Value("${grouppay.security.login-rate-limit.window:PT1M}") Duration window,
+                                @Value("${grouppay.security.login-rate-limit.per-ip:30}") long perIp,
+                                @Value("${grouppay.security.login-rate-limit.per-email:10}") long perEmail,
+                                @Value("${grouppay.security.login-rate-limit.expected-attempts:100000}") long expectedAttempts,
+                                @Value("${grouppay.security.login-rate-limit.max-overcount:2}") int maxOvercount) {
+        int width = StripedSlidingWindowCounter.widthFor(expectedAttempts, maxOvercount);
+        this.ipCounter = counter(mode, redisTemplate, window, width);
+        this.emailCounter = counter(mode, redisTemplate, window, width);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.perIp = perIp;
+        this.perEmail = perEmail;
+        this.retryAfterSeconds = Math.max(1, window.toSeconds());
+    }
+
+    private static SlidingWindowCounter counter(String mode, StringRedisTemplate redisTemplate, Duration window,
+                                                int width) {
+        SlidingWindowCounter memory = new StripedSlidingWindowCounter(window, width);
+        return switch (mode) {
+            case "redis" -> new FailoverSlidingWindowCounter(new RedisSlidingWindowCounter(redisTemplate, window), memory);
+            case "memory" -> memory;
+            default -> throw new IllegalArgumentException("Unknown grouppay.security.login-rate-limit.store: " + mode);
+        };
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || !LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (ipCounter.increment("ip:" + request.getRemoteAddr()) > perIp) {
+            reject(response, "ip");
+            return;
+        }
+        String email = request.getParameter("email");
+        if (email != null && emailCounter.increment("email:" + email.trim().toLowerCase(Locale.ROOT)) > perEmail) {
+            reject(response, "email");
+            return;
+        }
+        count("allowed");
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, String limit) throws IOException {
+        count("rejected_" + limit);
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many login attempts, please retry later\",\"status\":\"429\"}");
+    }
+
+    private void count(String outcome) {
+        Counter.builder(AppConstants.METRIC_LOGIN_RATE_LIMIT)
+                .description("Login attempts checked by the rate limiter, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
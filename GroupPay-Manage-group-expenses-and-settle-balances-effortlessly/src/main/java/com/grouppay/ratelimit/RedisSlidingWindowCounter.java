@@ -0,0 +1,43 @@
+package com.grouppay.ratelimit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link SlidingWindowCounter} in Redis, shared by all instances. Each fixed window is one counter key,
+ * {@code ratelimit:<key>:<window number>}, expiring after two windows; one Lua script increments the
+ * current counter and reads the previous one in a single round trip.
+ */
+class RedisSlidingWindowCounter implements SlidingWindowCounter {
+
+    private static final String PREFIX = "ratelimit:";
+    private static final DefaultRedisScript<List> INCREMENT = new DefaultRedisScript<>(
+            "local current = redis.call('INCR', KEYS[1]) " +
+            "if current == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "local previous = redis.call('GET', KEYS[2]) " +
+            "return {current, tonumber(previous) or 0}", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long windowMillis;
+
+    RedisSlidingWindowCounter(StringRedisTemplate redisTemplate, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    public long increment(String key) {
+        long now = System.currentTimeMillis();
+        long window = now / windowMillis;
+        List<?> counts = redisTemplate.execute(INCREMENT,
+                List.of(PREFIX + key + ":" + window, PREFIX + key + ":" + (window - 1)),
+                String.valueOf(windowMillis * 2));
+        long current = ((Number) counts.get(0)).longValue();
+        long previous = ((Number) counts.get(1)).longValue();
+        double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+        return current + (long) Math.floor(previous * previousWeight);
+    }
+}
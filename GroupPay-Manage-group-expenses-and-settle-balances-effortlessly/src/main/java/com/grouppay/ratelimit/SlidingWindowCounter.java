@@ -0,0 +1,20 @@
+package com.grouppay.ratelimit;
+
+/**
+ * Counts hits per key over a sliding window.
+ * <p>
+ * Implementations use the sliding window counter approximation: hits are counted in fixed windows, and the
+ * count at any moment is the current window's hits plus the previous window's hits weighted by how much of
+ * the previous window still overlaps the sliding one. That needs two numbers per key instead of a timestamp
+ * per hit.
+ * </p>
+ */
+public interface SlidingWindowCounter {
+
+    /**
+     * Records one hit for {@code key}.
+     *
+     * @return Estimated hits for the key in the sliding window ending now, this one included.
+     */
+    long increment(String key);
+}
@@ -20,6 +20,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
      JwtUtil jwtUtil;
+    @Autowired
+    TokenRevocationList tokenRevocationList;
 
 
     @Override
@@ -36,10 +38,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if(authHeader !=null && authHeader.startsWith("Bearer ")){
                 String token = authHeader.substring(7);
-                log.info("JWT Filter: Token found, length={}", token.length());
+                log.debug("JWT Filter: Token found, length={}", token.length());
                 try {
-                    String email = jwtUtil.extractEmail(token);
-                    log.info("JWT Filter: Extracted email={}", email);
+                    JwtUtil.AccessToken accessToken = jwtUtil.parse(token);
+                    String email = accessToken.email();
+                    log.debug("JWT Filter: Extracted email={}", email);
+                    if (tokenRevocationList.isRevoked(accessToken.jti())) {
+                        log.debug("JWT Filter: Token {} is revoked", accessToken.jti());
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
                     UsernamePasswordAuthenticationToken authenticationToken =
                                 new UsernamePasswordAuthenticationToken(email,null, java.util.Collections.emptyList());
     
@@ -52,7 +60,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     log.error("JWT Filter: Token extraction failed: {}", e.getMessage());
                 }
             } else {
-                log.warn("JWT Filter: No Bearer token found in header for path: {}", path);
+                log.debug("JWT Filter: No Bearer token found in header for path: {}", path);
             }
 
             filterChain.doFilter(request,response);
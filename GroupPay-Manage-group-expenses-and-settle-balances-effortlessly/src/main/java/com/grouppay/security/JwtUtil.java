@@ -1,46 +1,74 @@
 package com.grouppay.security;
 
-import com.grouppay.user.domain.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
-import jakarta.persistence.Column;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
-import java.util.Base64;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
 
     private final SecretKey secretKey ;
+    private final Duration accessTokenTtl;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret) {
+    /**
+     * @param accessTokenTtl Lifetime of access tokens; clients renew them with a refresh token.
+     */
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${grouppay.security.jwt.access-token-ttl:PT15M}") Duration accessTokenTtl) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.accessTokenTtl = accessTokenTtl;
     }
 
+    /**
+     * Issues an access token. Every token carries a unique id ({@code jti}) so it can be revoked on its own.
+     */
     public String generateToken(String email) {
 
+            Instant now = Instant.now();
             return Jwts.builder()
+                    .setId(UUID.randomUUID().toString())
                     .setSubject(email)
-                    .setIssuedAt(new Date())
-                    .setExpiration(new Date(System.currentTimeMillis() + 86_400_000)) // 1 day
+                    .setIssuedAt(Date.from(now))
+                    .setExpiration(Date.from(now.plus(accessTokenTtl)))
                     .signWith(secretKey, SignatureAlgorithm.HS256)
                     .compact();
     }
 
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
+        return parse(token).email();
+    }
+
+    /**
+     * Verifies the signature and expiry of an access token.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired.
+     */
+    public AccessToken parse(String token) {
+        Claims claims = Jwts.parserBuilder()
                 .setSigningKey(secretKey)
                 .build()
                 .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+                .getBody();
+        return new AccessToken(claims.getSubject(), claims.getId(), claims.getExpiration().toInstant());
     }
 
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    /**
+     * @param jti Token id; {@code null} for tokens issued before ids were added.
+     */
+    public record AccessToken(String email, String jti, Instant expiresAt) {
+    }
 }
@@ -0,0 +1,45 @@
+package com.grouppay.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Random bearer tokens that are handed to the client once and stored only as a hash (refresh and password
+ * reset tokens).
+ * <p>
+ * A token carries 256 random bits, so a plain SHA-256 is enough to make a leaked table useless and keeps
+ * lookups to one unique-index probe on the hash.
+ * </p>
+ */
+public final class OpaqueTokens {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private OpaqueTokens() {
+    }
+
+    /**
+     * @return A new URL-safe token.
+     */
+    public static String generate() {
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+    }
+
+    /**
+     * @return Hex SHA-256 of the token, as stored.
+     */
+    public static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
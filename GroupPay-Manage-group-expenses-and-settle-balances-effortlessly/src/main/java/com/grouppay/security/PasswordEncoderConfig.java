@@ -0,0 +1,47 @@
+package com.grouppay.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Chooses how new passwords are hashed while still verifying every format already stored.
+ * <p>
+ * New hashes carry an {@code {id}} prefix naming their algorithm. Hashes written before this existed are
+ * plain BCrypt without a prefix and are verified as such. {@link PasswordEncoder#upgradeEncoding(String)}
+ * reports unprefixed hashes, hashes from the other algorithm and hashes with a lower cost than configured, so
+ * {@link PasswordHasher#verify} rehashes them on the next successful login.
+ * </p>
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    /**
+     * @param algorithm       {@code bcrypt} or {@code pbkdf2}, used for new hashes.
+     * @param bcryptStrength  BCrypt log2 rounds; every step doubles the cost of a login.
+     * @param pbkdf2Iterations PBKDF2-HMAC-SHA256 iterations.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${grouppay.security.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${grouppay.security.password.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${grouppay.security.password.pbkdf2-iterations:310000}") int pbkdf2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2", new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                        Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unknown password algorithm: " + algorithm);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before the {id} prefix was introduced
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+}
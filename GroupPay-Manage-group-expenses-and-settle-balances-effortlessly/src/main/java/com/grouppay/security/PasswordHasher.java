@@ -0,0 +1,135 @@
+package com.grouppay.security;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool instead of the request thread.
+ * <p>
+ * Hashing is deliberately CPU-bound, so the pool defaults to one thread per core and a short queue. When both
+ * are full the call fails at once with {@link PasswordHashingOverloadedException} (429) rather than queueing
+ * behind a login storm; every other endpoint keeps its CPU and its request threads. Queue depth, active
+ * threads, rejections and time spent waiting for a thread are exported under
+ * {@value AppConstants#METRIC_PASSWORD_HASHING}.
+ * </p>
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer queueWait;
+    // Hash of a random password in the current encoding, checked for logins with an unknown email
+    private volatile String absentUserHash;
+
+    /**
+     * @param threads       Hashing threads; 0 means one per available processor.
+     * @param queueCapacity Hashes allowed to wait for a thread before new ones are shed.
+     */
+    public PasswordHasher(PasswordEncoder encoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${grouppay.security.password.hashing.threads:0}") int threads,
+                          @Value("${grouppay.security.password.hashing.queue-capacity:64}") int queueCapacity) {
+        this.encoder = encoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder(AppConstants.METRIC_PASSWORD_HASHING + ".queued", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder(AppConstants.METRIC_PASSWORD_HASHING + ".active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently busy")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(AppConstants.METRIC_PASSWORD_HASHING + ".rejected")
+                .description("Register / login requests shed because the hashing pool was full")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder(AppConstants.METRIC_PASSWORD_HASHING + ".queue.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password and, if it matches a hash in an outdated format or cost, computes the replacement on
+     * the same thread so the caller can store it.
+     */
+    public CompletableFuture<Verification> verify(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            if (!encoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true,
+                    encoder.upgradeEncoding(encodedPassword) ? encoder.encode(rawPassword) : null);
+        });
+    }
+
+    /**
+     * Spends the same work as {@link #verify} for a login whose email matches no user, then reports a mismatch,
+     * so the response time and the outcome do not tell whether the email is registered.
+     */
+    public CompletableFuture<Verification> verifyAbsentUser(CharSequence rawPassword) {
+        return submit(() -> {
+            encoder.matches(rawPassword, absentUserHash());
+            return new Verification(false, null);
+        });
+    }
+
+    // Computed on first use, on a hashing thread; a race only computes it twice
+    private String absentUserHash() {
+        String hash = absentUserHash;
+        if (hash == null) {
+            hash = encoder.encode(OpaqueTokens.generate());
+            absentUserHash = hash;
+        }
+        return hash;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return work.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingOverloadedException();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param upgradedHash New hash to store when the password matched an outdated one, otherwise {@code null}.
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+}
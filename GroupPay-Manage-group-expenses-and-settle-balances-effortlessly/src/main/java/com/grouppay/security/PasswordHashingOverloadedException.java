@@ -0,0 +1,11 @@
+package com.grouppay.security;
+
+/**
+ * The password hashing pool is saturated; mapped to 429 so clients back off and retry.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    public PasswordHashingOverloadedException() {
+        super("Too many sign-in requests, please retry shortly");
+    }
+}
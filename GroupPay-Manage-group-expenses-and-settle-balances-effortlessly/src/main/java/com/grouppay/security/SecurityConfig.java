@@ -1,16 +1,22 @@
 package com.grouppay.security;
 
+import com.grouppay.shared.dto.AuthResponse;
+import com.grouppay.user.application.AuthTokenService;
 import com.grouppay.user.infrastructure.UserRepository;
 import jakarta.servlet.Filter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,7 +28,32 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter filter;
     private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
+
+    private static final String METRICS_ROLE = "METRICS";
+
+    /**
+     * {@code /actuator/prometheus} for the Prometheus scraper, which carries no JWT: HTTP Basic against one
+     * configured account ({@code grouppay.security.metrics-scrape}), and nothing else on this chain.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http, PasswordEncoder passwordEncoder,
+                                                  @Value("${grouppay.security.metrics-scrape.username:prometheus}") String username,
+                                                  @Value("${grouppay.security.metrics-scrape.password}") String password) throws Exception {
+        UserDetails scraper = org.springframework.security.core.userdetails.User.withUsername(username)
+                .password(passwordEncoder.encode(password))
+                .roles(METRICS_ROLE)
+                .build();
+        http
+            .securityMatcher("/actuator/prometheus")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> auth.anyRequest().hasRole(METRICS_ROLE))
+            .httpBasic(Customizer.withDefaults())
+            .userDetailsService(new InMemoryUserDetailsManager(scraper));
+
+        return http.build();
+    }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -33,6 +64,8 @@ public class SecurityConfig {
                 .requestMatchers("/auth/**", "/oauth2/**", "/error" ,"/swagger-ui/**",
                         "/v3/api-docs/**",
                         "/swagger-ui.html").permitAll()
+                // Probes carry no JWT; other actuator endpoints stay authenticated (prometheus: metricsFilterChain)
+                .requestMatchers("/actuator/health").permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);
@@ -41,34 +74,31 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationSuccessHandler oauth2AuthenticationSuccessHandler() {
+    public AuthenticationSuccessHandler oauth2AuthenticationSuccessHandler(PasswordEncoder passwordEncoder,
+                                                                           AuthTokenService authTokenService) {
         return (request, response, authentication) -> {
             OAuth2User oAuth2User = (OAuth2User) authentication.getPrincipal();
             String email = oAuth2User.getAttribute("email");
             
             // Check if user exists, else register
-            userRepository.findByEmail(email).orElseGet(() -> {
+            com.grouppay.user.domain.User user = userRepository.findByEmail(email).orElseGet(() -> {
                 com.grouppay.user.domain.User newUser = com.grouppay.user.domain.User.builder()
                         .email(email)
                         .username(email.split("@")[0]) // Default username from email
-                        .password(passwordEncoder().encode("OAUTH2_USER_" + java.util.UUID.randomUUID()))
+                        .password(passwordEncoder.encode("OAUTH2_USER_" + java.util.UUID.randomUUID()))
                         .role(com.grouppay.user.domain.Role.USER) 
                         .build();
                 return userRepository.save(newUser);
             });
 
-            // Generate JWT
-            String token = jwtUtil.generateToken(email);
+            // Generate access and refresh tokens
+            AuthResponse tokens = authTokenService.issue(user.getId(), email);
 
             // Redirect to frontend with token
             response.setContentType("application/json");
-            response.getWriter().write("{\"token\": \"" + token + "\", \"message\": \"Login Successful. Use this token for future requests.\"}");
+            response.getWriter().write("{\"token\": \"" + tokens.getToken() + "\", \"refreshToken\": \"" + tokens.getRefreshToken()
+                    + "\", \"message\": \"Login Successful. Use this token for future requests.\"}");
             response.getWriter().flush();
         };
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
@@ -0,0 +1,200 @@
+package com.grouppay.security;
+
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.util.BloomFilter;
+import com.grouppay.user.domain.RevokedToken;
+import com.grouppay.user.infrastructure.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Answers "was this access token revoked?" for every authenticated request without touching the database
+ * in the common case.
+ * <p>
+ * Revoked token ids are stored in {@code revoked_tokens} and mirrored into an in-memory Bloom filter. A miss
+ * (almost every request) means not revoked; only a hit is confirmed with one indexed lookup, so the
+ * database sees revoked tokens plus about {@code false-positive-rate} of the rest.
+ * </p>
+ * <p>
+ * A revoked id only matters until its token expires, at most one access token lifetime later. The filter
+ * therefore has two generations: new ids go into the current one, and every access token lifetime the
+ * current one becomes the previous one and the oldest is dropped. Both are checked, so every id stays in
+ * for at least one lifetime while memory stays bounded by the revocations of two lifetimes.
+ * </p>
+ * <p>
+ * Revocations made on other instances are picked up every {@code sync-interval}, by reading rows recorded
+ * since {@code sync-overlap} before the newest one already seen. Row ids and timestamps are assigned at
+ * insert, not at commit, so a revocation whose transaction commits late can appear behind newer ones; the
+ * overlap re-reads that range (adding an id twice is harmless) and must exceed the longest such delay.
+ * </p>
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final int SYNC_PAGE_SIZE = 1000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Duration generationLength;
+    private final Duration syncOverlap;
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile Instant currentSince;
+    // Newest revoked_tokens.created_at already in the filter
+    private LocalDateTime lastSyncedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * @param expectedRevocations Revocations per access token lifetime the filter is sized for.
+     * @param falsePositiveRate   Share of valid tokens that cost a confirming lookup at that size.
+     * @param syncOverlap         How late a revocation may commit after a newer one and still be synced.
+     */
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               JwtUtil jwtUtil,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${grouppay.security.revocation.expected-revocations:100000}") long expectedRevocations,
+                               @Value("${grouppay.security.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${grouppay.security.revocation.sync-overlap:PT1M}") Duration syncOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.generationLength = jwtUtil.getAccessTokenTtl();
+        this.syncOverlap = syncOverlap;
+        this.current = newFilter();
+        this.previous = newFilter();
+        this.currentSince = Instant.now();
+    }
+
+    /**
+     * @param jti Id of a token whose signature and expiry are already verified.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!current.mightContain(jti) && !previous.mightContain(jti)) {
+            count("filter_miss");
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsByJti(jti);
+        count(revoked ? "revoked" : "false_positive");
+        return revoked;
+    }
+
+    /**
+     * Revokes an access token until it expires. Takes effect on this instance when the transaction commits
+     * and on others within {@code sync-interval} of the commit.
+     */
+    @Transactional
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .build());
+        afterCommit(() -> current.add(jti));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        sync();
+    }
+
+    /**
+     * Rotates the generations when due and adds revocations recorded since the last sync, by any instance.
+     */
+    @Scheduled(fixedDelayString = "${grouppay.security.revocation.sync-interval:PT5S}")
+    public synchronized void sync() {
+        Instant now = Instant.now();
+        if (Duration.between(currentSince, now).compareTo(generationLength) >= 0) {
+            previous = current;
+            current = newFilter();
+            currentSince = now;
+            purgeExpired();
+        }
+
+        LocalDateTime since = lastSyncedAt.minus(syncOverlap);
+        LocalDateTime cutoff = LocalDateTime.now();
+        long afterId = 0;
+        List<RevokedToken> page;
+        do {
+            page = revokedTokenRepository.findActiveSince(since, afterId, cutoff, Limit.of(SYNC_PAGE_SIZE));
+            for (RevokedToken token : page) {
+                current.add(token.getJti());
+                afterId = token.getId();
+                if (token.getCreatedAt().isAfter(lastSyncedAt)) {
+                    lastSyncedAt = token.getCreatedAt();
+                }
+            }
+        } while (page.size() == SYNC_PAGE_SIZE);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void purgeExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+            log.debug("Rotated token revocation filter, deleted {} expired revocations", deleted);
+        } catch (DataAccessException e) {
+            // Left for the next rotation; picking up new revocations below matters more
+            log.warn("Could not delete expired token revocations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Bits held by both generations.
+     */
+    public long memoryBits() {
+        return current.bitSize() + previous.bitSize();
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    private void count(String result) {
+        Counter.builder(AppConstants.METRIC_TOKEN_REVOCATION_CHECKS)
+                .description("Access token revocation checks, by whether the Bloom filter needed a lookup")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
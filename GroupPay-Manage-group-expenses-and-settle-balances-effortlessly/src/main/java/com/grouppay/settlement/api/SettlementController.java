@@ -1,15 +1,21 @@
 package com.grouppay.settlement.api;
 
-import com.grouppay.group.domain.Group;
+import com.grouppay.cache.SettlementCacheService;
 import com.grouppay.group.infrastructure.GroupRepository;
-import com.grouppay.settlement.application.BalanceCalculationService;
-import com.grouppay.settlement.application.MinimumCashFlowService;
+import com.grouppay.settlement.application.BalanceHistoryService;
+import com.grouppay.settlement.application.CrossGroupSettlementService;
+import com.grouppay.settlement.application.SettlementService;
+import com.grouppay.settlement.domain.BalancePoint;
+import com.grouppay.settlement.domain.CrossGroupTransfer;
 import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.shared.constants.AppConstants;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -18,28 +24,113 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SettlementController {
 
-    private final BalanceCalculationService balanceCalculationService;
-    private final MinimumCashFlowService minimumCashFlowService;
+    private final BalanceHistoryService balanceHistoryService;
+    private final CrossGroupSettlementService crossGroupSettlementService;
+    private final SettlementCacheService settlementCacheService;
+    private final SettlementService settlementService;
     private final GroupRepository groupRepository;
     private final com.grouppay.notification.application.NotificationService notificationService;
     private final com.grouppay.user.infrastructure.UserRepository userRepository;
 
 
     /**
-     * Calculates and returns the optimized transactions required to settle all debts in a group.
-     * 
+     * Calculates and returns the optimized transactions required to settle all debts in a group,
+     * settling each currency separately. This is a preview only; nothing is persisted (see {@link #createSettlementPlan(Long)}).
+     * <p>
+     * Served from the plan precomputed after the group's last write when it is still current, otherwise
+     * computed on the spot. {@code X-Settlement-Plan-Source} says which ({@code precomputed} / {@code computed})
+     * and {@code X-Settlement-Plan-Computed-At} when the plan was computed.
+     * </p>
+     *
      * @param groupId ID of the group.
      * @return List of proposed settlements.
      */
     @GetMapping("/group/{groupId}/calculate")
     public ResponseEntity<List<Settlement>> getOptimizedSettlements(@PathVariable Long groupId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
+        if (!groupRepository.existsById(groupId)) {
+            throw new RuntimeException("Group not found");
+        }
+        SettlementCacheService.PlanRead read = settlementCacheService.getPlan(groupId);
 
-        Map<Long, BigDecimal> netBalances = balanceCalculationService.calculateNetBalances(groupId);
-        List<Settlement> settlements = minimumCashFlowService.calculateSettlements(group, netBalances);
+        return ResponseEntity.ok()
+                .header(AppConstants.PLAN_SOURCE_HEADER, read.source().headerValue())
+                .header(AppConstants.PLAN_COMPUTED_AT_HEADER, read.plan().computedAt().toString())
+                .body(read.plan().settlements());
+    }
 
-        return ResponseEntity.ok(settlements);
+    /**
+     * Calculates the current user's transfers when debts are settled across all their groups at once,
+     * so friends sharing several groups pay each other once per currency. Preview only; nothing is persisted.
+     */
+    @GetMapping("/me/cross-group")
+    public ResponseEntity<List<CrossGroupTransfer>> getCrossGroupSettlements(
+            org.springframework.security.core.Authentication authentication) {
+        com.grouppay.user.domain.User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        return ResponseEntity.ok(crossGroupSettlementService.calculateForUser(user.getId()));
+    }
+
+    /**
+     * Computes the settle-up plan and persists it as a new versioned batch.
+     *
+     * @param groupId ID of the group.
+     * @return The persisted settlements of the new batch.
+     */
+    @PostMapping("/group/{groupId}/plan")
+    public ResponseEntity<List<Settlement>> createSettlementPlan(@PathVariable Long groupId) {
+        return ResponseEntity.ok(settlementService.createSettlementPlan(groupId));
+    }
+
+    /**
+     * Returns the group's current (latest) persisted settle-up plan.
+     */
+    @GetMapping("/group/{groupId}")
+    public ResponseEntity<List<Settlement>> getCurrentPlan(@PathVariable Long groupId) {
+        return ResponseEntity.ok(settlementService.getCurrentPlan(groupId));
+    }
+
+    /**
+     * Returns a user's balance in the group as it was at a point in time, per currency.
+     *
+     * @param groupId ID of the group.
+     * @param userId  ID of the user.
+     * @param at      ISO date-time, e.g. {@code 2024-05-01T18:30:00}.
+     */
+    @GetMapping("/group/{groupId}/balances/as-of")
+    public ResponseEntity<Map<String, BigDecimal>> getBalanceAsOf(
+            @PathVariable Long groupId,
+            @RequestParam Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(balanceHistoryService.getBalanceAsOf(groupId, userId, at));
+    }
+
+    /**
+     * Returns a user's balance in the group sampled at evenly spaced times, per currency, for charting.
+     *
+     * @param from   Start of the range (ISO date-time); defaults to the user's first balance change.
+     * @param to     End of the range (ISO date-time); defaults to now.
+     * @param points Number of samples; server default and cap apply.
+     */
+    @GetMapping("/group/{groupId}/balances/history")
+    public ResponseEntity<Map<String, List<BalancePoint>>> getBalanceHistory(
+            @PathVariable Long groupId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer points) {
+        return ResponseEntity.ok(balanceHistoryService.getBalanceSeries(groupId, userId, from, to, points));
+    }
+
+    /**
+     * Marks a settlement as paid. Safe to retry: the Idempotency-Key header ensures the payment is recorded once.
+     *
+     * @param settlementId   ID of the settlement.
+     * @param idempotencyKey Client-generated key for this payment attempt.
+     * @return The settled Settlement.
+     */
+    @PostMapping("/{settlementId}/paid")
+    public ResponseEntity<Settlement> markPaid(@PathVariable Long settlementId,
+                                               @RequestHeader(AppConstants.IDEMPOTENCY_KEY_HEADER) String idempotencyKey) {
+        return ResponseEntity.ok(settlementService.markPaid(settlementId, idempotencyKey));
     }
 
     /**
@@ -0,0 +1,31 @@
+package com.grouppay.settlement.application;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Strategy for turning a group's expenses into per-user net balances, kept separate per currency.
+ * <p>
+ * Result = Total Paid - Total Consumed. Positive balance means the user is owed money,
+ * negative balance means the user owes money. Implementations must return the same
+ * map for the same data; they only differ in how much they load to get there.
+ * </p>
+ */
+public interface BalanceAggregator {
+
+    /**
+     * @param groupId The ID of the group to aggregate.
+     * @return A map of Currency Code to (User ID to their Net Balance in that currency).
+     */
+    default Map<String, Map<Long, BigDecimal>> aggregate(Long groupId) {
+        return aggregate(groupId, expenseCount -> {
+        });
+    }
+
+    /**
+     * Same as {@link #aggregate(Long)}, also reporting how many expenses were aggregated. The count is taken
+     * from rows the aggregation reads anyway, so it costs no extra query.
+     */
+    Map<String, Map<Long, BigDecimal>> aggregate(Long groupId, LongConsumer expenseCount);
+}
@@ -1,69 +1,98 @@
 package com.grouppay.settlement.application;
 
-import com.grouppay.expense.domain.Expense;
-import com.grouppay.expense.domain.ExpenseSplit;
-import com.grouppay.expense.infrastructure.ExpenseRepository;
-import lombok.RequiredArgsConstructor;
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.settlement.infrastructure.SettlementPaymentRepository;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.util.MetricTags;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
 
 @Service
-@RequiredArgsConstructor
 public class BalanceCalculationService {
 
-    private final ExpenseRepository expenseRepository;
+    private final BalanceAggregator balanceAggregator;
+    private final SettlementPaymentRepository settlementPaymentRepository;
+    private final MeterRegistry meterRegistry;
+    private final String mode;
 
     /**
-     * Calculates the net balance for each user in the group based on all recorded expenses.
+     * @param mode Which {@link BalanceAggregator} to use: {@code sql} (GROUP BY queries, default)
+     *             or {@code entity} (hydrates expenses and splits).
+     */
+    public BalanceCalculationService(EntityBalanceAggregator entityBalanceAggregator,
+                                     SqlBalanceAggregator sqlBalanceAggregator,
+                                     SettlementPaymentRepository settlementPaymentRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${grouppay.balance.aggregation:sql}") String mode) {
+        this.balanceAggregator = switch (mode) {
+            case "sql" -> sqlBalanceAggregator;
+            case "entity" -> entityBalanceAggregator;
+            default -> throw new IllegalArgumentException("Unknown grouppay.balance.aggregation: " + mode);
+        };
+        this.settlementPaymentRepository = settlementPaymentRepository;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+    }
+
+    /**
+     * Calculates the net balance for each user in the group from scratch, based on all recorded expenses
+     * and settlement payments. Balances are kept per currency; amounts are never converted here.
      * <p>
      * Logic:
      * <ul>
      *     <li><b>Credit:</b> The payer is credited with the full expense amount (as they paid it).</li>
      *     <li><b>Debit:</b> Each user involved in the split (including the payer if applicable) is debited their split amount.</li>
+     *     <li><b>Payments:</b> A recorded payment credits its payer and debits its payee.</li>
      * </ul>
      * Result = Total Paid - Total Consumed.
      * Positive balance means the user is owed money. Negative balance means the user owes money.
      * </p>
      *
      * @param groupId The ID of the group to calculate balances for.
-     * @return A map of User ID to their Net Balance (BigDecimal).
+     * This replays the whole group; read paths should use {@link BalanceLedgerService#getBalances(Long)} instead.
+     *
+     * @return A map of Currency Code to (User ID to their Net Balance).
      */
-    public Map<Long, BigDecimal> calculateNetBalances(Long groupId) {
-        List<Expense> expenses = expenseRepository.findByGroupId(groupId);
-        Map<Long, BigDecimal> netBalances = new HashMap<>();
-
-        for (Expense expense : expenses) {
-            Long payerId = expense.getPaidBy().getId();
-            
-            // Payer gets back the total amount (technically they paid it, so others owe them)
-            // Wait, usually: Payer pays 100. Split A:50, B:50.
-            // Payer is +50 (since they paid 100 but kept 50 worth of value? No.)
-            // Logic:
-            // Net Balance = Paid - Owed
-            // Payer pays 100.
-            // Split: A owes 50, B owes 50.
-            // A's Balance: -50 (Owe)
-            // B's Balance: -50 (Owe)
-            // Payer's Balance: +100 (Paid) - 0 (if not in split) ??
-            // If Payer is also A?
-            // Payer pays 100. Split A(Payer): 50, B: 50.
-            // A Paid: 100. A Owes: 50. Net: +50.
-            // B Paid: 0. B Owes: 50. Net: -50.
-            // Check correct logic.
+    @Transactional(readOnly = true)
+    public Map<String, Map<Long, BigDecimal>> calculateNetBalances(Long groupId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long[] expenseCount = {0};
+        try {
+            return aggregateWithPayments(groupId, count -> expenseCount[0] = count);
+        } finally {
+            sample.stop(Timer.builder(AppConstants.METRIC_BALANCE_CALCULATE)
+                    .description("Time to recompute a group's net balances from scratch")
+                    .tag("aggregation", mode)
+                    .tag("expenses", MetricTags.sizeBucket(expenseCount[0]))
+                    .register(meterRegistry));
+            DistributionSummary.builder(AppConstants.METRIC_BALANCE_EXPENSES)
+                    .description("Expenses replayed per balance recomputation")
+                    .baseUnit("expenses")
+                    .register(meterRegistry)
+                    .record(expenseCount[0]);
+        }
+    }
 
-            // 1. Credit the payer with the full amount
-            netBalances.merge(payerId, expense.getAmount(), BigDecimal::add);
+    private Map<String, Map<Long, BigDecimal>> aggregateWithPayments(Long groupId, LongConsumer expenseCount) {
+        Map<String, Map<Long, BigDecimal>> balancesByCurrency = balanceAggregator.aggregate(groupId, expenseCount);
 
-            // 2. Debit the borrowers (splits)
-            for (ExpenseSplit split : expense.getSplits()) {
-                Long borrowedById = split.getUser().getId();
-                netBalances.merge(borrowedById, split.getAmount().negate(), BigDecimal::add);
-            }
+        for (UserCurrencyAmountTotal paid : settlementPaymentRepository.sumPaidByPayer(groupId)) {
+            balancesByCurrency.computeIfAbsent(paid.getCurrencyCode(), c -> new HashMap<>())
+                    .merge(paid.getUserId(), paid.getTotal(), BigDecimal::add);
+        }
+        for (UserCurrencyAmountTotal received : settlementPaymentRepository.sumReceivedByPayee(groupId)) {
+            balancesByCurrency.computeIfAbsent(received.getCurrencyCode(), c -> new HashMap<>())
+                    .merge(received.getUserId(), received.getTotal().negate(), BigDecimal::add);
         }
-        return netBalances;
+        return balancesByCurrency;
     }
 }
@@ -0,0 +1,261 @@
+package com.grouppay.settlement.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.domain.BalanceDelta;
+import com.grouppay.settlement.domain.BalancePoint;
+import com.grouppay.settlement.infrastructure.BalanceDeltaRepository;
+import com.grouppay.settlement.infrastructure.BalanceDeltaRow;
+import com.grouppay.shared.util.MinorUnits;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Answers "what was this user's balance at time T" from the {@link BalanceDelta} log.
+ * <p>
+ * Per group, the log is turned into one series per (user, currency): event times and the running total
+ * after each event, in minor units. A point query is then a binary search, and a chart series of N points
+ * is N binary searches, however long the group's history is.
+ * </p>
+ * <p>
+ * Series are cached per group (up to {@code grouppay.balance.history.max-cached-groups}). Each read checks
+ * the log's max id and row count: if new rows were appended only after the cached ones, just those are
+ * read and added; anything else (e.g. a row with a lower id committed late) reloads the whole group.
+ * </p>
+ */
+@Service
+public class BalanceHistoryService {
+
+    private final BalanceDeltaRepository balanceDeltaRepository;
+    private final GroupRepository groupRepository;
+    private final Cache<Long, GroupHistory> histories;
+    private final int defaultPoints;
+    private final int maxPoints;
+
+    public BalanceHistoryService(BalanceDeltaRepository balanceDeltaRepository,
+                                 GroupRepository groupRepository,
+                                 @Value("${grouppay.balance.history.max-cached-groups:1000}") long maxCachedGroups,
+                                 @Value("${grouppay.balance.history.default-points:100}") int defaultPoints,
+                                 @Value("${grouppay.balance.history.max-points:1000}") int maxPoints) {
+        this.balanceDeltaRepository = balanceDeltaRepository;
+        this.groupRepository = groupRepository;
+        this.histories = Caffeine.newBuilder().maximumSize(maxCachedGroups).build();
+        this.defaultPoints = defaultPoints;
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Returns the user's balance in the group at {@code at}, per currency.
+     * Currencies the user had no activity in before {@code at} are omitted.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getBalanceAsOf(Long groupId, Long userId, LocalDateTime at) {
+        long atMillis = toMillis(at);
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        history(groupId).seriesOf(userId).forEach((currencyCode, series) -> {
+            int index = series.indexAt(atMillis);
+            if (index >= 0) {
+                balances.put(currencyCode, MinorUnits.toAmount(series.cumulative[index]));
+            }
+        });
+        return balances;
+    }
+
+    /**
+     * Returns the user's balance in the group sampled at evenly spaced times from {@code from} to {@code to}
+     * (both included), per currency.
+     *
+     * @param from   Start of the range; defaults to the user's first balance change in the group.
+     * @param to     End of the range; defaults to now.
+     * @param points Number of samples; defaults to {@code grouppay.balance.history.default-points} and is
+     *               capped at {@code grouppay.balance.history.max-points}.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<BalancePoint>> getBalanceSeries(Long groupId, Long userId, LocalDateTime from,
+                                                           LocalDateTime to, Integer points) {
+        int count = points == null ? defaultPoints : Math.min(points, maxPoints);
+        if (count < 1) {
+            throw new IllegalArgumentException("points must be at least 1");
+        }
+        Map<String, Series> userSeries = history(groupId).seriesOf(userId);
+        long toMillis = toMillis(to != null ? to : LocalDateTime.now());
+        long fromMillis = from != null ? toMillis(from) : userSeries.values().stream()
+                .mapToLong(s -> s.times[0])
+                .min()
+                .orElse(toMillis);
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        long[] sampleTimes = new long[count];
+        for (int i = 0; i < count; i++) {
+            sampleTimes[i] = count == 1 ? toMillis : fromMillis + (toMillis - fromMillis) * i / (count - 1);
+        }
+
+        Map<String, List<BalancePoint>> result = new TreeMap<>();
+        userSeries.forEach((currencyCode, series) -> {
+            List<BalancePoint> samples = new ArrayList<>(count);
+            for (long time : sampleTimes) {
+                int index = series.indexAt(time);
+                long balance = index >= 0 ? series.cumulative[index] : 0;
+                samples.add(new BalancePoint(toDateTime(time), MinorUnits.toAmount(balance)));
+            }
+            result.put(currencyCode, samples);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the group's history, bringing the cached copy up to date with the log first.
+     */
+    private GroupHistory history(Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            throw new RuntimeException("Group not found");
+        }
+        Object[] stats = balanceDeltaRepository.findGroupStats(groupId).get(0);
+        long maxId = ((Number) stats[0]).longValue();
+        long rowCount = ((Number) stats[1]).longValue();
+
+        GroupHistory cached = histories.getIfPresent(groupId);
+        if (cached != null && cached.lastId == maxId && cached.rowCount == rowCount) {
+            return cached;
+        }
+
+        GroupHistory fresh = null;
+        if (cached != null && cached.lastId <= maxId) {
+            List<BalanceDeltaRow> appended = balanceDeltaRepository.findGroupDeltasAfter(groupId, cached.lastId);
+            if (cached.rowCount + appended.size() == rowCount) {
+                fresh = cached.append(appended);
+            }
+        }
+        if (fresh == null) {
+            fresh = GroupHistory.EMPTY.append(balanceDeltaRepository.findGroupDeltasAfter(groupId, 0));
+        }
+        // Concurrent readers may build different versions; never replace a newer one with an older one
+        return histories.asMap().merge(groupId, fresh, (old, built) -> built.lastId >= old.lastId ? built : old);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Immutable snapshot of a group's log up to {@code lastId}, as one {@link Series} per (user, currency).
+     */
+    private static final class GroupHistory {
+
+        static final GroupHistory EMPTY = new GroupHistory(0, 0, Map.of());
+
+        final long lastId;
+        final long rowCount;
+        final Map<Long, Map<String, Series>> seriesByUser;
+
+        GroupHistory(long lastId, long rowCount, Map<Long, Map<String, Series>> seriesByUser) {
+            this.lastId = lastId;
+            this.rowCount = rowCount;
+            this.seriesByUser = seriesByUser;
+        }
+
+        Map<String, Series> seriesOf(Long userId) {
+            return seriesByUser.getOrDefault(userId, Map.of());
+        }
+
+        /**
+         * @param rows Rows with ids above {@link #lastId}, in id order.
+         * @return A new snapshot including the rows; series untouched by them are shared with this one.
+         */
+        GroupHistory append(List<BalanceDeltaRow> rows) {
+            if (rows.isEmpty()) {
+                return this;
+            }
+            Map<Long, Map<String, Series.Builder>> builders = new HashMap<>();
+            for (BalanceDeltaRow row : rows) {
+                builders.computeIfAbsent(row.getUserId(), u -> new HashMap<>())
+                        .computeIfAbsent(row.getCurrencyCode(), c -> new Series.Builder(seriesOf(row.getUserId()).get(c)))
+                        .add(toMillis(row.getCreatedAt()), MinorUnits.of(row.getAmount()));
+            }
+            Map<Long, Map<String, Series>> merged = new HashMap<>(seriesByUser);
+            builders.forEach((userId, byCurrency) -> {
+                Map<String, Series> userSeries = new HashMap<>(seriesOf(userId));
+                byCurrency.forEach((currencyCode, builder) -> userSeries.put(currencyCode, builder.build()));
+                merged.put(userId, Map.copyOf(userSeries));
+            });
+            return new GroupHistory(rows.get(rows.size() - 1).getId(), rowCount + rows.size(), Map.copyOf(merged));
+        }
+    }
+
+    /**
+     * Event times (epoch millis, non-decreasing) and the running balance after each event (minor units).
+     */
+    private static final class Series {
+
+        final long[] times;
+        final long[] cumulative;
+
+        Series(long[] times, long[] cumulative) {
+            this.times = times;
+            this.cumulative = cumulative;
+        }
+
+        /**
+         * @return Index of the last event at or before {@code time}, or -1 if there is none.
+         */
+        int indexAt(long time) {
+            int low = 0;
+            int high = times.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        static final class Builder {
+            private long[] times;
+            private long[] cumulative;
+            private int size;
+
+            Builder(Series base) {
+                this.times = base != null ? Arrays.copyOf(base.times, base.times.length + 8) : new long[8];
+                this.cumulative = base != null ? Arrays.copyOf(base.cumulative, base.cumulative.length + 8) : new long[8];
+                this.size = base != null ? base.times.length : 0;
+            }
+
+            void add(long time, long amount) {
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                    cumulative = Arrays.copyOf(cumulative, size * 2);
+                }
+                // Clamp so a clock step backwards cannot break the binary search
+                times[size] = size > 0 ? Math.max(times[size - 1], time) : time;
+                cumulative[size] = size > 0 ? cumulative[size - 1] + amount : amount;
+                size++;
+            }
+
+            Series build() {
+                return new Series(Arrays.copyOf(times, size), Arrays.copyOf(cumulative, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.domain.BalanceDelta;
+import com.grouppay.settlement.domain.BalanceDeltaReason;
+import com.grouppay.settlement.domain.BalancesChangedEvent;
+import com.grouppay.settlement.domain.GroupBalance;
+import com.grouppay.settlement.infrastructure.BalanceDeltaRepository;
+import com.grouppay.settlement.infrastructure.GroupBalanceRepository;
+import com.grouppay.settlement.infrastructure.GroupCurrencyAmountTotal;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.shared.util.MinorUnits;
+import com.grouppay.user.infrastructure.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the persisted per-group balances ({@link GroupBalance}) in step with expenses and payments.
+ * There is one row per (group, user, currency); amounts in different currencies are never mixed.
+ * <p>
+ * Writers hand in the balance change (delta) their write causes, and only the affected rows are updated.
+ * Reading a group's balances is therefore one indexed query over O(members) rows, and reading a single
+ * user's balance is one row, instead of replaying every expense through {@link BalanceCalculationService}.
+ * </p>
+ * <p>
+ * Groups created before the ledger are initialized lazily: the first write or balance read rebuilds the group's rows from
+ * {@link BalanceCalculationService#calculateNetBalances(Long)} and stamps
+ * {@link com.grouppay.group.domain.Group#getBalancesInitializedAt()}. The stamp, not the presence of rows,
+ * marks a group as built, so a group with no balances at all is rebuilt only once. The group listing
+ * ({@link #getUserBalancesInGroups}) never rebuilds; it stays a read-only transaction.
+ * </p>
+ * <p>
+ * Every write also appends one {@link BalanceDelta} row per affected user. That log is never updated, so
+ * {@link BalanceHistoryService} can answer "balance as of T" from it long after the ledger rows moved on.
+ * The newest delta is also recorded on the group ({@link GroupActivityWriter}) to order the group listing.
+ * </p>
+ * <p>
+ * Every write takes the group's {@link GroupWriteLocks} stripe until its transaction completes. Deltas for
+ * one group are therefore applied one transaction at a time, in commit order, and a rebuild never
+ * interleaves with an increment.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerService {
+
+    private final GroupBalanceRepository groupBalanceRepository;
+    private final BalanceDeltaRepository balanceDeltaRepository;
+    private final BalanceCalculationService balanceCalculationService;
+    private final GroupRepository groupRepository;
+    private final GroupActivityWriter groupActivityWriter;
+    private final UserRepository userRepository;
+    private final GroupWriteLocks groupWriteLocks;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Returns the current net balance of every user in the group, per currency.
+     *
+     * @param groupId The ID of the group.
+     * @return A map of Currency Code to (User ID to their Net Balance).
+     */
+    @Transactional
+    public Map<String, Map<Long, BigDecimal>> getBalances(Long groupId) {
+        ensureInitialized(groupId);
+        Map<String, Map<Long, BigDecimal>> balances = new HashMap<>();
+        for (UserCurrencyAmountTotal row : groupBalanceRepository.findBalancesByGroupId(groupId)) {
+            balances.computeIfAbsent(row.getCurrencyCode(), c -> new HashMap<>()).put(row.getUserId(), row.getTotal());
+        }
+        return balances;
+    }
+
+    /**
+     * Same as {@link #getBalances(Long)}, with balances in minor units keyed by primitive user id,
+     * for callers that feed them straight into the settlement algorithm.
+     *
+     * @param groupId The ID of the group.
+     * @return A map of Currency Code to (User ID to their Net Balance in minor units).
+     */
+    @Transactional
+    public Map<String, LongLongHashMap> getBalancesInMinorUnits(Long groupId) {
+        ensureInitialized(groupId);
+        Map<String, LongLongHashMap> balances = new HashMap<>();
+        for (UserCurrencyAmountTotal row : groupBalanceRepository.findBalancesByGroupId(groupId)) {
+            balances.computeIfAbsent(row.getCurrencyCode(), c -> new LongLongHashMap())
+                    .put(row.getUserId(), MinorUnits.of(row.getTotal()));
+        }
+        return balances;
+    }
+
+    /**
+     * Returns all of one user's ledger rows across their groups: one row per (group, currency).
+     * <p>
+     * Costs one indexed query however many groups the user is in; only groups whose ledger was
+     * never built are rebuilt first.
+     * </p>
+     */
+    @Transactional
+    public List<UserCurrencyAmountTotal> getUserBalances(Long userId) {
+        rebuildAll(groupBalanceRepository.findUninitializedGroupIdsForUser(userId));
+        return groupBalanceRepository.findBalancesByUserId(userId);
+    }
+
+    /**
+     * Returns the ledger rows of every member of every group {@code userId} belongs to: one row per
+     * (group, member, currency), with the group left out. Input for netting across groups.
+     */
+    @Transactional
+    public List<UserCurrencyAmountTotal> getBalancesInGroupsOf(Long userId) {
+        rebuildAll(groupBalanceRepository.findUninitializedGroupIdsForUser(userId));
+        return groupBalanceRepository.findBalancesInGroupsOfUser(userId);
+    }
+
+    /**
+     * Returns one user's balances in the given groups: Group ID -> Currency Code -> balance.
+     * Groups where the user has no balance are absent.
+     * <p>
+     * Read-only: one indexed query over the ledger rows. Groups whose ledger was never built are not rebuilt
+     * here; their balances are computed from expenses and payments instead, and the ledger is built by the
+     * group's next write. New groups start built, so this only concerns groups older than the ledger.
+     * </p>
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, BigDecimal>> getUserBalancesInGroups(Long userId, Collection<Long> groupIds) {
+        Map<Long, Map<String, BigDecimal>> balances = new HashMap<>();
+        if (groupIds.isEmpty()) {
+            return balances;
+        }
+        for (GroupCurrencyAmountTotal row : groupBalanceRepository.findBalancesOfUserInGroups(userId, groupIds)) {
+            balances.computeIfAbsent(row.getGroupId(), g -> new HashMap<>()).put(row.getCurrencyCode(), row.getTotal());
+        }
+        for (Long groupId : groupBalanceRepository.findUninitializedGroupIdsForUser(userId)) {
+            if (!groupIds.contains(groupId)) {
+                continue;
+            }
+            Map<String, BigDecimal> computed = new HashMap<>();
+            balanceCalculationService.calculateNetBalances(groupId).forEach((currencyCode, byUser) -> {
+                BigDecimal balance = byUser.get(userId);
+                if (balance != null) {
+                    computed.put(currencyCode, balance);
+                }
+            });
+            balances.remove(groupId);
+            if (!computed.isEmpty()) {
+                balances.put(groupId, computed);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Applies the balance change caused by a newly saved expense.
+     * The payer is credited the full amount and every split user is debited their share.
+     */
+    @Transactional
+    public void recordExpense(Expense expense) {
+        applyDeltas(expense.getGroup().getId(), expense.getCurrencyCode(), BalanceDeltaReason.EXPENSE,
+                expenseDeltas(expense));
+    }
+
+    /**
+     * Reverts the balance change of an expense that is about to be deleted.
+     * Must be called while the expense still exists, so a lazy rebuild still counts it before it is reverted.
+     */
+    @Transactional
+    public void reverseExpense(Expense expense) {
+        reverseExpense(expense.getGroup().getId(), expense.getCurrencyCode(), expenseDeltas(expense));
+    }
+
+    /**
+     * Reverts the balance change of an expense that is about to be deleted, given the change it made
+     * (payer credited, split users debited) rather than the entity. Same precondition as
+     * {@link #reverseExpense(Expense)}.
+     */
+    @Transactional
+    public void reverseExpense(Long groupId, String currencyCode, Map<Long, BigDecimal> expenseDeltas) {
+        ensureInitialized(groupId);
+        Map<Long, BigDecimal> reversed = new HashMap<>(expenseDeltas);
+        reversed.replaceAll((userId, amount) -> amount.negate());
+        applyDeltas(groupId, currencyCode, BalanceDeltaReason.EXPENSE_DELETED, reversed);
+    }
+
+    /**
+     * Applies a payment of {@code amount} (in {@code currencyCode}) from {@code payerId} to {@code payeeId}.
+     */
+    @Transactional
+    public void recordPayment(Long groupId, String currencyCode, Long payerId, Long payeeId, BigDecimal amount) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(payerId, amount, BigDecimal::add);
+        deltas.merge(payeeId, amount.negate(), BigDecimal::add);
+        applyDeltas(groupId, currencyCode, BalanceDeltaReason.PAYMENT, deltas);
+    }
+
+    /**
+     * Adds each delta to the matching ledger row, creating rows for users seen for the first time.
+     * <p>
+     * The caller must already have written the change to its source table (expenses, splits, payments):
+     * if the group has not been initialized yet, the rebuild reads the source tables and already
+     * includes the change, so the delta itself is skipped. The change is appended to the delta log either way,
+     * and a {@link BalancesChangedEvent} is published.
+     * </p>
+     *
+     * @param groupId      The ID of the group.
+     * @param currencyCode The currency all deltas are in.
+     * @param reason       What caused the change, recorded in the delta log.
+     * @param deltas       User ID -> amount to add to their balance (negative to debit).
+     */
+    @Transactional
+    public void applyDeltas(Long groupId, String currencyCode, BalanceDeltaReason reason, Map<Long, BigDecimal> deltas) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        List<BalanceDelta> logged = appendToLog(groupId, currencyCode, reason, deltas);
+        if (!logged.isEmpty()) {
+            BalanceDelta latest = logged.get(logged.size() - 1);   // IDENTITY ids are assigned in save order
+            groupActivityWriter.recordActivity(groupId, latest.getId(), latest.getCreatedAt());
+        }
+        eventPublisher.publishEvent(new BalancesChangedEvent(groupId));
+        if (!groupRepository.existsByIdAndBalancesInitializedAtIsNotNull(groupId)) {
+            rebuild(groupId);
+            return;
+        }
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            if (groupBalanceRepository.addToBalance(groupId, delta.getKey(), currencyCode, delta.getValue()) == 0) {
+                insertRow(groupId, delta.getKey(), currencyCode, delta.getValue());
+            }
+        }
+    }
+
+    /**
+     * Discards the group's ledger rows and recomputes them from expenses and payments.
+     */
+    @Transactional
+    public void rebuild(Long groupId) {
+        groupWriteLocks.lockUntilCompletion(groupId);
+        groupBalanceRepository.deleteByGroupId(groupId);
+        balanceCalculationService.calculateNetBalances(groupId)
+                .forEach((currencyCode, balances) ->
+                        balances.forEach((userId, balance) -> insertRow(groupId, userId, currencyCode, balance)));
+        groupBalanceRepository.flush();
+        groupRepository.markBalancesInitialized(groupId);
+    }
+
+    /**
+     * Rebuilds several groups, taking all their write locks up front in stripe order so two readers
+     * rebuilding overlapping groups cannot deadlock.
+     */
+    private void rebuildAll(List<Long> groupIds) {
+        if (groupIds.isEmpty()) {
+            return;
+        }
+        groupWriteLocks.lockAllUntilCompletion(groupIds);
+        groupIds.forEach(this::rebuild);
+    }
+
+    private void ensureInitialized(Long groupId) {
+        if (!groupRepository.existsByIdAndBalancesInitializedAtIsNotNull(groupId)) {
+            rebuild(groupId);
+        }
+    }
+
+    private List<BalanceDelta> appendToLog(Long groupId, String currencyCode, BalanceDeltaReason reason, Map<Long, BigDecimal> deltas) {
+        List<BalanceDelta> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            if (delta.getValue().signum() == 0) {
+                continue;
+            }
+            rows.add(BalanceDelta.builder()
+                    .group(groupRepository.getReferenceById(groupId))
+                    .user(userRepository.getReferenceById(delta.getKey()))
+                    .currencyCode(currencyCode)
+                    .amount(delta.getValue())
+                    .reason(reason)
+                    .build());
+        }
+        return balanceDeltaRepository.saveAll(rows);
+    }
+
+    private void insertRow(Long groupId, Long userId, String currencyCode, BigDecimal balance) {
+        groupBalanceRepository.save(GroupBalance.builder()
+                .group(groupRepository.getReferenceById(groupId))
+                .user(userRepository.getReferenceById(userId))
+                .currencyCode(currencyCode)
+                .balance(balance)
+                .build());
+    }
+
+    private Map<Long, BigDecimal> expenseDeltas(Expense expense) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(expense.getPaidBy().getId(), expense.getAmount(), BigDecimal::add);
+        for (ExpenseSplit split : expense.getSplits()) {
+            deltas.merge(split.getUser().getId(), split.getAmount().negate(), BigDecimal::add);
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,137 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.shared.util.LongLongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * The minimum cash flow greedy on primitive balances: repeatedly the largest debtor pays the largest
+ * creditor as much as both can settle. Every step settles at least one user, so N users with a non-zero
+ * balance need at most N - 1 transfers.
+ * <p>
+ * Balances are user id -> minor units in a {@link LongLongHashMap}, and both sides are kept in array-backed
+ * max-heaps, so a plan for N users costs O(N log N) with no per-user objects. Equal amounts are broken by
+ * ascending user id, so the same balances always give the same plan.
+ * </p>
+ */
+final class CashFlowMinimizer {
+
+    private CashFlowMinimizer() {
+    }
+
+    /**
+     * @param net  User ID -> balance in minor units (positive = is owed, negative = owes). Not modified.
+     * @param sink Receives each transfer in the order it is decided.
+     * @return Number of users with a non-zero balance.
+     */
+    static int minimize(LongLongHashMap net, TransferSink sink) {
+        MaxHeap creditors = new MaxHeap(net.size());
+        MaxHeap debtors = new MaxHeap(net.size());
+        net.forEach((userId, balance) -> {
+            if (balance > 0) {
+                creditors.push(userId, balance);
+            } else if (balance < 0) {
+                debtors.push(userId, -balance);
+            }
+        });
+        int members = creditors.size + debtors.size;
+
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            long creditorId = creditors.topId();
+            long credit = creditors.pop();
+            long debtorId = debtors.topId();
+            long debt = debtors.pop();
+            long amount = Math.min(credit, debt);
+
+            sink.accept(debtorId, creditorId, amount);
+            if (credit > amount) {
+                creditors.push(creditorId, credit - amount);
+            }
+            if (debt > amount) {
+                debtors.push(debtorId, debt - amount);
+            }
+        }
+        return members;
+    }
+
+    @FunctionalInterface
+    interface TransferSink {
+        void accept(long payerId, long payeeId, long amountMinorUnits);
+    }
+
+    /**
+     * Binary max-heap of (amount, user id) pairs on parallel primitive arrays.
+     */
+    private static final class MaxHeap {
+
+        private long[] amounts;
+        private long[] ids;
+        private int size;
+
+        MaxHeap(int capacity) {
+            this.amounts = new long[Math.max(1, capacity)];
+            this.ids = new long[Math.max(1, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long topId() {
+            return ids[0];
+        }
+
+        void push(long id, long amount) {
+            if (size == amounts.length) {
+                amounts = Arrays.copyOf(amounts, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!above(amount, id, amounts[parent], ids[parent])) {
+                    break;
+                }
+                amounts[i] = amounts[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            amounts[i] = amount;
+            ids[i] = id;
+        }
+
+        /**
+         * Removes the top entry.
+         *
+         * @return Its amount.
+         */
+        long pop() {
+            long top = amounts[0];
+            long amount = amounts[--size];
+            long id = ids[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && above(amounts[child + 1], ids[child + 1], amounts[child], ids[child])) {
+                    child++;
+                }
+                if (!above(amounts[child], ids[child], amount, id)) {
+                    break;
+                }
+                amounts[i] = amounts[child];
+                ids[i] = ids[child];
+                i = child;
+            }
+            amounts[i] = amount;
+            ids[i] = id;
+            return top;
+        }
+
+        private static boolean above(long amount, long id, long otherAmount, long otherId) {
+            return amount > otherAmount || (amount == otherAmount && id < otherId);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.settlement.domain.CrossGroupTransfer;
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.shared.util.MinorUnits;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Settles a user's debts across all their groups at once, instead of one plan per group.
+ * <p>
+ * Every member's balances in the user's groups are netted per currency (what A owes B in one group
+ * cancels what B owes A in another), and the minimum cash flow greedy of {@link MinimumCashFlowService}
+ * runs on the combined balances. Friends who share several groups then make at most one transfer per
+ * currency to each other.
+ * </p>
+ * <p>
+ * A power user's groups can hold thousands of members, so netting and matching run on primitive
+ * {@code long} ids and minor-unit amounts ({@link LongLongHashMap}, {@link CashFlowMinimizer}) rather than
+ * boxed maps.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class CrossGroupSettlementService {
+
+    private final BalanceLedgerService balanceLedgerService;
+
+    /**
+     * Computes the combined plan over all of the user's groups and returns the transfers the user takes part in.
+     * This is a preview only; payments are still recorded per group.
+     *
+     * @param userId ID of the user.
+     * @return The user's transfers, ordered by currency.
+     */
+    @Transactional
+    public List<CrossGroupTransfer> calculateForUser(Long userId) {
+        Map<String, LongLongHashMap> netByCurrency = new TreeMap<>();
+        for (UserCurrencyAmountTotal row : balanceLedgerService.getBalancesInGroupsOf(userId)) {
+            netByCurrency.computeIfAbsent(row.getCurrencyCode(), c -> new LongLongHashMap())
+                    .addTo(row.getUserId(), MinorUnits.of(row.getTotal()));
+        }
+
+        List<CrossGroupTransfer> transfers = new ArrayList<>();
+        netByCurrency.forEach((currencyCode, net) -> minimizeCashFlow(currencyCode, net, transfers));
+        return transfers.stream()
+                .filter(t -> t.payerId().equals(userId) || t.payeeId().equals(userId))
+                .toList();
+    }
+
+    /**
+     * Runs {@link CashFlowMinimizer} on one currency's netted balances and appends the resulting transfers.
+     */
+    static void minimizeCashFlow(String currencyCode, LongLongHashMap net, List<CrossGroupTransfer> transfers) {
+        CashFlowMinimizer.minimize(net, (payerId, payeeId, amount) ->
+                transfers.add(new CrossGroupTransfer(currencyCode, payerId, payeeId, MinorUnits.toAmount(amount))));
+    }
+}
@@ -0,0 +1,52 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Builds balances in Java by hydrating every {@link Expense} of the group and its {@link ExpenseSplit}s.
+ * <p>
+ * Simple and easy to debug, but loads O(expenses + splits) entities per call.
+ * Kept as the reference implementation for {@link SqlBalanceAggregator}.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class EntityBalanceAggregator implements BalanceAggregator {
+
+    private final ExpenseRepository expenseRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Map<Long, BigDecimal>> aggregate(Long groupId, LongConsumer expenseCount) {
+        List<Expense> expenses = expenseRepository.findByGroupId(groupId);
+        expenseCount.accept(expenses.size());
+        Map<String, Map<Long, BigDecimal>> balancesByCurrency = new HashMap<>();
+
+        for (Expense expense : expenses) {
+            Long payerId = expense.getPaidBy().getId();
+            Map<Long, BigDecimal> netBalances =
+                    balancesByCurrency.computeIfAbsent(expense.getCurrencyCode(), c -> new HashMap<>());
+
+            // 1. Credit the payer with the full amount
+            netBalances.merge(payerId, expense.getAmount(), BigDecimal::add);
+
+            // 2. Debit the borrowers (splits)
+            for (ExpenseSplit split : expense.getSplits()) {
+                Long borrowedById = split.getUser().getId();
+                netBalances.merge(borrowedById, split.getAmount().negate(), BigDecimal::add);
+            }
+        }
+        return balancesByCurrency;
+    }
+}
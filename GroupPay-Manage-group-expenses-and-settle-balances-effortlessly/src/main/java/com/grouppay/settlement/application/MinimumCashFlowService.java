@@ -1,10 +1,16 @@
 package com.grouppay.settlement.application;
 
 import com.grouppay.settlement.domain.Settlement;
-import com.grouppay.settlement.domain.UserBalance;
 import com.grouppay.group.domain.Group;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.shared.util.MetricTags;
+import com.grouppay.shared.util.MinorUnits;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -16,98 +22,125 @@ import java.util.*;
 public class MinimumCashFlowService {
 
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Calculates the minimum number of transactions required to settle debts.
      * <p>
-     * This uses a greedy algorithm to match the person with the maximum debt
-     * to the person with the maximum credit, repeatedly, until all balances are zero.
+     * Converts the balances to minor units and delegates to {@link #calculateSettlements(Group, String, LongLongHashMap)}.
      * </p>
      *
-     * @param group       The group context.
-     * @param netBalances The map of net balances (User ID -> Amount).
+     * @param group        The group context.
+     * @param currencyCode The currency of {@code netBalances}; every proposed transaction is in it.
+     * @param netBalances  The map of net balances (User ID -> Amount).
      * @return A list of proposed Settlement transactions.
      */
-    public List<Settlement> calculateSettlements(Group group, Map<Long, BigDecimal> netBalances) {
-        List<Settlement> settlements = new ArrayList<>();
-        List<UserBalance> balances = new ArrayList<>();
-
-        for (Map.Entry<Long, BigDecimal> entry : netBalances.entrySet()) {
-            if (entry.getValue().compareTo(BigDecimal.ZERO) != 0) {
-                balances.add(new UserBalance(entry.getKey(), entry.getValue()));
-            }
-        }
-
-        minCashFlowRec(balances, settlements, group);
-        return settlements;
+    public List<Settlement> calculateSettlements(Group group, String currencyCode, Map<Long, BigDecimal> netBalances) {
+        LongLongHashMap net = new LongLongHashMap(netBalances.size());
+        netBalances.forEach((userId, balance) -> net.put(userId, MinorUnits.of(balance)));
+        return calculateSettlements(group, currencyCode, net);
     }
 
     /**
-     * Recursive helper to execute the minimum cash flow algorithm.
+     * Calculates the minimum number of transactions required to settle debts.
      * <p>
-     * Logic:
-     * 1. Find max creditor (positive balance) and max debtor (negative balance).
-     * 2. Determine min amount of the two (abs value).
-     * 3. Process transaction: Debtor pays Creditor this min amount.
-     * 4. Update balances and recurse until 0.
+     * This uses a greedy algorithm to match the person with the maximum debt
+     * to the person with the maximum credit, repeatedly, until all balances are zero
+     * (see {@link CashFlowMinimizer}). The algorithm runs on primitive ids and minor units;
+     * users and amounts are only materialized for the resulting transactions, with one query for all users.
      * </p>
      *
-     * @param balances    List of mutable UserBalance objects.
-     * @param settlements Accumulator list for settlement transactions.
-     * @param group       The group context.
+     * @param group        The group context.
+     * @param currencyCode The currency of {@code netBalances}; every proposed transaction is in it.
+     * @param netBalances  User ID -> net balance in minor units.
+     * @return A list of proposed Settlement transactions.
      */
-    private void minCashFlowRec(List<UserBalance> balances, List<Settlement> settlements, Group group) {
-        if (balances.isEmpty()) return;
-
-        int maxCreditIndex = getMaxIndex(balances);
-        int maxDebitIndex = getMinIndex(balances);
+    public List<Settlement> calculateSettlements(Group group, String currencyCode, LongLongHashMap netBalances) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Transfers transfers = new Transfers(netBalances.size());
+        int members = CashFlowMinimizer.minimize(netBalances, transfers);
+
+        List<Settlement> settlements = toSettlements(group, currencyCode, transfers);
+
+        sample.stop(Timer.builder(AppConstants.METRIC_SETTLEMENT_CALCULATE)
+                .description("Time to compute a minimum cash flow settlement plan")
+                .tag("members", MetricTags.sizeBucket(members))
+                .register(meterRegistry));
+        DistributionSummary.builder(AppConstants.METRIC_SETTLEMENT_MEMBERS)
+                .description("Members with a non-zero balance entering the settlement algorithm")
+                .baseUnit("members")
+                .register(meterRegistry)
+                .record(members);
+        DistributionSummary.builder(AppConstants.METRIC_SETTLEMENT_TRANSACTIONS)
+                .description("Transactions emitted per settlement plan")
+                .baseUnit("transactions")
+                .register(meterRegistry)
+                .record(settlements.size());
+        return settlements;
+    }
 
-        if (balances.get(maxCreditIndex).getBalance().compareTo(BigDecimal.ZERO) == 0 &&
-            balances.get(maxDebitIndex).getBalance().compareTo(BigDecimal.ZERO) == 0) {
-            return;
+    private List<Settlement> toSettlements(Group group, String currencyCode, Transfers transfers) {
+        Set<Long> userIds = new HashSet<>();
+        for (int i = 0; i < transfers.size; i++) {
+            userIds.add(transfers.payers[i]);
+            userIds.add(transfers.payees[i]);
+        }
+        Map<Long, User> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
         }
 
-        BigDecimal minAmount = balances.get(maxCreditIndex).getBalance()
-                .min(balances.get(maxDebitIndex).getBalance().abs());
-
-        // Debtor pays Creditor
-        Long debtorId = balances.get(maxDebitIndex).getUserId();
-        Long creditorId = balances.get(maxCreditIndex).getUserId();
-
-        balances.get(maxCreditIndex).setBalance(balances.get(maxCreditIndex).getBalance().subtract(minAmount));
-        balances.get(maxDebitIndex).setBalance(balances.get(maxDebitIndex).getBalance().add(minAmount));
-
-        User payer = userRepository.findById(debtorId).orElseThrow();
-        User payee = userRepository.findById(creditorId).orElseThrow();
-
-        settlements.add(Settlement.builder()
-                .group(group)
-                .payer(payer)
-                .payee(payee)
-                .amount(minAmount)
-                .isSettled(false)
-                .build());
-
-        minCashFlowRec(balances, settlements, group);
+        List<Settlement> settlements = new ArrayList<>(transfers.size);
+        for (int i = 0; i < transfers.size; i++) {
+            settlements.add(Settlement.builder()
+                    .group(group)
+                    .payer(requireUser(users, transfers.payers[i]))
+                    .payee(requireUser(users, transfers.payees[i]))
+                    .amount(MinorUnits.toAmount(transfers.amounts[i]))
+                    .currencyCode(currencyCode)
+                    .isSettled(false)
+                    .build());
+        }
+        return settlements;
     }
 
-    private int getMaxIndex(List<UserBalance> balances) {
-        int maxInd = 0;
-        for (int i = 1; i < balances.size(); i++) {
-            if (balances.get(i).getBalance().compareTo(balances.get(maxInd).getBalance()) > 0) {
-                maxInd = i;
-            }
+    private static User requireUser(Map<Long, User> users, long userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NoSuchElementException("User " + userId + " not found");
         }
-        return maxInd;
+        return user;
     }
 
-    private int getMinIndex(List<UserBalance> balances) {
-        int minInd = 0;
-        for (int i = 1; i < balances.size(); i++) {
-            if (balances.get(i).getBalance().compareTo(balances.get(minInd).getBalance()) < 0) {
-                minInd = i;
+    /**
+     * Transfers decided by {@link CashFlowMinimizer}, kept in parallel arrays until they become entities.
+     */
+    private static final class Transfers implements CashFlowMinimizer.TransferSink {
+
+        private long[] payers;
+        private long[] payees;
+        private long[] amounts;
+        private int size;
+
+        Transfers(int capacity) {
+            // N users never need more than N - 1 transfers
+            int initial = Math.max(1, capacity);
+            this.payers = new long[initial];
+            this.payees = new long[initial];
+            this.amounts = new long[initial];
+        }
+
+        @Override
+        public void accept(long payerId, long payeeId, long amountMinorUnits) {
+            if (size == payers.length) {
+                payers = Arrays.copyOf(payers, size * 2);
+                payees = Arrays.copyOf(payees, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
             }
+            payers[size] = payerId;
+            payees[size] = payeeId;
+            amounts[size] = amountMinorUnits;
+            size++;
         }
-        return minInd;
     }
 }
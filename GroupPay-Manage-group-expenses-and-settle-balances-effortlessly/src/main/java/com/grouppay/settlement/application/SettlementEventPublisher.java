@@ -0,0 +1,65 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.event.SettlementCreatedEvent;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.shared.constants.AppConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Publishes settlement events to Kafka, keyed by group ID so a group's events stay ordered.
+ * Events are sent only after the surrounding transaction commits, so consumers never see rolled-back plans.
+ * The send runs on the committing thread; {@code max.block.ms} bounds how long it can wait on an unreachable
+ * broker, after which the event is dropped with a warning.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void publishSettlementsCreated(List<Settlement> settlements) {
+        List<SettlementCreatedEvent> events = settlements.stream()
+                .map(s -> SettlementCreatedEvent.builder()
+                        .settlementId(s.getId())
+                        .groupId(s.getGroup().getId())
+                        .batchVersion(s.getBatchVersion())
+                        .payerId(s.getPayer().getId())
+                        .payeeId(s.getPayee().getId())
+                        .amount(s.getAmount())
+                        .currencyCode(s.getCurrencyCode())
+                        .build())
+                .toList();
+        afterCommit(() -> events.forEach(this::send));
+    }
+
+    private void send(SettlementCreatedEvent event) {
+        kafkaTemplate.send(AppConstants.SETTLEMENT_CREATED_TOPIC, String.valueOf(event.getGroupId()), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Failed to publish settlement {} for group {}: {}",
+                                event.getSettlementId(), event.getGroupId(), ex.getMessage());
+                    }
+                });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,4 +1,167 @@
 package com.grouppay.settlement.application;
 
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.domain.NotificationType;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.settlement.domain.SettlementPayment;
+import com.grouppay.settlement.infrastructure.SettlementPaymentRepository;
+import com.grouppay.settlement.infrastructure.SettlementRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Service
 public class SettlementService {
+
+    private final SettlementRepository settlementRepository;
+    private final SettlementPaymentRepository settlementPaymentRepository;
+    private final GroupRepository groupRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final MinimumCashFlowService minimumCashFlowService;
+    private final SettlementEventPublisher settlementEventPublisher;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    public SettlementService(SettlementRepository settlementRepository,
+                             SettlementPaymentRepository settlementPaymentRepository,
+                             GroupRepository groupRepository,
+                             BalanceLedgerService balanceLedgerService,
+                             MinimumCashFlowService minimumCashFlowService,
+                             SettlementEventPublisher settlementEventPublisher,
+                             NotificationService notificationService,
+                             PlatformTransactionManager transactionManager) {
+        this.settlementRepository = settlementRepository;
+        this.settlementPaymentRepository = settlementPaymentRepository;
+        this.groupRepository = groupRepository;
+        this.balanceLedgerService = balanceLedgerService;
+        this.minimumCashFlowService = minimumCashFlowService;
+        this.settlementEventPublisher = settlementEventPublisher;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Computes the settle-up plan from the current balances and persists it as a new batch.
+     * <p>
+     * Debts are settled separately in each currency, so the batch holds one sub-plan per currency.
+     * Each call creates batch version N+1; earlier batches are kept for history and the
+     * highest version is the group's current plan. A {@code SettlementCreatedEvent} is
+     * published for every row once the transaction commits.
+     * </p>
+     *
+     * @param groupId The ID of the group to settle.
+     * @return The persisted settlements of the new batch.
+     */
+    @Transactional
+    public List<Settlement> createSettlementPlan(Long groupId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new RuntimeException("Group not found"));
+
+        List<Settlement> plan = new ArrayList<>();
+        new TreeMap<>(balanceLedgerService.getBalancesInMinorUnits(groupId)).forEach((currencyCode, netBalances) ->
+                plan.addAll(minimumCashFlowService.calculateSettlements(group, currencyCode, netBalances)));
+
+        int batchVersion = settlementRepository.findLatestBatchVersion(groupId).orElse(0) + 1;
+        plan.forEach(settlement -> settlement.setBatchVersion(batchVersion));
+
+        List<Settlement> saved = settlementRepository.saveAll(plan);
+        settlementEventPublisher.publishSettlementsCreated(saved);
+        return saved;
+    }
+
+    /**
+     * Returns the latest persisted plan of the group (empty if none was created yet).
+     */
+    @Transactional(readOnly = true)
+    public List<Settlement> getCurrentPlan(Long groupId) {
+        return settlementRepository.findLatestBatchVersion(groupId)
+                .map(version -> settlementRepository.findByGroupIdAndBatchVersion(groupId, version))
+                .orElse(List.of());
+    }
+
+    /**
+     * Records that the payer of a settlement has paid the payee.
+     * <p>
+     * Idempotent: repeating the call with the same idempotency key returns the already-settled row without
+     * recording a second payment, and a settlement that is already paid is never paid twice. The settlement
+     * row is locked before it is checked, so concurrent calls with different keys apply the payment to the
+     * balance ledger once. A concurrent call that loses the race to insert the same key gets the winner's
+     * result, read in a fresh transaction.
+     * </p>
+     *
+     * @param settlementId   The ID of the settlement being paid.
+     * @param idempotencyKey Client-generated key identifying this payment attempt.
+     * @return The settled Settlement.
+     * @throws IllegalArgumentException if the key is blank or was already used for another settlement.
+     */
+    public Settlement markPaid(Long settlementId, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key is required");
+        }
+        try {
+            return transactionTemplate.execute(status -> recordPayment(settlementId, idempotencyKey));
+        } catch (DataIntegrityViolationException e) {
+            // Unique idempotency key: a concurrent call with the same key committed its payment first
+            return transactionTemplate.execute(status -> settlementPaymentRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(payment -> paidWithKey(payment, settlementId))
+                    .orElseThrow(() -> e));
+        }
+    }
+
+    private Settlement recordPayment(Long settlementId, String idempotencyKey) {
+        Optional<SettlementPayment> existing = settlementPaymentRepository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            return paidWithKey(existing.get(), settlementId);
+        }
+
+        Settlement settlement = settlementRepository.findByIdForUpdate(settlementId)
+                .orElseThrow(() -> new RuntimeException("Settlement not found"));
+        if (settlement.isSettled()) {
+            return settlement;
+        }
+
+        settlementPaymentRepository.save(SettlementPayment.builder()
+                .settlement(settlement)
+                .group(settlement.getGroup())
+                .payer(settlement.getPayer())
+                .payee(settlement.getPayee())
+                .amount(settlement.getAmount())
+                .currencyCode(settlement.getCurrencyCode())
+                .idempotencyKey(idempotencyKey)
+                .build());
+
+        settlement.setSettled(true);
+        settlement.setSettledAt(LocalDateTime.now());
+
+        balanceLedgerService.recordPayment(settlement.getGroup().getId(), settlement.getCurrencyCode(),
+                settlement.getPayer().getId(), settlement.getPayee().getId(), settlement.getAmount());
+
+        notificationService.createNotification(
+                settlement.getPayee().getId(),
+                "Payment Received",
+                settlement.getPayer().getUsername() + " paid you " + settlement.getAmount() + " " + settlement.getCurrencyCode(),
+                NotificationType.PAYMENT
+        );
+
+        return settlement;
+    }
+
+    private static Settlement paidWithKey(SettlementPayment payment, Long settlementId) {
+        Settlement paid = payment.getSettlement();
+        if (!paid.getId().equals(settlementId)) {
+            throw new IllegalArgumentException("Idempotency key was already used for another settlement");
+        }
+        return paid;
+    }
 }
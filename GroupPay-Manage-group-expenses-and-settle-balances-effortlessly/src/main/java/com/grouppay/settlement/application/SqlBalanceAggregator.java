@@ -0,0 +1,50 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.expense.infrastructure.PayerCurrencyAmountTotal;
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Builds balances with two GROUP BY queries and no entity hydration.
+ * <p>
+ * <ul>
+ *     <li><b>Credit:</b> SUM(amount) from expenses, grouped by paid_by and currency.</li>
+ *     <li><b>Debit:</b> SUM(amount) from expense_splits joined to expenses, grouped by user_id and currency.</li>
+ * </ul>
+ * The database returns at most one row per member and currency per query, so the cost on the
+ * application side is O(members x currencies) regardless of how many expenses the group has.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class SqlBalanceAggregator implements BalanceAggregator {
+
+    private final ExpenseRepository expenseRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Map<Long, BigDecimal>> aggregate(Long groupId, LongConsumer expenseCount) {
+        Map<String, Map<Long, BigDecimal>> balancesByCurrency = new HashMap<>();
+
+        long expenses = 0;
+        for (PayerCurrencyAmountTotal paid : expenseRepository.sumPaidByUser(groupId)) {
+            balancesByCurrency.computeIfAbsent(paid.getCurrencyCode(), c -> new HashMap<>())
+                    .merge(paid.getUserId(), paid.getTotal(), BigDecimal::add);
+            expenses += paid.getExpenseCount();   // every expense has exactly one payer row
+        }
+        expenseCount.accept(expenses);
+        for (UserCurrencyAmountTotal owed : expenseRepository.sumOwedByUser(groupId)) {
+            balancesByCurrency.computeIfAbsent(owed.getCurrencyCode(), c -> new HashMap<>())
+                    .merge(owed.getUserId(), owed.getTotal().negate(), BigDecimal::add);
+        }
+        return balancesByCurrency;
+    }
+}
@@ -0,0 +1,56 @@
+package com.grouppay.settlement.domain;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.user.domain.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only balance log: the change to one user's balance caused by one event.
+ * <p>
+ * Written by {@link com.grouppay.settlement.application.BalanceLedgerService} alongside every ledger update
+ * and never modified, so a user's balance at time T is the sum of their rows with {@code createdAt <= T}.
+ * </p>
+ */
+@Entity
+@Table(name = "balance_deltas")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class BalanceDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private Group group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "currency_code", nullable = false, length = 3)
+    private String currencyCode;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BalanceDeltaReason reason;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
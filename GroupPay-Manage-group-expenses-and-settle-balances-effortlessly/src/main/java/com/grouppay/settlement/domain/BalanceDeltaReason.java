@@ -0,0 +1,7 @@
+package com.grouppay.settlement.domain;
+
+public enum BalanceDeltaReason {
+    EXPENSE,
+    EXPENSE_DELETED,
+    PAYMENT
+}
@@ -0,0 +1,10 @@
+package com.grouppay.settlement.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's balance at one point in time, as returned by the balance history endpoints.
+ */
+public record BalancePoint(LocalDateTime at, BigDecimal balance) {
+}
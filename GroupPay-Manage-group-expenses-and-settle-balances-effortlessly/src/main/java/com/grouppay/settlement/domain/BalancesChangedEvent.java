@@ -0,0 +1,9 @@
+package com.grouppay.settlement.domain;
+
+/**
+ * In-process application event: the ledger balances of {@code groupId} changed in the current transaction.
+ * Published by {@link com.grouppay.settlement.application.BalanceLedgerService}; listeners that react after
+ * commit see the new balances.
+ */
+public record BalancesChangedEvent(Long groupId) {
+}
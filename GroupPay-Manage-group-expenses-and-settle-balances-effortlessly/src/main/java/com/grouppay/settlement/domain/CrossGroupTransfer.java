@@ -0,0 +1,10 @@
+package com.grouppay.settlement.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * One transfer of a cross-group settle-up plan: {@code payerId} pays {@code payeeId} {@code amount}
+ * in {@code currencyCode}. Not tied to a group, so it is a proposal only and is never persisted.
+ */
+public record CrossGroupTransfer(String currencyCode, Long payerId, Long payeeId, BigDecimal amount) {
+}
@@ -0,0 +1,54 @@
+package com.grouppay.settlement.domain;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.user.domain.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running net balance of one user in one group, in one currency.
+ * <p>
+ * Maintained incrementally by {@link com.grouppay.settlement.application.BalanceLedgerService}
+ * whenever an expense or a payment is recorded, so reading balances never has to replay expenses.
+ * Positive = gets money, Negative = owes money.
+ * </p>
+ */
+@Entity
+@Table(name = "group_balances",
+        uniqueConstraints = @UniqueConstraint(name = "uk_group_balances_group_user_currency",
+                columnNames = {"group_id", "user_id", "currency_code"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class GroupBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private Group group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "currency_code", nullable = false, length = 3)
+    private String currencyCode;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -34,8 +34,17 @@ public class Settlement {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    @Builder.Default
+    @Column(name = "currency_code", nullable = false, length = 3)
+    private String currencyCode = com.grouppay.shared.constants.AppConstants.DEFAULT_CURRENCY; // Plans are computed per currency
+
     private boolean isSettled; // If the transaction has actually happened
 
+    @Column(name = "batch_version")
+    private Integer batchVersion; // Plan version this row belongs to; the highest version is the current plan
+
+    private LocalDateTime settledAt;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
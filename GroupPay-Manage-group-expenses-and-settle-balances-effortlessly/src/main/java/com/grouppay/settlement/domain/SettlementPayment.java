@@ -0,0 +1,58 @@
+package com.grouppay.settlement.domain;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.user.domain.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A payment actually made against a {@link Settlement}.
+ * The idempotency key is unique, so a retried "mark paid" call can never record the payment twice.
+ */
+@Entity
+@Table(name = "settlement_payments")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SettlementPayment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "settlement_id", nullable = false)
+    private Settlement settlement;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id", nullable = false)
+    private Group group;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payer_id", nullable = false)
+    private User payer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payee_id", nullable = false)
+    private User payee;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "currency_code", nullable = false, length = 3)
+    private String currencyCode;
+
+    @Column(nullable = false, unique = true)
+    private String idempotencyKey;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,27 @@
+package com.grouppay.settlement.infrastructure;
+
+import com.grouppay.settlement.domain.BalanceDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BalanceDeltaRepository extends JpaRepository<BalanceDelta, Long> {
+
+    // A group's log after a given id, in id order (served by idx_balance_deltas_group_id)
+    @Query("SELECT d.id AS id, d.user.id AS userId, d.currencyCode AS currencyCode, d.amount AS amount, " +
+            "d.createdAt AS createdAt FROM BalanceDelta d WHERE d.group.id = :groupId AND d.id > :afterId ORDER BY d.id")
+    List<BalanceDeltaRow> findGroupDeltasAfter(@Param("groupId") Long groupId, @Param("afterId") long afterId);
+
+    // [max id, row count] of a group's log; cheap freshness check for cached histories and settle-up plans
+    @Query("SELECT COALESCE(MAX(d.id), 0), COUNT(d) FROM BalanceDelta d WHERE d.group.id = :groupId")
+    List<Object[]> findGroupStats(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("DELETE FROM BalanceDelta d WHERE d.group.id = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+}
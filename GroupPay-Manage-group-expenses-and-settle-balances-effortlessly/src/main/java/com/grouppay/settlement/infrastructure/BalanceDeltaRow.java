@@ -0,0 +1,15 @@
+package com.grouppay.settlement.infrastructure;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of one {@link com.grouppay.settlement.domain.BalanceDelta} without its associations.
+ */
+public interface BalanceDeltaRow {
+    Long getId();
+    Long getUserId();
+    String getCurrencyCode();
+    BigDecimal getAmount();
+    LocalDateTime getCreatedAt();
+}
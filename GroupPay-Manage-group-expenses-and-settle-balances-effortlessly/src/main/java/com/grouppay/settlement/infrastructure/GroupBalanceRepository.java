@@ -0,0 +1,54 @@
+package com.grouppay.settlement.infrastructure;
+
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.settlement.domain.GroupBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GroupBalanceRepository extends JpaRepository<GroupBalance, Long> {
+
+    @Query("SELECT b.user.id AS userId, b.currencyCode AS currencyCode, b.balance AS total " +
+            "FROM GroupBalance b WHERE b.group.id = :groupId")
+    List<UserCurrencyAmountTotal> findBalancesByGroupId(@Param("groupId") Long groupId);
+
+    // One user's rows across all their groups (served by idx_group_balances_user)
+    @Query("SELECT b.user.id AS userId, b.currencyCode AS currencyCode, b.balance AS total " +
+            "FROM GroupBalance b WHERE b.user.id = :userId")
+    List<UserCurrencyAmountTotal> findBalancesByUserId(@Param("userId") Long userId);
+
+    // One user's rows in the given groups (served by idx_group_balances_user)
+    @Query("SELECT b.group.id AS groupId, b.currencyCode AS currencyCode, b.balance AS total FROM GroupBalance b " +
+            "WHERE b.user.id = :userId AND b.group.id IN :groupIds")
+    List<GroupCurrencyAmountTotal> findBalancesOfUserInGroups(@Param("userId") Long userId,
+                                                              @Param("groupIds") Collection<Long> groupIds);
+
+    // Every row of every group the user belongs to, across all currencies
+    @Query("SELECT b.user.id AS userId, b.currencyCode AS currencyCode, b.balance AS total FROM GroupBalance b " +
+            "WHERE b.group.id IN (SELECT m.group.id FROM GroupMember m WHERE m.user.id = :userId " +
+            "AND m.group.deletedAt IS NULL)")
+    List<UserCurrencyAmountTotal> findBalancesInGroupsOfUser(@Param("userId") Long userId);
+
+    // Groups of the user whose ledger has not been built yet (see Group.balancesInitializedAt)
+    @Query("SELECT m.group.id FROM GroupMember m WHERE m.user.id = :userId AND m.group.deletedAt IS NULL " +
+            "AND m.group.balancesInitializedAt IS NULL")
+    List<Long> findUninitializedGroupIdsForUser(@Param("userId") Long userId);
+
+    // Atomic in-place increment; returns 0 when the row does not exist yet
+    @Modifying
+    @Query("UPDATE GroupBalance b SET b.balance = b.balance + :delta, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.group.id = :groupId AND b.user.id = :userId AND b.currencyCode = :currencyCode")
+    int addToBalance(@Param("groupId") Long groupId, @Param("userId") Long userId,
+                     @Param("currencyCode") String currencyCode, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("DELETE FROM GroupBalance b WHERE b.group.id = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+}
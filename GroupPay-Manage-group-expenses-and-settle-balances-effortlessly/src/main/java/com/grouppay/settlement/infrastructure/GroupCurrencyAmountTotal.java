@@ -0,0 +1,12 @@
+package com.grouppay.settlement.infrastructure;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a per-group, per-currency amount, e.g. one user's ledger rows across several groups.
+ */
+public interface GroupCurrencyAmountTotal {
+    Long getGroupId();
+    String getCurrencyCode();
+    BigDecimal getTotal();
+}
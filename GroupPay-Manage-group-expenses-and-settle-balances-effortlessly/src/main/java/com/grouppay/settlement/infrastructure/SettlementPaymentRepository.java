@@ -0,0 +1,30 @@
+package com.grouppay.settlement.infrastructure;
+
+import com.grouppay.expense.infrastructure.UserCurrencyAmountTotal;
+import com.grouppay.settlement.domain.SettlementPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SettlementPaymentRepository extends JpaRepository<SettlementPayment, Long> {
+
+    Optional<SettlementPayment> findByIdempotencyKey(String idempotencyKey);
+
+    @Query("SELECT p.payer.id AS userId, p.currencyCode AS currencyCode, SUM(p.amount) AS total " +
+            "FROM SettlementPayment p WHERE p.group.id = :groupId GROUP BY p.payer.id, p.currencyCode")
+    List<UserCurrencyAmountTotal> sumPaidByPayer(@Param("groupId") Long groupId);
+
+    @Query("SELECT p.payee.id AS userId, p.currencyCode AS currencyCode, SUM(p.amount) AS total " +
+            "FROM SettlementPayment p WHERE p.group.id = :groupId GROUP BY p.payee.id, p.currencyCode")
+    List<UserCurrencyAmountTotal> sumReceivedByPayee(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("DELETE FROM SettlementPayment p WHERE p.group.id = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+}
@@ -1,14 +1,28 @@
 package com.grouppay.settlement.infrastructure;
 
 import com.grouppay.settlement.domain.Settlement;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SettlementRepository extends JpaRepository<Settlement, Long> {
     List<Settlement> findByGroupId(Long groupId);
     List<Settlement> findByPayerId(Long payerId);
     List<Settlement> findByPayeeId(Long payeeId);
+    List<Settlement> findByGroupIdAndBatchVersion(Long groupId, Integer batchVersion);
+
+    @Query("SELECT MAX(s.batchVersion) FROM Settlement s WHERE s.group.id = :groupId")
+    Optional<Integer> findLatestBatchVersion(@Param("groupId") Long groupId);
+
+    // Locked so two payments racing on the same settlement cannot both see it unpaid
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Settlement s WHERE s.id = :id")
+    Optional<Settlement> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,19 @@
+package com.grouppay.shared.concurrency;
+
+import org.springframework.dao.CannotAcquireLockException;
+
+/**
+ * Thrown when a {@link GroupWriteLocks} stripe stays held by another transaction of this instance for the
+ * whole lock timeout. Unlike a database lock timeout it is not retried: the holder is still running here,
+ * and waiting again would only keep the request thread blocked.
+ */
+public class GroupLockTimeoutException extends CannotAcquireLockException {
+
+    public GroupLockTimeoutException(String message) {
+        super(message);
+    }
+
+    public GroupLockTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,108 @@
+package com.grouppay.shared.concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-group write locks that serialize ledger writes for the same group within this instance.
+ * <p>
+ * A lock taken inside a transaction is released only after that transaction completes (commit or
+ * rollback). The next writer therefore sees the previous writer's committed rows, and two writers can
+ * never both insert the first ledger row for a user, or rebuild a group while another writer updates it.
+ * Groups share a fixed number of locks (stripes), so memory stays bounded however many groups exist.
+ * Hot writers should take the lock before their first read. Under REPEATABLE READ the transaction
+ * snapshot then starts after the previous writer has committed.
+ * </p>
+ * <p>
+ * A transaction that needs several groups must take them with {@link #lockAllUntilCompletion(Collection)}.
+ * Different groups can share a stripe, so locking them one by one in group id order can still take two
+ * stripes in opposite orders in two transactions.
+ * </p>
+ * Across instances the database row locks and unique keys still apply. Conflicts surface as
+ * {@link org.springframework.dao.ConcurrencyFailureException}s that {@link TransactionRetryExecutor} retries.
+ */
+@Component
+public class GroupWriteLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    /**
+     * @param stripes Number of locks; rounded up to a power of two.
+     * @param timeout How long a writer waits before giving up with {@link GroupLockTimeoutException}.
+     */
+    public GroupWriteLocks(@Value("${grouppay.concurrency.group-lock-stripes:256}") int stripes,
+                           @Value("${grouppay.concurrency.group-lock-timeout:PT5S}") Duration timeout) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Locks the group's stripe until the current transaction completes.
+     * Re-locking a group already held by this transaction does not block.
+     *
+     * @throws IllegalStateException     if no transaction synchronization is active.
+     * @throws GroupLockTimeoutException if the lock is not acquired within the timeout.
+     */
+    public void lockUntilCompletion(Long groupId) {
+        lock(stripeIndex(groupId), "group " + groupId);
+    }
+
+    /**
+     * Locks the stripes of several groups until the current transaction completes: each stripe once, in
+     * ascending stripe order, so two transactions locking overlapping sets cannot wait on each other.
+     * Groups locked this way can then be passed to {@link #lockUntilCompletion(Long)} without blocking.
+     *
+     * @throws IllegalStateException     if no transaction synchronization is active.
+     * @throws GroupLockTimeoutException if a lock is not acquired within the timeout; the stripes already
+     *                                   taken stay held until the transaction completes.
+     */
+    public void lockAllUntilCompletion(Collection<Long> groupIds) {
+        groupIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .forEach(stripe -> lock(stripe, "groups " + groupIds));
+    }
+
+    private void lock(int stripe, String target) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Group write lock requires an active transaction");
+        }
+        ReentrantLock lock = stripes[stripe];
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new GroupLockTimeoutException("Timed out waiting for write lock on " + target);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GroupLockTimeoutException("Interrupted waiting for write lock on " + target, e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    boolean isHeldByCurrentThread(Long groupId) {
+        return stripes[stripeIndex(groupId)].isHeldByCurrentThread();
+    }
+
+    int stripeIndex(Long groupId) {
+        long h = groupId * 0x9E3779B97F4A7C15L;   // spread sequential ids across stripes
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+}
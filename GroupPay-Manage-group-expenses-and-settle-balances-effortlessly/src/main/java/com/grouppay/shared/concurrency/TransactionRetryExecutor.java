@@ -0,0 +1,86 @@
+package com.grouppay.shared.concurrency;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and retries it when it loses a concurrency race
+ * (optimistic version conflict, lock timeout, deadlock victim).
+ * <p>
+ * The whole transaction is retried, so every attempt re-reads fresh state. Between attempts the caller
+ * sleeps for a random time between 0 and an exponentially growing cap ("full jitter"). This keeps
+ * writers that collided once from colliding again in lockstep.
+ * </p>
+ * A {@link GroupLockTimeoutException} is not retried.
+ * If called inside an existing transaction, the work joins it and a conflict is not retried here,
+ * because only the outermost transaction can be retried safely.
+ */
+@Slf4j
+@Component
+public class TransactionRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter retries;
+
+    public TransactionRetryExecutor(PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${grouppay.concurrency.retry.max-attempts:5}") int maxAttempts,
+                                    @Value("${grouppay.concurrency.retry.base-backoff:PT0.01S}") Duration baseBackoff,
+                                    @Value("${grouppay.concurrency.retry.max-backoff:PT0.5S}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.retries = Counter.builder(AppConstants.METRIC_TX_RETRIES)
+                .description("Transactions retried after a concurrency conflict")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return The result of the first attempt that commits.
+     * @throws ConcurrencyFailureException if the last attempt still conflicts.
+     */
+    public <T> T execute(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                // A local lock timeout means a writer here held the group for the whole timeout already
+                if (e instanceof GroupLockTimeoutException || attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                log.debug("Concurrency conflict on attempt {}/{}, retrying: {}", attempt, maxAttempts, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyFailureException("Interrupted while backing off", e);
+        }
+    }
+}
@@ -1,4 +1,40 @@
 package com.grouppay.shared.constants;
 
 public class AppConstants {
+
+    private AppConstants() {
+    }
+
+    // Kafka topics
+    public static final String SETTLEMENT_CREATED_TOPIC = "settlement-created";
+    public static final String EXPENSE_DELETED_TOPIC = "expense-deleted";
+    // Records that cannot be consumed go to <topic>-dlt
+    public static final String DEAD_LETTER_TOPIC_SUFFIX = "-dlt";
+
+    // Currency of data recorded before expenses carried their own (see V3__multi_currency.sql)
+    public static final String DEFAULT_CURRENCY = "INR";
+
+    // Headers
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String PLAN_SOURCE_HEADER = "X-Settlement-Plan-Source";
+    public static final String PLAN_COMPUTED_AT_HEADER = "X-Settlement-Plan-Computed-At";
+
+    // Metrics (dots become underscores in the Prometheus exposition)
+    public static final String METRIC_EXPENSE_ADD = "grouppay.expense.add";
+    public static final String METRIC_BALANCE_CALCULATE = "grouppay.balance.calculate";
+    public static final String METRIC_BALANCE_EXPENSES = "grouppay.balance.expenses";
+    public static final String METRIC_SETTLEMENT_CALCULATE = "grouppay.settlement.calculate";
+    public static final String METRIC_SETTLEMENT_MEMBERS = "grouppay.settlement.members";
+    public static final String METRIC_SETTLEMENT_TRANSACTIONS = "grouppay.settlement.transactions";
+    public static final String METRIC_NOTIFICATION_FANOUT = "grouppay.notification.fanout";
+    public static final String METRIC_TX_RETRIES = "grouppay.tx.retries";
+    public static final String METRIC_IDEMPOTENCY_REQUESTS = "grouppay.idempotency.requests";
+    public static final String METRIC_SETTLEMENT_PLAN_READS = "grouppay.settlement.plan.reads";
+    public static final String METRIC_SETTLEMENT_PRECOMPUTE = "grouppay.settlement.precompute";
+    public static final String METRIC_GROUP_PURGE_ROWS = "grouppay.group.purge.rows";
+    public static final String METRIC_PASSWORD_HASHING = "grouppay.password.hashing";
+    public static final String METRIC_TOKEN_REVOCATION_CHECKS = "grouppay.token.revocation.checks";
+    public static final String METRIC_LOGIN_RATE_LIMIT = "grouppay.login.ratelimit";
+    public static final String METRIC_EVENT_BATCH = "grouppay.event.batch";
+    public static final String METRIC_EVENT_DEAD_LETTERS = "grouppay.event.dead.letters";
 }
@@ -7,6 +7,9 @@ import lombok.Data;
 @Builder
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Lifetime of the access token in seconds
+    private Long expiresIn;
     private Long userId;
     private String email;
 }
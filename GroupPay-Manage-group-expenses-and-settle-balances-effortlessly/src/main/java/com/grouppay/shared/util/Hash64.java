@@ -0,0 +1,31 @@
+package com.grouppay.shared.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fast, well-mixed 64-bit hash of a string for in-memory sketches (Bloom filters, count-min counters).
+ * Not cryptographic.
+ */
+public final class Hash64 {
+
+    private Hash64() {
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the murmur3 fmix64 avalanche so that both 32-bit
+     * halves are usable as independent hashes.
+     */
+    public static long of(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
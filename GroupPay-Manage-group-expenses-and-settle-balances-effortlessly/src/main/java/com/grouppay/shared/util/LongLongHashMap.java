@@ -0,0 +1,147 @@
+package com.grouppay.shared.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} to {@code long} with no boxing, for hot loops keyed by
+ * entity ids (e.g. summing balances of thousands of users).
+ * <p>
+ * Linear probing over power-of-two arrays, resized at 50% load. Absent keys read as 0, which suits
+ * accumulators. Not thread-safe.
+ * </p>
+ */
+public final class LongLongHashMap {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    // Key 0 marks an empty slot, so its entry is kept outside the arrays
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries to hold without resizing.
+     */
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasZeroKey : keys[slot(key)] == key;
+    }
+
+    /**
+     * @return The value for {@code key}, or 0 if absent.
+     */
+    public long get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : 0L;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : 0L;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value;
+                resize();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key}, inserting it with value {@code delta} if absent.
+     *
+     * @return The new value.
+     */
+    public long addTo(long key, long delta) {
+        long value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Calls {@code consumer} for every entry, in no particular order.
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * @return The slot holding {@code key}, or the empty slot where it would be inserted.
+     */
+    private int slot(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // Sequential ids would cluster under linear probing without scrambling the bits first
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
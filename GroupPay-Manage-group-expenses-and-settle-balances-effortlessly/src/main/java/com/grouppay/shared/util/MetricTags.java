@@ -0,0 +1,27 @@
+package com.grouppay.shared.util;
+
+/**
+ * Helpers for building low-cardinality Micrometer tag values.
+ */
+public final class MetricTags {
+
+    private MetricTags() {
+    }
+
+    /**
+     * Buckets a size (split count, member count, ...) so it can be used as a tag without
+     * creating one time series per distinct value.
+     *
+     * @param size The observed size.
+     * @return One of {@code 0}, {@code 1}, {@code 2-5}, {@code 6-20}, {@code 21-100}, {@code 101-1000}, {@code 1000+}.
+     */
+    public static String sizeBucket(long size) {
+        if (size <= 0) return "0";
+        if (size == 1) return "1";
+        if (size <= 5) return "2-5";
+        if (size <= 20) return "6-20";
+        if (size <= 100) return "21-100";
+        if (size <= 1000) return "101-1000";
+        return "1000+";
+    }
+}
@@ -0,0 +1,29 @@
+package com.grouppay.shared.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Converts money amounts to and from minor units (cents, paise) held in a {@code long}.
+ * Every amount column is DECIMAL(38, 2), so two decimal places cover all stored values.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount does not fit in a {@code long}.
+     */
+    public static long of(BigDecimal amount) {
+        // Stored amounts already have scale 2; moving the point of a compact value allocates no BigInteger
+        BigDecimal scaled = amount.scale() == SCALE ? amount : amount.setScale(SCALE, RoundingMode.HALF_EVEN);
+        return scaled.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
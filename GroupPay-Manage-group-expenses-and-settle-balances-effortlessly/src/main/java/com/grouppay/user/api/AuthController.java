@@ -1,15 +1,20 @@
 package com.grouppay.user.api;
 
+import com.grouppay.user.application.AuthTokenService;
 import com.grouppay.user.application.LoginUserService;
 import com.grouppay.user.application.PasswordResetService;
 import com.grouppay.user.application.RegisterUserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -18,8 +23,6 @@ public class AuthController {
     LoginUserService loginuserService;
     @Autowired
     RegisterUserService registerUserService;
-    @Autowired
-    com.grouppay.user.infrastructure.UserRepository userRepository;
 
     /**
      * Registers a new user.
@@ -30,15 +33,14 @@ public class AuthController {
      * @return Success message.
      */
     @PostMapping("/register")
-    public String register(
+    public CompletableFuture<String> register(
             @RequestParam String email, 
             @RequestParam String password, 
             @RequestParam String username,
             @RequestParam(required = false) Integer avatarId,
             @RequestParam(required = false) String currencyCode) {
-        registerUserService.register(email, password, username, avatarId, currencyCode);
-
-        return "User registered";
+        return registerUserService.register(email, password, username, avatarId, currencyCode)
+                .thenApply(registered -> "User registered");
     }
 
     /**
@@ -53,27 +55,45 @@ public class AuthController {
 
     // ... existing login method ...
     @PostMapping("/login")
-    public com.grouppay.shared.dto.AuthResponse login(@RequestParam String email, @RequestParam String password){
-        String token = loginuserService.login(email, password);
-        com.grouppay.user.domain.User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return com.grouppay.shared.dto.AuthResponse.builder()
-                .token(token)
-                .userId(user.getId())
-                .email(user.getEmail())
-                .build();
+    public CompletableFuture<com.grouppay.shared.dto.AuthResponse> login(@RequestParam String email, @RequestParam String password){
+        // Completes on the password hashing pool; the request thread is released meanwhile
+        return loginuserService.login(email, password);
+    }
+
+    @Autowired
+    AuthTokenService authTokenService;
+
+    /**
+     * Exchanges a refresh token for a new access / refresh token pair. The old refresh token stops working.
+     *
+     * @param refreshToken Refresh token from the login or the previous refresh.
+     * @return AuthResponse with the new tokens.
+     */
+    @PostMapping("/refresh")
+    public com.grouppay.shared.dto.AuthResponse refresh(@RequestParam String refreshToken) {
+        return authTokenService.refresh(refreshToken);
+    }
+
+    /**
+     * Revokes the refresh token and, when sent as a Bearer token, the current access token.
+     */
+    @PostMapping("/logout")
+    public String logout(@RequestParam(required = false) String refreshToken,
+                         @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        authTokenService.logout(refreshToken, accessToken);
+        return "Logged out";
     }
 
     @PostMapping("/forgot-password")
     public String forgotPassword(@RequestParam String email) {
-        // Returns token for development convenience
-        return passwordResetService.initiatePasswordReset(email);
+        passwordResetService.initiatePasswordReset(email);
+        return "If the email is registered, a password reset token has been sent to it";
     }
 
     @PostMapping("/reset-password")
-    public String resetPassword(@RequestParam String token, @RequestParam String newPassword) {
-        passwordResetService.resetPassword(token, newPassword);
-        return "Password reset successfully";
+    public CompletableFuture<String> resetPassword(@RequestParam String token, @RequestParam String newPassword) {
+        // Completes once the new password is hashed on the password hashing pool and stored
+        return passwordResetService.resetPassword(token, newPassword).thenApply(reset -> "Password reset successfully");
     }
 }
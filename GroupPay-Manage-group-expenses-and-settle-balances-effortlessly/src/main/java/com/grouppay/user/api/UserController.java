@@ -13,25 +13,28 @@ import org.springframework.security.core.Authentication;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final com.grouppay.group.infrastructure.GroupRepository groupRepository;
-    private final com.grouppay.settlement.application.BalanceCalculationService balanceCalculationService;
+    private final com.grouppay.settlement.application.BalanceLedgerService balanceLedgerService;
+    private final com.grouppay.currency.application.FxRateService fxRateService;
 
     /**
      * Get the current user's profile summary and global balances.
+     * <p>
+     * Ledger rows across all groups come back in one query, one row per group and currency. Each row is
+     * converted to the user's currency with a single FX table snapshot, so the cost does not grow with the
+     * number of currencies and every amount in the response uses the same rates version.
+     * </p>
      */
     @GetMapping("/me/summary")
     public ResponseEntity<UserSummaryDto> getMySummary(org.springframework.security.core.Authentication auth) {
         User user = userRepository.findByEmail(auth.getName()).orElseThrow();
-        
-        // Calculate balances across ALL groups
-        java.util.List<com.grouppay.group.domain.Group> userGroups = groupRepository.findByMembers_User_Id(user.getId());
+        com.grouppay.currency.domain.FxRateTable rates = fxRateService.current();
+
         java.math.BigDecimal totalYouOwe = java.math.BigDecimal.ZERO;
         java.math.BigDecimal totalOwedToYou = java.math.BigDecimal.ZERO;
 
-        for (com.grouppay.group.domain.Group group : userGroups) {
-            java.util.Map<Long, java.math.BigDecimal> groupBalances = balanceCalculationService.calculateNetBalances(group.getId());
-            java.math.BigDecimal userBalance = groupBalances.getOrDefault(user.getId(), java.math.BigDecimal.ZERO);
-            
+        for (com.grouppay.expense.infrastructure.UserCurrencyAmountTotal row : balanceLedgerService.getUserBalances(user.getId())) {
+            java.math.BigDecimal userBalance = rates.convert(row.getTotal(), row.getCurrencyCode(), user.getCurrencyCode());
+
             if (userBalance.compareTo(java.math.BigDecimal.ZERO) > 0) {
                 totalOwedToYou = totalOwedToYou.add(userBalance);
             } else {
@@ -49,6 +52,7 @@ public class UserController {
                 .totalYouOwe(totalYouOwe)
                 .totalOwedToYou(totalOwedToYou)
                 .netBalance(totalOwedToYou.subtract(totalYouOwe))
+                .fxRatesVersion(rates.getVersion())
                 .build());
     }
 
@@ -63,7 +67,12 @@ public class UserController {
         User user = userRepository.findByEmail(auth.getName()).orElseThrow();
         
         if (avatarId != null) user.setAvatarId(avatarId);
-        if (currencyCode != null) user.setCurrencyCode(currencyCode);
+        if (currencyCode != null) {
+            if (!fxRateService.supports(currencyCode)) {
+                throw new IllegalArgumentException("Unsupported currency: " + currencyCode);
+            }
+            user.setCurrencyCode(currencyCode);
+        }
         
         return ResponseEntity.ok(userRepository.save(user));
     }
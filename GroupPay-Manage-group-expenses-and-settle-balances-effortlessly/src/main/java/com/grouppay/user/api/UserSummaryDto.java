@@ -16,4 +16,5 @@ public class UserSummaryDto {
     private BigDecimal totalYouOwe;
     private BigDecimal totalOwedToYou;
     private BigDecimal netBalance;
+    private Long fxRatesVersion;
 }
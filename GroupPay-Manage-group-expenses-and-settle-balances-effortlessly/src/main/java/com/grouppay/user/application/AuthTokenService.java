@@ -0,0 +1,138 @@
+package com.grouppay.user.application;
+
+import com.grouppay.security.JwtUtil;
+import com.grouppay.security.OpaqueTokens;
+import com.grouppay.security.TokenRevocationList;
+import com.grouppay.shared.dto.AuthResponse;
+import com.grouppay.user.domain.RefreshToken;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.RefreshTokenRepository;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Issues short-lived access tokens together with long-lived, single-use refresh tokens.
+ * <p>
+ * A refresh token is 256 random bits; only its SHA-256 hash is stored. Every refresh revokes the presented
+ * token and returns a new pair. Presenting a token that was already rotated means it leaked (or the client
+ * retried a refresh that had succeeded), so all of the user's refresh tokens are revoked and they have to log
+ * in again.
+ * </p>
+ */
+@Slf4j
+@Service
+public class AuthTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList tokenRevocationList;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration refreshTokenTtl;
+
+    public AuthTokenService(RefreshTokenRepository refreshTokenRepository,
+                            UserRepository userRepository,
+                            JwtUtil jwtUtil,
+                            TokenRevocationList tokenRevocationList,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${grouppay.security.jwt.refresh-token-ttl:P30D}") Duration refreshTokenTtl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationList = tokenRevocationList;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    /**
+     * Issues a new access / refresh token pair, e.g. after a successful login.
+     */
+    public AuthResponse issue(Long userId, String email) {
+        return transactionTemplate.execute(status -> issuePair(userRepository.getReferenceById(userId), userId, email));
+    }
+
+    /**
+     * Exchanges a refresh token for a new pair. The presented token cannot be used again.
+     *
+     * @throws RuntimeException if the token is unknown, expired or was already used.
+     */
+    public AuthResponse refresh(String rawRefreshToken) {
+        Refreshed refreshed = transactionTemplate.execute(status -> {
+            RefreshToken token = refreshTokenRepository.findByTokenHashForUpdate(OpaqueTokens.hash(rawRefreshToken))
+                    .orElse(null);
+            if (token == null) {
+                return new Refreshed(null, "Invalid refresh token");
+            }
+            User user = token.getUser();
+            if (token.isRotated()) {
+                // Committed before the error is raised, so the family stays revoked
+                int revoked = refreshTokenRepository.revokeAllForUser(user.getId(), LocalDateTime.now());
+                log.warn("Reuse of a rotated refresh token for user {}; revoked {} active refresh tokens",
+                        user.getId(), revoked);
+                return new Refreshed(null, "Invalid refresh token");
+            }
+            if (token.getRevokedAt() != null) {
+                return new Refreshed(null, "Invalid refresh token");
+            }
+            if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
+                return new Refreshed(null, "Refresh token expired");
+            }
+            token.setRevokedAt(LocalDateTime.now());
+            token.setRotated(true);
+            return new Refreshed(issuePair(user, user.getId(), user.getEmail()), null);
+        });
+        if (refreshed.error() != null) {
+            throw new RuntimeException(refreshed.error());
+        }
+        return refreshed.response();
+    }
+
+    /**
+     * Ends a session: the refresh token can no longer be used and the access token, if given, is rejected
+     * from now on although it has not expired. Unknown or invalid tokens are ignored.
+     */
+    public void logout(String rawRefreshToken, String accessToken) {
+        if (rawRefreshToken != null) {
+            transactionTemplate.executeWithoutResult(status -> refreshTokenRepository
+                    .findByTokenHash(OpaqueTokens.hash(rawRefreshToken))
+                    .filter(token -> token.getRevokedAt() == null)
+                    .ifPresent(token -> token.setRevokedAt(LocalDateTime.now())));
+        }
+        if (accessToken != null) {
+            try {
+                JwtUtil.AccessToken parsed = jwtUtil.parse(accessToken);
+                tokenRevocationList.revoke(parsed.jti(), parsed.expiresAt());
+            } catch (JwtException e) {
+                log.debug("Logout with an invalid access token: {}", e.getMessage());
+            }
+        }
+    }
+
+    private AuthResponse issuePair(User user, Long userId, String email) {
+        String rawRefreshToken = OpaqueTokens.generate();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(OpaqueTokens.hash(rawRefreshToken))
+                .expiresAt(LocalDateTime.now().plus(refreshTokenTtl))
+                .build());
+
+        return AuthResponse.builder()
+                .token(jwtUtil.generateToken(email))
+                .refreshToken(rawRefreshToken)
+                .expiresIn(jwtUtil.getAccessTokenTtl().toSeconds())
+                .userId(userId)
+                .email(email)
+                .build();
+    }
+
+    private record Refreshed(AuthResponse response, String error) {
+    }
+}
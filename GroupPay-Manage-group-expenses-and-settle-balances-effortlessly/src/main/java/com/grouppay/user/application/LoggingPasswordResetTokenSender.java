@@ -0,0 +1,21 @@
+package com.grouppay.user.application;
+
+import com.grouppay.user.domain.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local development stand-in for a mail sender: writes the reset token to the application log.
+ * Only active in the {@code dev} profile, so no other deployment ever logs a usable token.
+ */
+@Slf4j
+@Component
+@Profile("dev")
+public class LoggingPasswordResetTokenSender implements PasswordResetTokenSender {
+
+    @Override
+    public void send(User user, String token) {
+        log.info("Password reset token for {}: {}", user.getEmail(), token);
+    }
+}
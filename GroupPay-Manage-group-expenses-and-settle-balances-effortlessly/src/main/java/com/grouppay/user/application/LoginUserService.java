@@ -1,34 +1,80 @@
 package com.grouppay.user.application;
 
 
-import com.grouppay.security.JwtUtil;
+import com.grouppay.security.PasswordHasher;
+import com.grouppay.shared.dto.AuthResponse;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class LoginUserService {
 
-    @Autowired
-    UserRepository repository;
-    @Autowired
-     JwtUtil jwtUtil;
-
-    @Autowired
-      PasswordEncoder encoder ;
-
-    public String login(String email,String password){
-
-        User user = repository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private final UserRepository repository;
+    private final AuthTokenService authTokenService;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
 
+    public LoginUserService(UserRepository repository, AuthTokenService authTokenService, PasswordHasher passwordHasher,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor) {
+        this.repository = repository;
+        this.authTokenService = authTokenService;
+        this.passwordHasher = passwordHasher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+    }
 
-        if(!encoder.matches(password, user.getPassword())){
-            throw new RuntimeException("Invalid Credentials");
+    /**
+     * Checks the credentials on the password hashing pool and issues an access / refresh token pair.
+     * <p>
+     * A password stored in an outdated format or cost is replaced by its fresh hash, computed by the same
+     * hashing task, so users migrate to the configured encoder as they log in.
+     * </p>
+     * <p>
+     * An unknown email is checked against a dummy hash ({@link PasswordHasher#verifyAbsentUser}) and fails with
+     * the same error as a wrong password, after the same hashing work, so neither reveals registered emails.
+     * </p>
+     * <p>
+     * Only the hash check holds a hashing thread. Storing the upgraded hash and issuing the tokens both hit
+     * the database, so they continue on the application task executor, the one MVC runs async requests on.
+     * </p>
+     *
+     * @throws com.grouppay.security.PasswordHashingOverloadedException if the hashing pool is saturated.
+     */
+    public CompletableFuture<AuthResponse> login(String email, String password) {
+        User user = repository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return passwordHasher.verifyAbsentUser(password).thenApplyAsync(verification -> {
+                throw new RuntimeException("Invalid Credentials");
+            }, taskExecutor);
         }
+        Long userId = user.getId();
+        String storedHash = user.getPassword();
+
+        return passwordHasher.verify(password, storedHash).thenApplyAsync(verification -> {
+            if (!verification.matches()) {
+                throw new RuntimeException("Invalid Credentials");
+            }
+            if (verification.upgradedHash() != null) {
+                upgradePassword(userId, storedHash, verification.upgradedHash());
+            }
+            return authTokenService.issue(userId, user.getEmail());
+        }, taskExecutor);
+    }
 
-        return jwtUtil.generateToken(user.getEmail());
+    // Skipped if the password changed since it was read (e.g. a reset in between)
+    private void upgradePassword(Long userId, String expectedHash, String upgradedHash) {
+        transactionTemplate.executeWithoutResult(status -> repository.findById(userId)
+                .filter(user -> expectedHash.equals(user.getPassword()))
+                .ifPresent(user -> user.setPassword(upgradedHash)));
     }
 }
@@ -1,62 +1,160 @@
 package com.grouppay.user.application;
 
+import com.grouppay.security.OpaqueTokens;
+import com.grouppay.security.PasswordHasher;
 import com.grouppay.user.domain.PasswordResetToken;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.PasswordResetTokenRepository;
+import com.grouppay.user.infrastructure.RefreshTokenRepository;
 import com.grouppay.user.infrastructure.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Password reset by emailed token.
+ * <p>
+ * Tokens are stored only as SHA-256 hashes, at most one per user: a new request replaces the previous
+ * token. Redeeming a token is one unique-index probe on its hash. Expired tokens are deleted in bounded
+ * chunks every {@code grouppay.security.password-reset.purge-interval}, so the table only ever holds
+ * tokens younger than their TTL.
+ * </p>
+ * <p>
+ * The raw token only ever leaves through the {@link PasswordResetTokenSender}, after the transaction commits.
+ * It is neither returned nor printed, and an unknown email gets the same (empty) answer as a known one.
+ * </p>
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class PasswordResetService {
     private final UserRepository userRepository;
     private final PasswordResetTokenRepository tokenRepository;
-    private final PasswordEncoder passwordEncoder;
-
-    @Transactional
-    public String initiatePasswordReset(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        String token = UUID.randomUUID().toString();
-        // Remove any existing token for this user
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final PasswordHasher passwordHasher;
+    private final Optional<PasswordResetTokenSender> tokenSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final Duration tokenTtl;
+    private final int purgeChunkSize;
 
+    public PasswordResetService(UserRepository userRepository,
+                                PasswordResetTokenRepository tokenRepository,
+                                RefreshTokenRepository refreshTokenRepository,
+                                PasswordHasher passwordHasher,
+                                Optional<PasswordResetTokenSender> tokenSender,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor,
+                                @Value("${grouppay.security.password-reset.token-ttl:PT15M}") Duration tokenTtl,
+                                @Value("${grouppay.security.password-reset.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.userRepository = userRepository;
+        this.tokenRepository = tokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.passwordHasher = passwordHasher;
+        this.tokenSender = tokenSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.tokenTtl = tokenTtl;
+        this.purgeChunkSize = purgeChunkSize;
+    }
 
-        PasswordResetToken resetToken = PasswordResetToken.builder()
-                .token(token)
-                .user(user)
-                .expiryDate(LocalDateTime.now().plusMinutes(15)) // 15 min expiry
-                .build();
+    /**
+     * Issues a new reset token for the user with this email and hands it to the {@link PasswordResetTokenSender}
+     * once committed. Does nothing for an unknown email, so the caller cannot tell which emails are registered.
+     */
+    @Transactional
+    public void initiatePasswordReset(String email) {
+        Optional<User> found = userRepository.findByEmail(email);
+        if (found.isEmpty()) {
+            return;
+        }
+        User user = found.get();
 
-        tokenRepository.save(resetToken);
+        String token = OpaqueTokens.generate();
+        // Replaces any existing token for this user
+        tokenRepository.upsert(user.getId(), OpaqueTokens.hash(token), LocalDateTime.now().plus(tokenTtl));
 
-        // MOCK EMAIL SENDING
-        System.out.println("==========================================");
-        System.out.println("PASSWORD RESET TOKEN FOR " + email + ": " + token);
-        System.out.println("==========================================");
-        
-        return token;
+        afterCommit(() -> tokenSender.ifPresentOrElse(sender -> sender.send(user, token),
+                () -> log.warn("No PasswordResetTokenSender configured, reset token for user {} not delivered", user.getId())));
     }
 
-    @Transactional
-    public void resetPassword(String token, String newPassword) {
-        PasswordResetToken resetToken = tokenRepository.findByToken(token)
+    /**
+     * Sets a new password and ends every session of the user.
+     * <p>
+     * The token is checked first, then the new password is hashed on the password hashing pool, like at
+     * registration, and the token is consumed and the hash stored in one transaction on the application task
+     * executor. Neither the request thread nor a database connection waits for the hash.
+     * </p>
+     *
+     * @throws RuntimeException if the token is unknown, already used or expired.
+     * @throws com.grouppay.security.PasswordHashingOverloadedException if the hashing pool is saturated.
+     */
+    public CompletableFuture<Void> resetPassword(String token, String newPassword) {
+        String tokenHash = OpaqueTokens.hash(token);
+        PasswordResetToken resetToken = tokenRepository.findByTokenHash(tokenHash)
                 .orElseThrow(() -> new RuntimeException("Invalid token"));
 
         if (resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
             throw new RuntimeException("Token expired");
         }
+        Long tokenId = resetToken.getId();
+        Long userId = resetToken.getUser().getId();
+
+        return passwordHasher.encode(newPassword).thenAcceptAsync(hash -> transactionTemplate.executeWithoutResult(status -> {
+            if (tokenRepository.consume(tokenId, tokenHash) == 0) {
+                // Used or replaced by a concurrent request
+                throw new RuntimeException("Invalid token");
+            }
+            User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+            user.setPassword(hash);
+            refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+        }), taskExecutor);
+    }
 
-        User user = resetToken.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        tokenRepository.delete(resetToken);
+    /**
+     * Deletes expired tokens, {@code purge-chunk-size} rows per transaction.
+     *
+     * @return Number of tokens deleted.
+     */
+    @Scheduled(fixedDelayString = "${grouppay.security.password-reset.purge-interval:PT5M}")
+    public long purgeExpiredTokens() {
+        long deleted = 0;
+        int chunk;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            Integer rows = transactionTemplate.execute(status -> tokenRepository.deleteExpired(now, purgeChunkSize));
+            chunk = rows == null ? 0 : rows;
+            deleted += chunk;
+        } while (chunk == purgeChunkSize);
+        if (deleted > 0) {
+            log.info("Purged {} expired password reset tokens", deleted);
+        }
+        return deleted;
     }
 }
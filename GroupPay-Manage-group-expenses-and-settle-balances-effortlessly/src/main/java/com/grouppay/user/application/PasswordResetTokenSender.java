@@ -0,0 +1,15 @@
+package com.grouppay.user.application;
+
+import com.grouppay.user.domain.User;
+
+/**
+ * Delivers a password reset token to its user, e.g. by email.
+ * <p>
+ * Called by {@link PasswordResetService} once the token's hash is committed. The raw token exists only in
+ * this call and in what the implementation sends; it is never returned to the requester or stored.
+ * </p>
+ */
+public interface PasswordResetTokenSender {
+
+    void send(User user, String token);
+}
@@ -1,46 +1,58 @@
 package com.grouppay.user.application;
 
+import com.grouppay.security.PasswordHasher;
 import com.grouppay.user.domain.Role;
 import com.grouppay.user.domain.User;
 import com.grouppay.user.infrastructure.UserRepository;
-import lombok.AllArgsConstructor;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
-@RequiredArgsConstructor
 public class RegisterUserService {
 
-    @Autowired
-    UserRepository repository;
+    private final UserRepository repository;
+
+    private final PasswordHasher passwordHasher;
 
-    private final PasswordEncoder encoder;
+    private final Executor taskExecutor;
+
+    public RegisterUserService(UserRepository repository, PasswordHasher passwordHasher,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor) {
+        this.repository = repository;
+        this.passwordHasher = passwordHasher;
+        this.taskExecutor = taskExecutor;
+    }
 
     /**
      * Registers a new user with the given email and password.
      * <p>
-     * - Encodes the password using BCrypt.
+     * - Hashes the password on the password hashing pool with the configured encoder.
      * - Sets the default role to USER.
-     * - Saves the user to the database.
+     * - Saves the user to the database, on the application task executor so the insert does not hold a
+     *   hashing thread.
      * </p>
      *
      * @param email    The email of the user (must be unique).
-     * @param password The raw password (will be encrypted).
+     * @param password The raw password (will be hashed).
      * @param username The unique username for the user.
+     * @throws com.grouppay.security.PasswordHashingOverloadedException if the hashing pool is saturated.
      */
-    public void register(String email, String password, String username, Integer avatarId, String currencyCode) {
-
-        User user = User.builder()
-                .email(email)
-                .username(username)
-                .password(encoder.encode(password))
-                .role(Role.USER)
-                .avatarId(avatarId != null ? avatarId : 1)
-                .currencyCode(currencyCode != null ? currencyCode : "INR")
-                .build();
-
-        repository.save(user);
+    public CompletableFuture<Void> register(String email, String password, String username, Integer avatarId, String currencyCode) {
+        return passwordHasher.encode(password).thenAcceptAsync(hash -> {
+            User user = User.builder()
+                    .email(email)
+                    .username(username)
+                    .password(hash)
+                    .role(Role.USER)
+                    .avatarId(avatarId != null ? avatarId : 1)
+                    .currencyCode(currencyCode != null ? currencyCode : "INR")
+                    .build();
+
+            repository.save(user);
+        }, taskExecutor);
     }
 }
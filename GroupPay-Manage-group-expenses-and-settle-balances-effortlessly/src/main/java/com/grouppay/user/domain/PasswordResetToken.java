@@ -17,11 +17,14 @@ public class PasswordResetToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String token;
+    // SHA-256 of the token sent to the user; the token itself is never stored
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
 
     @OneToOne(targetEntity = User.class, fetch = FetchType.EAGER)
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
 
+    @Column(nullable = false)
     private LocalDateTime expiryDate;
 }
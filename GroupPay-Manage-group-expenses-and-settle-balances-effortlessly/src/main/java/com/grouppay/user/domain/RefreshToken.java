@@ -0,0 +1,49 @@
+package com.grouppay.user.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refresh token handed out at login. The token itself is only ever known to the client; the row keeps
+ * its SHA-256 hash. Each refresh revokes the presented token and issues a new one.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set when the token is rotated or logged out
+    private LocalDateTime revokedAt;
+
+    // Revoked because it was exchanged for a new pair, so it must never be presented again
+    @Column(nullable = false)
+    private boolean rotated;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
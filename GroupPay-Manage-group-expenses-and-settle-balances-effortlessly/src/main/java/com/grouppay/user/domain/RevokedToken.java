@@ -0,0 +1,32 @@
+package com.grouppay.user.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An access token revoked before its expiry, by JWT id. Kept only until {@code expiresAt}, after which the
+ * token is rejected anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set by the database when the row is inserted; TokenRevocationList.sync reads rows by it
+    @Column(nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -2,9 +2,31 @@ package com.grouppay.user.infrastructure;
 
 import com.grouppay.user.domain.PasswordResetToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
-    Optional<PasswordResetToken> findByToken(String token);
-    void deleteByToken(String token);
+    // Probe of uk_password_reset_token_token_hash
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+    // Replaces the user's token in one statement (uk_password_reset_token_user), so concurrent requests cannot
+    // leave two tokens or fail on the unique key
+    @Modifying
+    @Query(value = "INSERT INTO password_reset_token (user_id, token_hash, expiry_date) VALUES (:userId, :tokenHash, :expiry) " +
+            "ON DUPLICATE KEY UPDATE token_hash = VALUES(token_hash), expiry_date = VALUES(expiry_date)", nativeQuery = true)
+    void upsert(@Param("userId") Long userId, @Param("tokenHash") String tokenHash, @Param("expiry") LocalDateTime expiry);
+
+    // Single use: only the request whose delete hits the row may reset the password
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.id = :id AND t.tokenHash = :tokenHash")
+    int consume(@Param("id") Long id, @Param("tokenHash") String tokenHash);
+
+    // One chunk of expired tokens (idx_password_reset_token_expiry)
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_token WHERE expiry_date < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
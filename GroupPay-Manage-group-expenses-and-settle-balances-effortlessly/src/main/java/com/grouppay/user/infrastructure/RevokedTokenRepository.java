@@ -0,0 +1,28 @@
+package com.grouppay.user.infrastructure;
+
+import com.grouppay.user.domain.RevokedToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    boolean existsByJti(String jti);
+
+    // Revocations recorded since the given time, paged by id; how instances pick up each other's logouts
+    @Query("SELECT t FROM RevokedToken t WHERE t.createdAt >= :since AND t.id > :afterId AND t.expiresAt > :now " +
+            "ORDER BY t.id")
+    List<RevokedToken> findActiveSince(@Param("since") LocalDateTime since, @Param("afterId") long afterId,
+                                       @Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
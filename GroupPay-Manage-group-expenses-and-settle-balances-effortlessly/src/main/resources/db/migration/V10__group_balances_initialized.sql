@@ -0,0 +1,9 @@
+-- BalanceLedgerService rebuilds a group's ledger from its expenses and payments until balances_initialized_at
+-- is set, instead of inferring "never built" from the group having no ledger rows: a group without any
+-- balances would otherwise be rebuilt on every read. Groups that already have ledger rows were built;
+-- the rest are rebuilt once more on their next read or write.
+
+ALTER TABLE `groups` ADD COLUMN balances_initialized_at DATETIME(6) NULL;
+
+UPDATE `groups` SET balances_initialized_at = CURRENT_TIMESTAMP(6)
+WHERE EXISTS (SELECT 1 FROM group_balances b WHERE b.group_id = `groups`.id);
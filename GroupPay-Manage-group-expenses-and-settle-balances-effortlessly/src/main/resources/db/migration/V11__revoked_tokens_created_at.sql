@@ -0,0 +1,9 @@
+-- TokenRevocationList syncs revocations by when they were recorded instead of by id: ids are assigned at
+-- insert, so a row whose transaction commits after a later one would fall behind an id watermark and
+-- never reach other instances. The database clock stamps the row and sync only compares stamps with each
+-- other, so instances need not agree on the time.
+
+ALTER TABLE revoked_tokens ADD COLUMN created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- RevokedTokenRepository.findActiveSince
+CREATE INDEX idx_revoked_tokens_created_at ON revoked_tokens (created_at);
@@ -0,0 +1,8 @@
+-- Notifications created from Kafka events carry the event they came from, so a redelivered batch (after a
+-- rebalance or a retried transaction) inserts nothing new. Other notifications leave it NULL, which the
+-- unique index does not compare.
+
+ALTER TABLE notifications ADD COLUMN event_key VARCHAR(64) NULL;
+
+-- NotificationBatchWriter.insertAll: one notification per user and event
+CREATE UNIQUE INDEX uk_notifications_user_event ON notifications (user_id, event_key);
@@ -0,0 +1,18 @@
+-- The group listing orders and pages by each group's latest balance delta. Recomputing that with a
+-- MAX subquery per group on every page cannot use an index for the seek, so BalanceLedgerService keeps
+-- it on the group row instead: the id and time of the newest delta, 0 / NULL while there is none.
+
+ALTER TABLE `groups` ADD COLUMN last_activity_id BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE `groups` ADD COLUMN last_activity_at DATETIME(6) NULL;
+
+UPDATE `groups` SET last_activity_id = (SELECT COALESCE(MAX(d.id), 0) FROM balance_deltas d WHERE d.group_id = `groups`.id);
+UPDATE `groups` SET last_activity_at = (SELECT d.created_at FROM balance_deltas d WHERE d.id = `groups`.last_activity_id);
+
+-- A group without expenses or payments has an empty ledger; mark it built so reads never rebuild it
+UPDATE `groups` SET balances_initialized_at = CURRENT_TIMESTAMP(6)
+WHERE balances_initialized_at IS NULL
+  AND NOT EXISTS (SELECT 1 FROM expenses e WHERE e.group_id = `groups`.id)
+  AND NOT EXISTS (SELECT 1 FROM settlement_payments p WHERE p.group_id = `groups`.id);
+
+-- GroupRepository.findSummariesForUser: live groups by latest activity, seeking after (last_activity_id, id)
+CREATE INDEX idx_groups_last_activity ON `groups` (deleted_at, last_activity_id, id);
@@ -0,0 +1,37 @@
+-- Settlement plan batches and the per-group balance ledger.
+-- Not part of the ddl-auto schema that V1 mirrors, so databases baselined at V1 get them here,
+-- ahead of the finder indexes in V2 that cover these tables.
+
+ALTER TABLE settlements ADD COLUMN batch_version INTEGER;
+ALTER TABLE settlements ADD COLUMN settled_at DATETIME(6);
+
+CREATE TABLE settlement_payments (
+    id              BIGINT         NOT NULL AUTO_INCREMENT,
+    amount          DECIMAL(38, 2) NOT NULL,
+    created_at      DATETIME(6)    NOT NULL,
+    group_id        BIGINT         NOT NULL,
+    payee_id        BIGINT         NOT NULL,
+    payer_id        BIGINT         NOT NULL,
+    settlement_id   BIGINT         NOT NULL,
+    idempotency_key VARCHAR(255)   NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE group_balances (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    balance    DECIMAL(38, 2) NOT NULL,
+    group_id   BIGINT         NOT NULL,
+    updated_at DATETIME(6)    NOT NULL,
+    user_id    BIGINT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+ALTER TABLE group_balances ADD CONSTRAINT uk_group_balances_group_user UNIQUE (group_id, user_id);
+ALTER TABLE settlement_payments ADD CONSTRAINT UK63yja8qnc9507jkvpgvmu2qu9 UNIQUE (idempotency_key);
+
+ALTER TABLE settlement_payments ADD CONSTRAINT FKjxixnjkh4pi1lvnj7412q47ak FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE settlement_payments ADD CONSTRAINT FKlj31fmy4lksaf5p8ko0hk0hgv FOREIGN KEY (payee_id) REFERENCES `user` (id);
+ALTER TABLE settlement_payments ADD CONSTRAINT FKat4i5yxw2ccos267bq56detnl FOREIGN KEY (payer_id) REFERENCES `user` (id);
+ALTER TABLE settlement_payments ADD CONSTRAINT FK6iylsnqrwe6q3r019km41vexl FOREIGN KEY (settlement_id) REFERENCES settlements (id);
+ALTER TABLE group_balances ADD CONSTRAINT FK642l28xxxw39j443x6bao2cxx FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE group_balances ADD CONSTRAINT FKd33g2cq4hq1vcncawqj26yn7a FOREIGN KEY (user_id) REFERENCES `user` (id);
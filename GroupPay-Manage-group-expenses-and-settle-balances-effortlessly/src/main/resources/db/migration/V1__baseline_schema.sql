@@ -0,0 +1,100 @@
+-- Baseline: the schema previously produced by ddl-auto=update.
+-- Constraint names are the ones Hibernate generated, so databases created before Flyway
+-- are baselined at this version (spring.flyway.baseline-version=1) and stay consistent.
+
+CREATE TABLE `user` (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    avatar_id     INTEGER      NOT NULL,
+    currency_code VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    role          ENUM ('ADMIN','USER'),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE `groups` (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    created_at  DATETIME(6)  NOT NULL,
+    created_by  BIGINT       NOT NULL,
+    description VARCHAR(255),
+    name        VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE group_members (
+    id        BIGINT      NOT NULL AUTO_INCREMENT,
+    is_admin  BIT         NOT NULL,
+    group_id  BIGINT      NOT NULL,
+    joined_at DATETIME(6) NOT NULL,
+    user_id   BIGINT      NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE expenses (
+    id          BIGINT         NOT NULL AUTO_INCREMENT,
+    amount      DECIMAL(38, 2) NOT NULL,
+    created_at  DATETIME(6)    NOT NULL,
+    group_id    BIGINT         NOT NULL,
+    paid_by     BIGINT         NOT NULL,
+    description VARCHAR(255)   NOT NULL,
+    upi_id      VARCHAR(255),
+    type        ENUM ('EQUAL','EXACT','PERCENTAGE') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE expense_splits (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    amount     DECIMAL(38, 2) NOT NULL,
+    percentage DECIMAL(38, 2),
+    expense_id BIGINT         NOT NULL,
+    user_id    BIGINT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE settlements (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    amount     DECIMAL(38, 2) NOT NULL,
+    is_settled BIT            NOT NULL,
+    created_at DATETIME(6)    NOT NULL,
+    group_id   BIGINT         NOT NULL,
+    payee_id   BIGINT         NOT NULL,
+    payer_id   BIGINT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE notifications (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    is_read    BIT          NOT NULL,
+    created_at DATETIME(6)  NOT NULL,
+    user_id    BIGINT       NOT NULL,
+    message    VARCHAR(255) NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    type       ENUM ('EXPENSE','PAYMENT','REMINDER','SYSTEM') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE password_reset_token (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    expiry_date DATETIME(6),
+    user_id     BIGINT       NOT NULL,
+    token       VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+ALTER TABLE `user` ADD CONSTRAINT UKhl4ga9r00rh51mdaf20hmnslt UNIQUE (email);
+ALTER TABLE `user` ADD CONSTRAINT UK5c856itaihtmi69ni04cmpc4m UNIQUE (username);
+ALTER TABLE password_reset_token ADD CONSTRAINT UKf90ivichjaokvmovxpnlm5nin UNIQUE (user_id);
+
+ALTER TABLE `groups` ADD CONSTRAINT FK9i63hjsci4rqw80fkd9aqfpvv FOREIGN KEY (created_by) REFERENCES `user` (id);
+ALTER TABLE group_members ADD CONSTRAINT FKrpgq4bl4kui39wk9mlkl26ib FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE group_members ADD CONSTRAINT FKr3vpcoi9ngxoovfyi1tm5kv24 FOREIGN KEY (user_id) REFERENCES `user` (id);
+ALTER TABLE expenses ADD CONSTRAINT FKk45hty399br1ch21s12cifla4 FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE expenses ADD CONSTRAINT FKrhwgflm7cnyciwi2944ackh8o FOREIGN KEY (paid_by) REFERENCES `user` (id);
+ALTER TABLE expense_splits ADD CONSTRAINT FKqigr3qe91wgifpl6mak0xcdso FOREIGN KEY (expense_id) REFERENCES expenses (id);
+ALTER TABLE expense_splits ADD CONSTRAINT FKel4fjv5f4o48osu5ply5t0e84 FOREIGN KEY (user_id) REFERENCES `user` (id);
+ALTER TABLE settlements ADD CONSTRAINT FK2r1ncinv5x0rd0al3t7cu0e0f FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE settlements ADD CONSTRAINT FK638sq09pvwd5pnd5td60vty26 FOREIGN KEY (payee_id) REFERENCES `user` (id);
+ALTER TABLE settlements ADD CONSTRAINT FKcwa0umfikyu9l0biatr37x0vx FOREIGN KEY (payer_id) REFERENCES `user` (id);
+ALTER TABLE notifications ADD CONSTRAINT FKef825nhxl2n3djragsy91b8m2 FOREIGN KEY (user_id) REFERENCES `user` (id);
+ALTER TABLE password_reset_token ADD CONSTRAINT FKopijiiwpt01x008euhjywip27 FOREIGN KEY (user_id) REFERENCES `user` (id);
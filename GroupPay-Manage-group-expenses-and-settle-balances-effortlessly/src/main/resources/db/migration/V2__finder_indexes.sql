@@ -0,0 +1,32 @@
+-- Composite indexes for every hot repository finder.
+-- The leading column matches the finder's equality predicate; trailing columns cover the
+-- ORDER BY or the aggregated columns so the query can be answered from the index.
+-- Finders on a single FK column (findByPaidById, findByPayerId, findByPayeeId) are already
+-- served by the index InnoDB creates for that foreign key, so no duplicate is added for them.
+
+-- ExpenseRepository.findByGroupId / sumPaidByUser (GROUP BY paid_by, SUM(amount))
+CREATE INDEX idx_expenses_group_payer_amount ON expenses (group_id, paid_by, amount);
+
+-- ExpenseRepository.sumOwedByUser (join on expense_id, GROUP BY user_id, SUM(amount))
+CREATE INDEX idx_expense_splits_expense_user_amount ON expense_splits (expense_id, user_id, amount);
+
+-- GroupRepository.findByMembers_User_Id
+CREATE INDEX idx_group_members_user_group ON group_members (user_id, group_id);
+-- Group.members collection load / membership checks
+CREATE INDEX idx_group_members_group_user ON group_members (group_id, user_id);
+
+-- NotificationRepository.findByUserIdOrderByCreatedAtDesc / markAllAsRead
+CREATE INDEX idx_notifications_user_created ON notifications (user_id, created_at);
+
+-- PasswordResetTokenRepository.findByToken / deleteByToken
+CREATE UNIQUE INDEX uk_password_reset_token_token ON password_reset_token (token);
+
+-- SettlementRepository.findByGroupIdAndBatchVersion / findLatestBatchVersion / findByGroupId
+CREATE INDEX idx_settlements_group_batch ON settlements (group_id, batch_version);
+
+-- SettlementPaymentRepository.sumPaidByPayer / sumReceivedByPayee
+CREATE INDEX idx_settlement_payments_group_payer ON settlement_payments (group_id, payer_id, amount);
+CREATE INDEX idx_settlement_payments_group_payee ON settlement_payments (group_id, payee_id, amount);
+
+-- GroupBalanceRepository lookups by user across groups (group_id, user_id is already unique)
+CREATE INDEX idx_group_balances_user ON group_balances (user_id, group_id);
@@ -0,0 +1,24 @@
+-- Expenses carry their own currency; balances, plans and payments are kept per currency.
+-- Everything recorded before this migration was entered in the old single currency (INR).
+
+ALTER TABLE expenses ADD COLUMN currency_code VARCHAR(3) NOT NULL DEFAULT 'INR';
+ALTER TABLE settlements ADD COLUMN currency_code VARCHAR(3) NOT NULL DEFAULT 'INR';
+ALTER TABLE settlement_payments ADD COLUMN currency_code VARCHAR(3) NOT NULL DEFAULT 'INR';
+ALTER TABLE group_balances ADD COLUMN currency_code VARCHAR(3) NOT NULL DEFAULT 'INR';
+
+-- One ledger row per (group, user, currency). The new key is added before the old one is dropped
+-- so the group_id foreign key always has a supporting index.
+ALTER TABLE group_balances ADD CONSTRAINT uk_group_balances_group_user_currency UNIQUE (group_id, user_id, currency_code);
+ALTER TABLE group_balances DROP CONSTRAINT uk_group_balances_group_user;
+
+-- ExpenseRepository.sumPaidByUser now groups by (paid_by, currency_code)
+CREATE INDEX idx_expenses_group_payer_currency ON expenses (group_id, paid_by, currency_code, amount);
+DROP INDEX idx_expenses_group_payer_amount ON expenses;
+
+-- Rates used by the db FX provider: units of the base currency per one unit of currency_code
+CREATE TABLE fx_rates (
+    currency_code VARCHAR(3)     NOT NULL,
+    rate_to_base  DECIMAL(19, 8) NOT NULL,
+    updated_at    DATETIME(6)    NOT NULL,
+    PRIMARY KEY (currency_code)
+) ENGINE = InnoDB;
@@ -0,0 +1,6 @@
+-- Optimistic locking columns for Group / GroupMember (@Version).
+-- Membership changes force-increment the group's version, so concurrent adds/removes on the same
+-- group conflict at commit instead of one silently overwriting the other.
+
+ALTER TABLE `groups` ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE group_members ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,38 @@
+-- Append-only log of every balance change, one row per (event, user). Summing a user's rows up to a
+-- point in time gives their balance at that time (see BalanceHistoryService).
+
+CREATE TABLE balance_deltas (
+    id            BIGINT         NOT NULL AUTO_INCREMENT,
+    group_id      BIGINT         NOT NULL,
+    user_id       BIGINT         NOT NULL,
+    currency_code VARCHAR(3)     NOT NULL,
+    amount        DECIMAL(38, 2) NOT NULL,
+    reason        VARCHAR(20)    NOT NULL,
+    created_at    DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- BalanceDeltaRepository.findGroupDeltasAfter / findGroupStats: a group's log in id order
+CREATE INDEX idx_balance_deltas_group_id ON balance_deltas (group_id, id);
+
+ALTER TABLE balance_deltas ADD CONSTRAINT fk_balance_deltas_group FOREIGN KEY (group_id) REFERENCES `groups` (id);
+ALTER TABLE balance_deltas ADD CONSTRAINT fk_balance_deltas_user FOREIGN KEY (user_id) REFERENCES `user` (id);
+
+-- Backfill the history of existing groups from their expenses and payments, oldest first so ids follow time.
+-- Expenses deleted before this migration are gone; their net effect on balances was zero.
+INSERT INTO balance_deltas (group_id, user_id, currency_code, amount, reason, created_at)
+SELECT h.group_id, h.user_id, h.currency_code, h.amount, h.reason, h.created_at
+FROM (
+    SELECT e.group_id, e.paid_by AS user_id, e.currency_code, e.amount, 'EXPENSE' AS reason, e.created_at
+    FROM expenses e
+    UNION ALL
+    SELECT e.group_id, s.user_id, e.currency_code, -s.amount, 'EXPENSE', e.created_at
+    FROM expense_splits s JOIN expenses e ON e.id = s.expense_id
+    UNION ALL
+    SELECT p.group_id, p.payer_id, p.currency_code, p.amount, 'PAYMENT', p.created_at
+    FROM settlement_payments p
+    UNION ALL
+    SELECT p.group_id, p.payee_id, p.currency_code, -p.amount, 'PAYMENT', p.created_at
+    FROM settlement_payments p
+) h
+ORDER BY h.created_at;
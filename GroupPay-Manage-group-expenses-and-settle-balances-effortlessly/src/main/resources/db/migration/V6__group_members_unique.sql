@@ -0,0 +1,12 @@
+-- One membership row per (group, user). Membership writes insert with INSERT IGNORE and delete by key,
+-- so the database, not a scan of the loaded member list, decides whether a user is already a member.
+
+-- Keep the oldest row of any duplicate left behind by the old check-then-insert path.
+-- The derived table lets MySQL read group_members while deleting from it.
+DELETE FROM group_members
+WHERE id NOT IN (SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM group_members GROUP BY group_id, user_id) AS keepers);
+
+-- Replaces idx_group_members_group_user (V2) for Group.members loads and membership checks;
+-- created first so the group_id foreign key always has an index to use.
+CREATE UNIQUE INDEX uk_group_members_group_user ON group_members (group_id, user_id);
+DROP INDEX idx_group_members_group_user ON group_members;
@@ -0,0 +1,8 @@
+-- Deleting a group only stamps deleted_at; GroupPurgeService removes its rows later in bounded chunks.
+-- Every child table already has an index leading with group_id (or expense_id for splits), so each
+-- chunk is an index range delete.
+
+ALTER TABLE `groups` ADD COLUMN deleted_at DATETIME(6) NULL;
+
+-- GroupPurgeRepository.findGroupsToPurge: oldest deletions first
+CREATE INDEX idx_groups_deleted_at ON `groups` (deleted_at);
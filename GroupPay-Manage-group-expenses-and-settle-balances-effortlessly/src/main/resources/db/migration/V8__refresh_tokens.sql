@@ -0,0 +1,35 @@
+-- Refresh tokens for the short-lived access tokens. Only a SHA-256 hash of each token is stored.
+-- A rotated or logged-out token keeps its row with revoked_at set; a rotated one presented again
+-- is recognised as reuse.
+
+CREATE TABLE refresh_tokens (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT      NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6),
+    rotated    BIT         NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- RefreshTokenRepository.findByTokenHash
+CREATE UNIQUE INDEX uk_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+-- RefreshTokenRepository.revokeAllForUser; also backs the user_id foreign key
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id, revoked_at);
+
+ALTER TABLE refresh_tokens ADD CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES `user` (id);
+
+-- Access tokens revoked before they expire (logout), by JWT id. Every instance keeps these in an
+-- in-memory Bloom filter and reads new rows by id; rows are deleted once the token has expired anyway.
+CREATE TABLE revoked_tokens (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    jti        VARCHAR(36) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- RevokedTokenRepository.existsByJti: confirms a Bloom filter hit
+CREATE INDEX idx_revoked_tokens_jti ON revoked_tokens (jti);
+-- RevokedTokenRepository.deleteExpired
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
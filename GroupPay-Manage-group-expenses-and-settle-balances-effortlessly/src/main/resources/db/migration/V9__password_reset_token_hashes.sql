@@ -0,0 +1,22 @@
+-- Reset tokens are stored as SHA-256 hashes, one row per user, and removed by PasswordResetService once
+-- expired. Outstanding plaintext tokens cannot be converted and live for 15 minutes anyway, so the table
+-- is recreated empty.
+
+DROP TABLE password_reset_token;
+
+CREATE TABLE password_reset_token (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT      NOT NULL,
+    token_hash  VARCHAR(64) NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- PasswordResetTokenRepository.findByTokenHash
+CREATE UNIQUE INDEX uk_password_reset_token_token_hash ON password_reset_token (token_hash);
+-- One active token per user; PasswordResetTokenRepository.upsert replaces it
+CREATE UNIQUE INDEX uk_password_reset_token_user ON password_reset_token (user_id);
+-- PasswordResetTokenRepository.deleteExpired
+CREATE INDEX idx_password_reset_token_expiry ON password_reset_token (expiry_date);
+
+ALTER TABLE password_reset_token ADD CONSTRAINT fk_password_reset_token_user FOREIGN KEY (user_id) REFERENCES `user` (id);
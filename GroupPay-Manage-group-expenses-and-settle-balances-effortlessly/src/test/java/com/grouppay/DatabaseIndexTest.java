@@ -0,0 +1,100 @@
+package com.grouppay;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN (H2 in MySQL mode, schema from the Flyway migrations) for the SQL behind each hot
+ * repository finder and asserts it is answered from an index instead of a full table scan.
+ * On empty tables H2 may prefer an equivalent FK index, so the index meant for each finder is
+ * checked for existence separately.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+class DatabaseIndexTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "ExpenseRepository.findByGroupId | idx_expenses_group_payer_currency | " +
+                    "SELECT * FROM expenses e WHERE e.group_id = 1",
+            "ExpenseRepository.findByPaidById | fkrhwgflm7cnyciwi2944ackh8o | " +
+                    "SELECT * FROM expenses e WHERE e.paid_by = 1",
+            "ExpenseRepository.sumPaidByUser | idx_expenses_group_payer_currency | " +
+                    "SELECT e.paid_by, e.currency_code, SUM(e.amount) FROM expenses e WHERE e.group_id = 1 " +
+                    "GROUP BY e.paid_by, e.currency_code",
+            "ExpenseRepository.sumOwedByUser | idx_expense_splits_expense_user_amount | " +
+                    "SELECT s.user_id, SUM(s.amount) FROM expense_splits s JOIN expenses e ON e.id = s.expense_id " +
+                    "WHERE e.group_id = 1 GROUP BY s.user_id",
+            "GroupRepository.findByMembers_User_Id | idx_group_members_user_group | " +
+                    "SELECT g.* FROM `groups` g JOIN group_members m ON m.group_id = g.id WHERE m.user_id = 1",
+            "Group.members | uk_group_members_group_user | " +
+                    "SELECT * FROM group_members m WHERE m.group_id = 1",
+            "GroupMemberBatchWriter.insertMembers | uk_group_members_group_user | " +
+                    "SELECT user_id FROM group_members WHERE group_id = 1 AND user_id IN (2, 3)",
+            "NotificationRepository.findByUserIdOrderByCreatedAtDesc | idx_notifications_user_created | " +
+                    "SELECT * FROM notifications n WHERE n.user_id = 1 ORDER BY n.created_at DESC",
+            "NotificationBatchWriter.insertAll | uk_notifications_user_event | " +
+                    "SELECT n.id FROM notifications n WHERE n.user_id = 1 AND n.event_key = 'settlement:1'",
+            "PasswordResetTokenRepository.findByTokenHash | uk_password_reset_token_token_hash | " +
+                    "SELECT * FROM password_reset_token t WHERE t.token_hash = 'abc'",
+            "PasswordResetTokenRepository.deleteExpired | idx_password_reset_token_expiry | " +
+                    "SELECT t.id FROM password_reset_token t WHERE t.expiry_date < TIMESTAMP '2026-01-01 00:00:00' LIMIT 1000",
+            "SettlementRepository.findByGroupIdAndBatchVersion | idx_settlements_group_batch | " +
+                    "SELECT * FROM settlements s WHERE s.group_id = 1 AND s.batch_version = 2",
+            "SettlementRepository.findByPayerId | fkcwa0umfikyu9l0biatr37x0vx | " +
+                    "SELECT * FROM settlements s WHERE s.payer_id = 1",
+            "SettlementRepository.findByPayeeId | fk638sq09pvwd5pnd5td60vty26 | " +
+                    "SELECT * FROM settlements s WHERE s.payee_id = 1",
+            "SettlementPaymentRepository.sumPaidByPayer | idx_settlement_payments_group_payer | " +
+                    "SELECT p.payer_id, SUM(p.amount) FROM settlement_payments p WHERE p.group_id = 1 GROUP BY p.payer_id",
+            "GroupBalanceRepository.findBalancesByGroupId | uk_group_balances_group_user_currency | " +
+                    "SELECT b.user_id, b.currency_code, b.balance FROM group_balances b WHERE b.group_id = 1",
+            "GroupBalanceRepository.findBalancesByUserId | idx_group_balances_user | " +
+                    "SELECT b.user_id, b.currency_code, b.balance FROM group_balances b WHERE b.user_id = 2",
+            "GroupBalanceRepository.findBalancesOfUserInGroups | idx_group_balances_user | " +
+                    "SELECT b.group_id, b.currency_code, b.balance FROM group_balances b WHERE b.user_id = 2 " +
+                    "AND b.group_id IN (1, 3)",
+            "BalanceDeltaRepository.findGroupDeltasAfter | idx_balance_deltas_group_id | " +
+                    "SELECT * FROM balance_deltas d WHERE d.group_id = 1 AND d.id > 5 ORDER BY d.id",
+            "GroupRepository.findSummariesForUser | idx_groups_last_activity | " +
+                    "SELECT g.id FROM `groups` g WHERE g.deleted_at IS NULL AND g.last_activity_id < 100 " +
+                    "ORDER BY g.last_activity_id DESC, g.id DESC LIMIT 21",
+            "GroupPurgeRepository.findGroupsToPurge | idx_groups_deleted_at | " +
+                    "SELECT g.id FROM `groups` g WHERE g.deleted_at IS NOT NULL ORDER BY g.deleted_at, g.id LIMIT 10",
+            "RefreshTokenRepository.findByTokenHash | uk_refresh_tokens_token_hash | " +
+                    "SELECT * FROM refresh_tokens t WHERE t.token_hash = 'abc'",
+            "RevokedTokenRepository.existsByJti | idx_revoked_tokens_jti | " +
+                    "SELECT t.id FROM revoked_tokens t WHERE t.jti = 'abc' LIMIT 1",
+            "RevokedTokenRepository.findActiveSince | idx_revoked_tokens_created_at | " +
+                    "SELECT * FROM revoked_tokens t WHERE t.created_at >= TIMESTAMP '2026-01-01 00:00:00' AND t.id > 0 " +
+                    "AND t.expires_at > TIMESTAMP '2026-01-01 00:00:00' ORDER BY t.id LIMIT 1000",
+            "UserRepository.findByEmail | ukhl4ga9r00rh51mdaf20hmnslt | " +
+                    "SELECT * FROM `user` u WHERE u.email = 'a@b.c'",
+    })
+    void finderUsesIndex(String finder, String expectedIndex, String sql) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertNotNull(plan);
+        assertFalse(plan.contains("tableScan"), finder + " does a full table scan:\n" + plan);
+
+        // H2 names constraint-backed indexes <constraint>_INDEX_<n>
+        Integer indexes = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE LOWER(INDEX_NAME) LIKE ?",
+                Integer.class, expectedIndex.toLowerCase() + "%");
+        assertTrue(indexes != null && indexes > 0, "Missing index " + expectedIndex + " for " + finder);
+    }
+}
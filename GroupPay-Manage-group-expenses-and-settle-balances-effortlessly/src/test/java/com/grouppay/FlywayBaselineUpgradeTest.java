@@ -0,0 +1,58 @@
+package com.grouppay;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrades a database created by ddl-auto before Flyway was introduced: the schema is built from
+ * V1 alone, holds some rows, and is then migrated with the same baseline settings as application.yml.
+ * Every later migration must apply on top of that shape.
+ */
+class FlywayBaselineUpgradeTest {
+
+    @Test
+    void ddlAutoDatabaseIsBaselinedAndMigratedToLatest() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:baseline-upgrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO `user` (id, avatar_id, currency_code, email, password, username, role) " +
+                "VALUES (1, 1, 'INR', 'a@example.com', 'x', 'alice', 'USER'), (2, 1, 'INR', 'b@example.com', 'x', 'bob', 'USER')");
+        jdbc.update("INSERT INTO `groups` (id, created_at, created_by, name) VALUES (1, CURRENT_TIMESTAMP, 1, 'Trip')");
+        jdbc.update("INSERT INTO group_members (is_admin, group_id, joined_at, user_id) " +
+                "VALUES (TRUE, 1, CURRENT_TIMESTAMP, 1), (FALSE, 1, CURRENT_TIMESTAMP, 2)");
+        jdbc.update("INSERT INTO expenses (id, amount, created_at, group_id, paid_by, description, type) " +
+                "VALUES (1, 100.00, CURRENT_TIMESTAMP, 1, 1, 'Dinner', 'EQUAL')");
+        jdbc.update("INSERT INTO expense_splits (amount, expense_id, user_id) VALUES (50.00, 1, 1), (50.00, 1, 2)");
+        jdbc.update("INSERT INTO settlements (amount, is_settled, created_at, group_id, payee_id, payer_id) " +
+                "VALUES (50.00, FALSE, CURRENT_TIMESTAMP, 1, 1, 2)");
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        MigrateResult result = flyway.migrate();
+
+        assertTrue(result.success);
+        assertEquals("1.1", result.migrations.get(0).version);
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM settlements WHERE batch_version IS NULL", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM settlement_payments", Integer.class));
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM group_members", Integer.class));
+    }
+}
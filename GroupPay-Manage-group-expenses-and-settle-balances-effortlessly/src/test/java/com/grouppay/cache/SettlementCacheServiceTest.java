@@ -0,0 +1,198 @@
+package com.grouppay.cache;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.MinimumCashFlowService;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.settlement.infrastructure.BalanceDeltaRepository;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Background recomputes only start after a commit, so every write here commits its own transaction.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "grouppay.settlement.precompute.debounce=PT0.2S",
+        "grouppay.settlement.precompute.max-delay=PT10S"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SettlementCacheService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, MinimumCashFlowService.class,
+        SimpleMeterRegistry.class, GroupWriteLocks.class})
+class SettlementCacheServiceTest {
+
+    @Autowired
+    private SettlementCacheService settlementCacheService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BalanceDeltaRepository balanceDeltaRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void burstOfWritesIsPrecomputedOnceAndThenServedAsRead() throws Exception {
+        List<User> users = createUsers("precompute", 3);
+        Long groupId = createGroup(users);
+        double recomputesBefore = recomputes();
+
+        for (int i = 0; i < 5; i++) {
+            addExpense(groupId, users.get(0), users, new BigDecimal("3.00"));
+        }
+        awaitRecomputes(recomputesBefore + 1);
+        Thread.sleep(400);   // longer than the debounce: a second recompute would have started by now
+
+        assertEquals(recomputesBefore + 1, recomputes(), "Five quick writes should coalesce into one recompute");
+        SettlementCacheService.PlanRead read = settlementCacheService.getPlan(groupId);
+        assertEquals(SettlementCacheService.PlanSource.PRECOMPUTED, read.source());
+        assertEquals(0, new BigDecimal("30.00").compareTo(read.plan().settlements().stream()
+                .map(s -> s.getAmount()).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    void stalePlanIsRecomputedOnRead() {
+        List<User> users = createUsers("stale", 2);
+        Long groupId = createGroup(users);
+        addExpense(groupId, users.get(0), users, new BigDecimal("5.00"));
+
+        SettlementCacheService.PlanRead first = settlementCacheService.getPlan(groupId);
+        // Written after the read, before any background recompute could run
+        addExpense(groupId, users.get(0), users, new BigDecimal("5.00"));
+        SettlementCacheService.PlanRead second = settlementCacheService.getPlan(groupId);
+
+        assertTrue(second.plan().ledgerVersion() > first.plan().ledgerVersion());
+        assertEquals(SettlementCacheService.PlanSource.COMPUTED, second.source());
+        assertEquals(0, new BigDecimal("10.00").compareTo(second.plan().settlements().get(0).getAmount()));
+        assertEquals(SettlementCacheService.PlanSource.PRECOMPUTED, settlementCacheService.getPlan(groupId).source());
+    }
+
+    @Test
+    void planIsRecomputedWhenAnOlderLedgerRowIsRemoved() {
+        List<User> users = createUsers("removed", 2);
+        Long groupId = createGroup(users);
+        addExpense(groupId, users.get(0), users, new BigDecimal("5.00"));
+        addExpense(groupId, users.get(0), users, new BigDecimal("5.00"));
+        SettlementCacheService.PlanRead before = settlementCacheService.getPlan(groupId);
+
+        // The latest delta id stays the same; only the row count gives the change away
+        Long oldest = balanceDeltaRepository.findGroupDeltasAfter(groupId, 0).get(0).getId();
+        balanceDeltaRepository.deleteById(oldest);
+        SettlementCacheService.PlanRead after = settlementCacheService.getPlan(groupId);
+
+        assertEquals(before.plan().ledgerVersion(), after.plan().ledgerVersion());
+        assertEquals(SettlementCacheService.PlanSource.COMPUTED, after.source());
+        assertEquals(before.plan().ledgerRowCount() - 1, after.plan().ledgerRowCount());
+    }
+
+    private double recomputes() {
+        var timer = meterRegistry.find(AppConstants.METRIC_SETTLEMENT_PRECOMPUTE).tag("outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private void awaitRecomputes(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (recomputes() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(recomputes() >= expected, "Background recompute did not run");
+    }
+
+    /**
+     * {@code payer} pays {@code share} for every participant, so each other participant owes them {@code share}.
+     */
+    private void addExpense(Long groupId, User payer, List<User> participants, BigDecimal share) {
+        tx.executeWithoutResult(s -> {
+            Expense expense = Expense.builder()
+                    .description("Dinner")
+                    .amount(share.multiply(BigDecimal.valueOf(participants.size())))
+                    .currencyCode("INR")
+                    .paidBy(payer)
+                    .group(groupRepository.getReferenceById(groupId))
+                    .type(ExpenseType.EQUAL)
+                    .build();
+            expense.setSplits(participants.stream()
+                    .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                    .toList());
+            balanceLedgerService.recordExpense(expenseRepository.save(expense));
+        });
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        return tx.execute(s -> {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = prefix + i + "-" + System.nanoTime();
+                users.add(userRepository.save(User.builder()
+                        .username(name)
+                        .email(name + "@example.com")
+                        .password("secret")
+                        .role(Role.USER)
+                        .build()));
+            }
+            return users;
+        });
+    }
+
+    private Long createGroup(List<User> members) {
+        return tx.execute(s -> {
+            Group group = Group.builder().name("Precompute").createdBy(members.get(0)).members(new ArrayList<>()).build();
+            for (User user : members) {
+                group.getMembers().add(GroupMember.builder().group(group).user(user).isAdmin(false).build());
+            }
+            return groupRepository.save(group).getId();
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.grouppay.currency.application;
+
+import com.grouppay.currency.domain.FxRateTable;
+import com.grouppay.currency.infrastructure.DbFxRateProvider;
+import com.grouppay.currency.infrastructure.FileFxRateProvider;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FxRateServiceTest {
+
+    private final FileFxRateProvider fileProvider = mock(FileFxRateProvider.class);
+    private final DbFxRateProvider dbProvider = mock(DbFxRateProvider.class);
+
+    @Test
+    void refreshPublishesNewVersionOnlyWhenRatesChange() {
+        when(fileProvider.loadRates())
+                .thenReturn(Map.of("USD", new BigDecimal("83.00")))
+                .thenReturn(Map.of("USD", new BigDecimal("83.0000")))   // same rate, different scale
+                .thenReturn(Map.of("USD", new BigDecimal("84.00")))
+                .thenThrow(new IllegalStateException("file missing"));
+        FxRateService service = new FxRateService(fileProvider, dbProvider, "file", "INR");
+
+        service.loadInitialRates();
+        FxRateTable first = service.current();
+        assertEquals(1, first.getVersion());
+
+        service.refresh();
+        assertSame(first, service.current());
+
+        service.refresh();
+        FxRateTable second = service.current();
+        assertEquals(2, second.getVersion());
+        assertEquals(0, new BigDecimal("83.00").compareTo(first.convert(BigDecimal.ONE, "USD", "INR")),
+                "Published tables are never mutated");
+
+        service.refresh();
+        assertSame(second, service.current(), "A failed refresh keeps the previous table");
+    }
+
+    @Test
+    void convertsThroughBaseCurrency() {
+        FxRateTable table = new FxRateTable(1, "INR", Map.of(
+                "USD", new BigDecimal("80"),
+                "EUR", new BigDecimal("100")), null);
+
+        assertEquals(new BigDecimal("8000.00"), table.convert(new BigDecimal("100.00"), "USD", "INR"));
+        assertEquals(new BigDecimal("80.00"), table.convert(new BigDecimal("100.00"), "USD", "EUR"));
+        assertEquals(new BigDecimal("1.25"), table.convert(new BigDecimal("100.00"), "INR", "USD"));
+        assertTrue(table.supports("INR"));
+        assertFalse(table.supports("XYZ"));
+        assertThrows(IllegalArgumentException.class, () -> table.convert(BigDecimal.ONE, "XYZ", "INR"));
+    }
+}
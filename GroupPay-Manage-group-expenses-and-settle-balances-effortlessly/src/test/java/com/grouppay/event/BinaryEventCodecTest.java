@@ -0,0 +1,99 @@
+package com.grouppay.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEventCodecTest {
+
+    private final BinaryEventSerializer serializer = new BinaryEventSerializer();
+    private final BinaryEventDeserializer deserializer = new BinaryEventDeserializer();
+
+    @Test
+    void everyEventTypeRoundTrips() {
+        List<Object> events = List.of(
+                SettlementCreatedEvent.builder().settlementId(41L).groupId(7L).batchVersion(3).payerId(9L).payeeId(12L)
+                        .amount(new BigDecimal("1234.50")).currencyCode("EUR").build(),
+                ExpenseCreatedEvent.builder().expenseId(5L).groupId(7L).amount(new BigDecimal("-0.01")).payerId(9L)
+                        .currencyCode("USD").build(),
+                ExpenseDeletedEvent.builder().expenseId(5L).groupId(7L).amount(new BigDecimal("30.00")).currencyCode("INR")
+                        .payerId(9L).participantIds(List.of(9L, 12L, 10L, 100_000L)).build(),
+                // every field null
+                new SettlementCreatedEvent(), new ExpenseCreatedEvent(), new ExpenseDeletedEvent());
+
+        for (Object event : events) {
+            assertEquals(event, deserializer.deserialize("t", serializer.serialize("t", event)));
+        }
+    }
+
+    /**
+     * The current ExpenseCreatedEvent layout, byte for byte; a change here breaks consumers still deployed.
+     */
+    @Test
+    void expenseCreatedWireFormatIsStable() {
+        byte[] encoded = serializer.serialize("t", ExpenseCreatedEvent.builder()
+                .expenseId(5L).groupId(7L).amount(new BigDecimal("12.50")).payerId(9L).currencyCode("USD").build());
+
+        // type 2, version 2, ids + 1, 1250 minor units zigzagged + 1 = 2501, "USD" with its length + 1
+        assertArrayEquals(new byte[]{2, 2, 6, 8, (byte) 0xC5, 0x13, 10, 4, 'U', 'S', 'D'}, encoded);
+    }
+
+    @Test
+    void olderSchemaVersionReadsWithDefaults() {
+        // An ExpenseCreatedEvent v1 record, written before events carried a currency
+        byte[] v1 = {2, 1, 6, 8, (byte) 0xC5, 0x13, 10};
+
+        ExpenseCreatedEvent event = (ExpenseCreatedEvent) deserializer.deserialize("t", v1);
+
+        assertEquals(5L, event.getExpenseId());
+        assertEquals(new BigDecimal("12.50"), event.getAmount());
+        assertEquals(9L, event.getPayerId());
+        assertEquals("INR", event.getCurrencyCode());
+    }
+
+    @Test
+    void newerSchemaVersionIgnoresAppendedFields() {
+        SettlementCreatedEvent event = SettlementCreatedEvent.builder().settlementId(1L).groupId(2L).batchVersion(1)
+                .payerId(3L).payeeId(4L).amount(new BigDecimal("5.00")).currencyCode("INR").build();
+        byte[] current = serializer.serialize("t", event);
+
+        // A future writer bumps the version and appends a field (here a string "note")
+        byte[] future = Arrays.copyOf(current, current.length + 5);
+        future[1] = (byte) (BinaryEventCodec.SETTLEMENT_CREATED_VERSION + 1);
+        System.arraycopy(new byte[]{5, 'n', 'o', 't', 'e'}, 0, future, current.length, 5);
+
+        assertEquals(event, deserializer.deserialize("t", future));
+    }
+
+    @Test
+    void jsonRecordsFromBeforeTheSwitchStillDecode() {
+        ExpenseDeletedEvent event = ExpenseDeletedEvent.builder().expenseId(5L).groupId(7L)
+                .amount(new BigDecimal("30.00")).currencyCode("INR").payerId(9L).participantIds(List.of(9L, 12L)).build();
+        RecordHeaders headers = new RecordHeaders();
+        try (JsonSerializer<Object> json = new JsonSerializer<>()) {
+            byte[] bytes = json.serialize("t", headers, event);
+
+            assertEquals(event, deserializer.deserialize("t", headers, bytes));
+        }
+    }
+
+    @Test
+    void unknownOrTruncatedRecordsAreRejected() {
+        byte[] valid = serializer.serialize("t", ExpenseCreatedEvent.builder().expenseId(5L).groupId(7L)
+                .amount(new BigDecimal("12.50")).payerId(9L).currencyCode("USD").build());
+
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("t", Arrays.copyOf(valid, valid.length - 2)));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("t", new byte[]{99, 1, 0}));
+        assertThrows(SerializationException.class, () -> serializer.serialize("t", "not an event"));
+        assertThrows(SerializationException.class, () -> serializer.serialize("t",
+                ExpenseCreatedEvent.builder().amount(new BigDecimal("0.005")).build()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.grouppay.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventBatchProcessorTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final EventBatchProcessor processor = new EventBatchProcessor(transactionManager, new SimpleMeterRegistry());
+    private final List<String> handled = new ArrayList<>();
+
+    EventBatchProcessorTest() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void failingRecordIsNamedAndTheOnesBeforeItAreStillHandled() {
+        BatchListenerFailedException failed = assertThrows(BatchListenerFailedException.class, () ->
+                processor.process("topic", records("a", "b", "bad", "c"), values -> {
+                    if (values.contains("bad")) {
+                        throw new DataIntegrityViolationException("bad value");
+                    }
+                    handled.addAll(values);
+                }));
+
+        assertEquals(2, failed.getIndex());
+        assertEquals(List.of("a", "b"), handled);
+        assertFalse(EventBatchProcessor.isTransient(failed));
+    }
+
+    @Test
+    void transientFailureRetriesTheWholeBatch() {
+        BatchListenerFailedException failed = assertThrows(BatchListenerFailedException.class, () ->
+                processor.process("topic", records("a", "b"), values -> {
+                    throw new CannotAcquireLockException("lock wait timeout");
+                }));
+
+        assertEquals(0, failed.getIndex());
+        assertTrue(EventBatchProcessor.isTransient(failed));
+        assertTrue(handled.isEmpty());
+    }
+
+    private static List<ConsumerRecord<String, String>> records(String... values) {
+        return IntStream.range(0, values.length)
+                .mapToObj(i -> new ConsumerRecord<>("topic", 0, i, "key", values[i]))
+                .toList();
+    }
+}
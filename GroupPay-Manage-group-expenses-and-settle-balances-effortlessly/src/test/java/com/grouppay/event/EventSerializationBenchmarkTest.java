@@ -0,0 +1,121 @@
+package com.grouppay.event;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the JSON serde the topics used before against {@link BinaryEventCodec} on a mix of settlement and
+ * expense-deleted events: bytes on the wire per event (value plus headers, since JSON needs its type header)
+ * and time per serialize + deserialize round trip. Plain JUnit rather than JMH, like the other benchmarks
+ * here; warm-up rounds are discarded.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+class EventSerializationBenchmarkTest {
+
+    private static final int EVENTS = 20_000;
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void binaryEncodingIsSmallerAndFaster() {
+        List<Object> events = syntheticEvents();
+
+        Result json;
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>();
+             JsonDeserializer<Object> deserializer = new JsonDeserializer<>().trustedPackages("com.grouppay.event")) {
+            json = measure("json", events, (event, headers) -> serializer.serialize("t", headers, event),
+                    (bytes, headers) -> deserializer.deserialize("t", headers, bytes));
+        }
+        BinaryEventSerializer binarySerializer = new BinaryEventSerializer();
+        BinaryEventDeserializer binaryDeserializer = new BinaryEventDeserializer();
+        Result binary = measure("binary", events, (event, headers) -> binarySerializer.serialize("t", event),
+                (bytes, headers) -> binaryDeserializer.deserialize("t", headers, bytes));
+
+        System.out.printf("%-8s %12s %14s%n", "codec", "bytes/event", "ns/roundtrip");
+        for (Result r : List.of(json, binary)) {
+            System.out.printf("%-8s %12.1f %14.0f%n", r.name, r.bytesPerEvent, r.nanosPerEvent);
+        }
+
+        assertTrue(binary.bytesPerEvent * 4 < json.bytesPerEvent, "Binary events should be several times smaller");
+        assertTrue(binary.nanosPerEvent < json.nanosPerEvent, "Binary round trips should be faster");
+    }
+
+    private Result measure(String name, List<Object> events, Encoder encoder, Decoder decoder) {
+        long wireBytes = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            if (round == WARMUP) {
+                wireBytes = 0;
+            }
+            for (Object event : events) {
+                RecordHeaders headers = new RecordHeaders();
+                byte[] bytes = encoder.encode(event, headers);
+                assertEquals(event, decoder.decode(bytes, headers));
+                wireBytes += bytes.length;
+                for (Header header : headers) {
+                    wireBytes += header.key().length() + header.value().length;
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Object event : events) {
+                RecordHeaders headers = new RecordHeaders();
+                decoder.decode(encoder.encode(event, headers), headers);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        double total = (double) EVENTS * ROUNDS;
+        return new Result(name, wireBytes / total, elapsed / total);
+    }
+
+    private static List<Object> syntheticEvents() {
+        Random random = new Random(5);
+        List<Object> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            long groupId = 10_000 + random.nextInt(50_000);
+            long userId = 100_000 + random.nextInt(1_000_000);
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            if (i % 4 == 0) {
+                List<Long> participants = new ArrayList<>();
+                for (int p = 0; p < 2 + random.nextInt(8); p++) {
+                    participants.add(userId + p * 3L);
+                }
+                events.add(ExpenseDeletedEvent.builder().expenseId(1_000_000L + i).groupId(groupId).amount(amount)
+                        .currencyCode("INR").payerId(userId).participantIds(participants).build());
+            } else {
+                events.add(SettlementCreatedEvent.builder().settlementId(2_000_000L + i).groupId(groupId)
+                        .batchVersion(1 + random.nextInt(20)).payerId(userId).payeeId(userId + 17)
+                        .amount(amount).currencyCode("INR").build());
+            }
+        }
+        return events;
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        byte[] encode(Object event, RecordHeaders headers);
+    }
+
+    @FunctionalInterface
+    private interface Decoder {
+        Object decode(byte[] bytes, RecordHeaders headers);
+    }
+
+    private record Result(String name, double bytesPerEvent, double nanosPerEvent) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.grouppay.expense.application;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.grouppay.currency.application.FxRateService;
+import com.grouppay.currency.infrastructure.DbFxRateProvider;
+import com.grouppay.currency.infrastructure.FileFxRateProvider;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.concurrency.TransactionRetryExecutor;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of {@link AddExpenseService#addExpense} (the POST /expenses work) under the old verbose logging setup
+ * (SQL DEBUG, security DEBUG, synchronous appender) and under the prod profile setup (INFO, async ECS JSON).
+ * <p>
+ * Both appenders write to files under {@code target/} so the numbers include real I/O without flooding the
+ * build output. {@code show-sql} is off in both runs: it is bound when the session factory is built, so it
+ * cannot be switched per run, and it only adds further synchronous stdout writes to the verbose case.
+ * </p>
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({AddExpenseService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, NotificationService.class, NotificationBatchWriter.class, SimpleMeterRegistry.class,
+        FxRateService.class, FileFxRateProvider.class, DbFxRateProvider.class,
+        GroupWriteLocks.class, TransactionRetryExecutor.class})
+class AddExpenseLoggingBenchmarkTest {
+
+    private static final int MEMBERS = 20;
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 300;
+    private static final String[] TUNED_LOGGERS = {
+            "com.grouppay", "org.hibernate.SQL", "org.springframework.security"};
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private AddExpenseService addExpenseService;
+
+    @Test
+    void asyncStructuredLoggingIsCheaperThanVerboseSyncLogging() {
+        List<User> users = seedGroupMembers();
+        Long groupId = seedGroup(users);
+        Map<Long, BigDecimal> splits = new LinkedHashMap<>();
+        users.forEach(u -> splits.put(u.getId(), new BigDecimal("5.00")));
+        BigDecimal total = new BigDecimal("5.00").multiply(BigDecimal.valueOf(MEMBERS));
+
+        Runnable addExpense = () -> {
+            addExpenseService.addExpense(users.get(0).getId(), groupId, "Dinner", total, "INR", ExpenseType.EXACT, splits, null);
+            em.flush();
+            em.clear();
+        };
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Result verbose = withLogging(context, verboseAppender(context), Level.DEBUG, "verbose-sync", addExpense);
+        Result prod = withLogging(context, prodAppender(context), Level.INFO, "prod-async", addExpense);
+
+        System.out.printf("%-14s %10s %10s%n", "logging", "avg ms", "p99 ms");
+        for (Result r : List.of(verbose, prod)) {
+            System.out.printf("%-14s %10.3f %10.3f%n", r.name, r.avgMillis, r.p99Millis);
+        }
+
+        assertTrue(prod.avgMillis < verbose.avgMillis, "Async INFO logging should be cheaper than sync DEBUG logging");
+    }
+
+    private Result withLogging(LoggerContext context, Appender<ILoggingEvent> appender, Level level,
+                               String name, Runnable call) {
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        Map<String, Level> previous = new LinkedHashMap<>();
+        for (String logger : TUNED_LOGGERS) {
+            previous.put(logger, context.getLogger(logger).getLevel());
+            context.getLogger(logger).setLevel(level);
+        }
+        // Measure only the appender under test, not the build's console output
+        List<Appender<ILoggingEvent>> existing = new ArrayList<>();
+        root.iteratorForAppenders().forEachRemaining(existing::add);
+        existing.forEach(root::detachAppender);
+        root.addAppender(appender);
+        try {
+            for (int i = 0; i < WARMUP; i++) call.run();
+            long[] samples = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                call.run();
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            double avg = Arrays.stream(samples).average().orElse(0) / 1_000_000.0;
+            double p99 = samples[(int) Math.ceil(ROUNDS * 0.99) - 1] / 1_000_000.0;
+            return new Result(name, avg, p99);
+        } finally {
+            root.detachAppender(appender);
+            appender.stop();
+            existing.forEach(root::addAppender);
+            previous.forEach((logger, lvl) -> context.getLogger(logger).setLevel(lvl));
+        }
+    }
+
+    private Appender<ILoggingEvent> verboseAppender(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %t %logger{39} : %m%n");
+        encoder.start();
+        return fileAppender(context, "verbose-sync.log", encoder);
+    }
+
+    private Appender<ILoggingEvent> prodAppender(LoggerContext context) {
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("ecs");
+        encoder.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("benchmark-async");
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(fileAppender(context, "prod-async.log", encoder));
+        async.start();
+        return async;
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(LoggerContext context, String file,
+                                                     Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName(file);
+        appender.setFile("target/benchmark-logs/" + file);
+        appender.setAppend(false);
+        appender.setImmediateFlush(true);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private List<User> seedGroupMembers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            users.add(em.persist(User.builder()
+                    .email("log-bench" + i + "@test.com")
+                    .username("log-bench" + i)
+                    .password("secret")
+                    .role(Role.USER)
+                    .build()));
+        }
+        return users;
+    }
+
+    private Long seedGroup(List<User> users) {
+        Group group = Group.builder().name("Logging benchmark").createdBy(users.get(0)).members(new ArrayList<>()).build();
+        for (User user : users) {
+            group.getMembers().add(GroupMember.builder().group(group).user(user).isAdmin(false).build());
+        }
+        em.persist(group);
+        em.flush();
+        em.clear();
+        return group.getId();
+    }
+
+    private record Result(String name, double avgMillis, double p99Millis) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.grouppay.expense.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.observability.QueryStats;
+import com.grouppay.observability.QueryStatsHibernateConfig;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({DeleteExpenseService.class, ExpenseEventPublisher.class, BalanceLedgerService.class, GroupActivityWriter.class,
+        BalanceCalculationService.class, EntityBalanceAggregator.class, SqlBalanceAggregator.class,
+        SimpleMeterRegistry.class, GroupWriteLocks.class, QueryStatsHibernateConfig.class})
+class DeleteExpenseServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private DeleteExpenseService deleteExpenseService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private BalanceCalculationService balanceCalculationService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void deleteRevertsBalancesWithoutLoadingTheExpense() {
+        User alice = createUser("del-alice");
+        User bob = createUser("del-bob");
+        User carol = createUser("del-carol");
+        Group group = em.persist(Group.builder().name("Trip").createdBy(alice).build());
+        balanceLedgerService.recordExpense(addExpense(group, alice, List.of(alice, bob, carol), new BigDecimal("10.00")));
+        Expense dinner = addExpense(group, bob, List.of(alice, carol), new BigDecimal("7.50"));
+        balanceLedgerService.recordExpense(dinner);
+        Long dinnerId = dinner.getId();
+        em.flush();
+        em.clear();
+
+        QueryStats stats = QueryStats.start();
+        try {
+            deleteExpenseService.deleteExpense(dinnerId);
+        } finally {
+            QueryStats.clear();
+        }
+        em.flush();
+        em.clear();
+
+        assertEquals(0, stats.getEntityLoads(), "Neither the expense nor its splits should be hydrated");
+        assertFalse(expenseRepository.existsById(dinnerId));
+        assertEquals(0L, em.getEntityManager()
+                .createQuery("SELECT COUNT(s) FROM ExpenseSplit s WHERE s.expense.id = :id", Long.class)
+                .setParameter("id", dinnerId).getSingleResult());
+
+        Map<String, Map<Long, BigDecimal>> ledger = balanceLedgerService.getBalances(group.getId());
+        assertEquals(0, new BigDecimal("20.00").compareTo(ledger.get("INR").get(alice.getId())));
+        assertEquals(0, new BigDecimal("-10.00").compareTo(ledger.get("INR").get(bob.getId())));
+        Map<Long, BigDecimal> recalculated = balanceCalculationService.calculateNetBalances(group.getId()).get("INR");
+        recalculated.forEach((userId, balance) ->
+                assertEquals(0, balance.compareTo(ledger.get("INR").get(userId)), "Ledger drifted for user " + userId));
+    }
+
+    @Test
+    void deletingAMissingExpenseFails() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> deleteExpenseService.deleteExpense(-1L));
+        assertEquals("Expense not found", e.getMessage());
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> borrowers, BigDecimal share) {
+        Expense expense = Expense.builder()
+                .description("Dinner")
+                .amount(share.multiply(BigDecimal.valueOf(borrowers.size())))
+                .currencyCode("INR")
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .build();
+        expense.setSplits(borrowers.stream()
+                .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                .toList());
+        return em.persist(expense);
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .email(name + "@test.com")
+                .username(name)
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
@@ -0,0 +1,143 @@
+package com.grouppay.group.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.domain.GroupSummary;
+import com.grouppay.group.domain.GroupSummaryPage;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.observability.QueryStats;
+import com.grouppay.observability.QueryStatsHibernateConfig;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({GetUserGroupsService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, SimpleMeterRegistry.class,
+        GroupWriteLocks.class, QueryStatsHibernateConfig.class})
+class GetUserGroupsServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private GetUserGroupsService getUserGroupsService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Test
+    void pagesGroupsByLastActivityWithTheUsersBalance() {
+        User alice = createUser("list-alice");
+        User bob = createUser("list-bob");
+        Group quiet = createGroup("Quiet", alice);
+        Group trip = createGroup("Trip", alice, bob);
+        Group flat = createGroup("Flat", alice, bob);
+        balanceLedgerService.recordExpense(addExpense(flat, bob, List.of(alice, bob), new BigDecimal("4.00")));
+        balanceLedgerService.recordExpense(addExpense(trip, alice, List.of(alice, bob), new BigDecimal("15.00")));
+        em.flush();
+        em.clear();
+
+        QueryStats stats = QueryStats.start();
+        GroupSummaryPage first;
+        try {
+            first = getUserGroupsService.getUserGroups(alice.getId(), null, 2);
+        } finally {
+            QueryStats.clear();
+        }
+        assertEquals(0, stats.getEntityLoads(), "Listing must not hydrate groups or their collections");
+        assertEquals(3, stats.getStatements(), "Summaries, balances, uninitialized-ledger check");
+
+        assertEquals(List.of(trip.getId(), flat.getId()), first.groups().stream().map(GroupSummary::id).toList());
+        GroupSummary tripSummary = first.groups().get(0);
+        assertEquals("Trip", tripSummary.name());
+        assertEquals(2, tripSummary.memberCount());
+        assertEquals(0, new BigDecimal("15.00").compareTo(tripSummary.balances().get("INR")));
+        assertEquals(0, new BigDecimal("-4.00").compareTo(first.groups().get(1).balances().get("INR")));
+        assertNotNull(first.nextCursor());
+
+        GroupSummaryPage second = getUserGroupsService.getUserGroups(alice.getId(), first.nextCursor(), 2);
+        assertEquals(List.of(quiet.getId()), second.groups().stream().map(GroupSummary::id).toList());
+        assertTrue(second.groups().get(0).balances().isEmpty());
+        assertNotNull(second.groups().get(0).lastActivityAt(), "Groups without activity fall back to creation time");
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void groupsOlderThanTheLedgerAreListedWithoutRebuildingIt() {
+        User alice = createUser("list-dave");
+        User bob = createUser("list-erin");
+        Group legacy = createGroup("Legacy", alice, bob);
+        addExpense(legacy, bob, List.of(alice, bob), new BigDecimal("6.00"));   // written before the ledger existed
+        em.flush();
+        em.clear();
+
+        GroupSummaryPage page = getUserGroupsService.getUserGroups(alice.getId(), null, 10);
+
+        assertEquals(0, new BigDecimal("-6.00").compareTo(page.groups().get(0).balances().get("INR")));
+        em.clear();
+        assertNull(em.find(Group.class, legacy.getId()).getBalancesInitializedAt(), "Listing must not build the ledger");
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        User alice = createUser("list-carol");
+        assertThrows(IllegalArgumentException.class, () -> getUserGroupsService.getUserGroups(alice.getId(), "???", 10));
+        assertThrows(IllegalArgumentException.class, () -> getUserGroupsService.getUserGroups(alice.getId(), null, 0));
+    }
+
+    private Group createGroup(String name, User... members) {
+        Group group = Group.builder().name(name).createdBy(members[0]).members(new ArrayList<>()).build();
+        for (User user : members) {
+            group.getMembers().add(GroupMember.builder().group(group).user(user).isAdmin(false).build());
+        }
+        return em.persist(group);
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> borrowers, BigDecimal share) {
+        Expense expense = Expense.builder()
+                .description("Dinner")
+                .amount(share.multiply(BigDecimal.valueOf(borrowers.size())))
+                .currencyCode("INR")
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .build();
+        expense.setSplits(borrowers.stream()
+                .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                .toList());
+        return em.persist(expense);
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .email(name + "@test.com")
+                .username(name)
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
@@ -0,0 +1,167 @@
+package com.grouppay.group.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupDeletionStatus;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.group.infrastructure.GroupPurgeRepository;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The purge commits chunk by chunk, so every step here commits its own transaction.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "grouppay.groups.purge.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DeleteGroupService.class, GroupPurgeService.class, GroupPurgeRepository.class, BalanceLedgerService.class, GroupActivityWriter.class,
+        BalanceCalculationService.class, EntityBalanceAggregator.class, SqlBalanceAggregator.class,
+        SimpleMeterRegistry.class, GroupWriteLocks.class})
+class GroupPurgeServiceTest {
+
+    @Autowired
+    private DeleteGroupService deleteGroupService;
+
+    @Autowired
+    private GroupPurgeService groupPurgeService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void deletedGroupDisappearsAtOnceAndIsPurgedInChunks() {
+        List<User> users = createUsers("purge", 3);
+        Long groupId = createGroup(users);
+        for (int i = 0; i < 5; i++) {
+            addExpense(groupId, users.get(i % 3), users, new BigDecimal("2.00"));
+        }
+        Long keptGroupId = createGroup(users);
+        addExpense(keptGroupId, users.get(0), users, new BigDecimal("1.00"));
+
+        deleteGroupService.deleteGroup(groupId);
+
+        assertTrue(groupRepository.findById(groupId).isEmpty(), "Deleted group should no longer be visible");
+        assertEquals(List.of(keptGroupId), groupRepository.findByMembers_User_Id(users.get(0).getId()).stream()
+                .map(Group::getId).filter(id -> id.equals(groupId) || id.equals(keptGroupId)).toList());
+        GroupDeletionStatus before = deleteGroupService.getDeletionStatus(groupId);
+        assertEquals(5, before.remaining().get("expenses"));
+        assertEquals(3, before.remaining().get("group_members"));
+        assertEquals(3, before.remaining().get("group_balances"));
+        assertTrue(before.remaining().get("balance_deltas") > 0);
+
+        double expenseRowsBefore = purged("expenses");
+        // 5 expenses, 15 splits, 3 balances, some deltas, 3 members and the group, two rows at a time
+        long deleted = groupPurgeService.purgeGroup(groupId);
+
+        assertEquals(5 + 15 + 3 + before.remaining().get("balance_deltas") + 3 + 1, deleted);
+        assertEquals(expenseRowsBefore + 5, purged("expenses"));
+        RuntimeException gone = assertThrows(RuntimeException.class, () -> deleteGroupService.getDeletionStatus(groupId));
+        assertEquals("Group not found", gone.getMessage());
+        assertTrue(groupRepository.findById(keptGroupId).isPresent(), "Other groups are left alone");
+        assertEquals(3, balanceLedgerService.getBalances(keptGroupId).get("INR").size());
+    }
+
+    private double purged(String table) {
+        var counter = meterRegistry.find(AppConstants.METRIC_GROUP_PURGE_ROWS).tag("table", table).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * {@code payer} pays {@code share} for every participant.
+     */
+    private void addExpense(Long groupId, User payer, List<User> participants, BigDecimal share) {
+        tx.executeWithoutResult(s -> {
+            Expense expense = Expense.builder()
+                    .description("Dinner")
+                    .amount(share.multiply(BigDecimal.valueOf(participants.size())))
+                    .currencyCode("INR")
+                    .paidBy(payer)
+                    .group(groupRepository.getReferenceById(groupId))
+                    .type(ExpenseType.EQUAL)
+                    .build();
+            expense.setSplits(participants.stream()
+                    .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                    .toList());
+            balanceLedgerService.recordExpense(expenseRepository.save(expense));
+        });
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        return tx.execute(s -> {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = prefix + i + "-" + System.nanoTime();
+                users.add(userRepository.save(User.builder()
+                        .username(name)
+                        .email(name + "@example.com")
+                        .password("secret")
+                        .role(Role.USER)
+                        .build()));
+            }
+            return users;
+        });
+    }
+
+    private Long createGroup(List<User> members) {
+        return tx.execute(s -> {
+            Group group = Group.builder().name("Purge").createdBy(members.get(0)).members(new ArrayList<>()).build();
+            for (User user : members) {
+                group.getMembers().add(GroupMember.builder().group(group).user(user).isAdmin(false).build());
+            }
+            return groupRepository.save(group).getId();
+        });
+    }
+}
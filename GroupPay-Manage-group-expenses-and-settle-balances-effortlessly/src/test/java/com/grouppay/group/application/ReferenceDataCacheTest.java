@@ -0,0 +1,199 @@
+package com.grouppay.group.application;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.domain.BulkMembershipResult;
+import com.grouppay.group.infrastructure.GroupMemberBatchWriter;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.concurrency.TransactionRetryExecutor;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Second-level cache behaviour for {@link User} and {@code Group.members}.
+ * <p>
+ * Every step runs in its own committed transaction, because cache entries are only
+ * shared between sessions once the writing transaction completes.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AddMemberService.class, NotificationService.class, NotificationBatchWriter.class, TransactionRetryExecutor.class,
+        GroupWriteLocks.class, GroupMemberBatchWriter.class, SimpleMeterRegistry.class})
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private AddMemberService addMemberService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void userLookupsHitCacheAndSeeProfileUpdates() {
+        Long userId = tx.execute(s -> userRepository.save(user("cache-profile")).getId());
+        tx.executeWithoutResult(s -> userRepository.findById(userId).orElseThrow()); // IDENTITY inserts are not cached
+
+        statistics.clear();
+        tx.executeWithoutResult(s -> userRepository.findById(userId).orElseThrow());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount(), "Lookup by id is served from the cache");
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // Same shape as UserController.updateProfile: detached entity merged through save()
+        User detached = tx.execute(s -> userRepository.findById(userId).orElseThrow());
+        detached.setCurrencyCode("EUR");
+        detached.setAvatarId(7);
+        userRepository.save(detached);
+
+        statistics.clear();
+        User reloaded = tx.execute(s -> userRepository.findById(userId).orElseThrow());
+        assertEquals("EUR", reloaded.getCurrencyCode());
+        assertEquals(7, reloaded.getAvatarId());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount(), "Update refreshed the entry instead of evicting it");
+    }
+
+    @Test
+    void memberCollectionIsCachedAndInvalidatedOnMembershipChanges() {
+        User admin = tx.execute(s -> userRepository.save(user("cache-admin")));
+        User guest = tx.execute(s -> userRepository.save(user("cache-guest")));
+        Long groupId = tx.execute(s -> {
+            Group group = Group.builder().name("Cached").createdBy(admin).members(new ArrayList<>()).build();
+            group.getMembers().add(GroupMember.builder().group(group).user(admin).isAdmin(true).build());
+            return groupRepository.save(group).getId();
+        });
+
+        assertEquals(Set.of(admin.getId()), memberIds(groupId));
+        statistics.clear();
+        assertEquals(Set.of(admin.getId()), memberIds(groupId));
+        assertEquals(1, statistics.getCollectionStatistics(Group.class.getName() + ".members").getCacheHitCount());
+
+        addMemberService.addMember(groupId, guest.getId());
+        assertEquals(Set.of(admin.getId(), guest.getId()), memberIds(groupId));
+
+        addMemberService.removeMember(groupId, admin.getId());
+        assertEquals(Set.of(guest.getId()), memberIds(groupId));
+    }
+
+    @Test
+    void bulkMembershipChangesInvalidateTheCachedMemberList() {
+        User admin = tx.execute(s -> userRepository.save(user("bulk-admin")));
+        List<Long> guests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            guests.add(tx.execute(s -> userRepository.save(user("bulk-guest")).getId()));
+        }
+        Long groupId = tx.execute(s -> {
+            Group group = Group.builder().name("Event").createdBy(admin).members(new ArrayList<>()).build();
+            group.getMembers().add(GroupMember.builder().group(group).user(admin).isAdmin(true).build());
+            return groupRepository.save(group).getId();
+        });
+        memberIds(groupId);   // cache the member list
+
+        statistics.clear();
+        BulkMembershipResult result = addMemberService.addMembers(groupId,
+                List.of(guests.get(0), admin.getId(), guests.get(1), guests.get(0), guests.get(2)));
+        assertEquals(guests, result.added());
+        assertEquals(List.of(admin.getId()), result.alreadyMembers());
+        assertTrue(statistics.getPrepareStatementCount() <= 6,
+                "Hibernate statements do not grow with the number of users: " + statistics.getPrepareStatementCount());
+        assertEquals(Set.of(admin.getId(), guests.get(0), guests.get(1), guests.get(2)), memberIds(groupId));
+
+        BulkMembershipResult retry = addMemberService.addMembers(groupId, guests);
+        assertTrue(retry.added().isEmpty());
+
+        assertEquals(2, addMemberService.removeMembers(groupId, List.of(guests.get(0), guests.get(2), -1L)));
+        assertEquals(Set.of(admin.getId(), guests.get(1)), memberIds(groupId));
+
+        assertThrows(RuntimeException.class, () -> addMemberService.addMembers(groupId, List.of(-1L)));
+    }
+
+    @Test
+    void oversizedBulkRequestsAreRejected() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 501).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> addMemberService.addMembers(1L, tooMany));
+        assertThrows(IllegalArgumentException.class, () -> addMemberService.removeMembers(1L, tooMany));
+    }
+
+    @Test
+    void membershipWritesNeverLoadTheMemberList() {
+        User admin = tx.execute(s -> userRepository.save(user("nohydrate-admin")));
+        User guest = tx.execute(s -> userRepository.save(user("nohydrate-guest")));
+        Long groupId = tx.execute(s -> {
+            Group group = Group.builder().name("Large").createdBy(admin).members(new ArrayList<>()).build();
+            group.getMembers().add(GroupMember.builder().group(group).user(admin).isAdmin(true).build());
+            return groupRepository.save(group).getId();
+        });
+
+        statistics.clear();
+        addMemberService.addMember(groupId, guest.getId());
+        assertThrows(IllegalArgumentException.class, () -> addMemberService.addMember(groupId, guest.getId()));
+        addMemberService.removeMember(groupId, guest.getId());
+        addMemberService.removeMember(groupId, guest.getId());   // not a member any more: no-op
+
+        var members = statistics.getCollectionStatistics(Group.class.getName() + ".members");
+        assertEquals(0, members.getFetchCount() + members.getCacheHitCount(), "Member list was loaded");
+        assertEquals(Set.of(admin.getId()), memberIds(groupId));
+    }
+
+    private Set<Long> memberIds(Long groupId) {
+        return tx.execute(s -> groupRepository.findById(groupId).orElseThrow().getMembers().stream()
+                .map(m -> m.getUser().getId())
+                .collect(Collectors.toSet()));
+    }
+
+    private User user(String prefix) {
+        String name = prefix + "-" + System.nanoTime();
+        return User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("secret")
+                .role(Role.USER)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.grouppay.group.infrastructure;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import(GroupMemberBatchWriter.class)
+class GroupMemberBatchWriterTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private GroupMemberBatchWriter groupMemberBatchWriter;
+
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+
+    @Test
+    void insertsOnlyUsersThatAreNotMembersYet() {
+        User admin = createUser("writer-admin");
+        User guest = createUser("writer-guest");
+        User other = createUser("writer-other");
+        Group group = createGroup(admin);
+
+        List<Long> added = groupMemberBatchWriter.insertMembers(group.getId(), List.of(guest.getId(), admin.getId(), other.getId()));
+
+        assertEquals(List.of(guest.getId(), other.getId()), added);
+        assertTrue(groupMemberRepository.findByGroupIdAndUserId(group.getId(), other.getId()).isPresent());
+        assertTrue(groupMemberBatchWriter.insertMembers(group.getId(), List.of(guest.getId(), other.getId())).isEmpty());
+    }
+
+    @Test
+    void unknownUsersAreRejectedNotReportedAsMembers() {
+        Group group = createGroup(createUser("writer-owner"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> groupMemberBatchWriter.insertMembers(group.getId(), List.of(-1L)));
+    }
+
+    private Group createGroup(User admin) {
+        Group group = Group.builder().name("Batch").createdBy(admin).members(new ArrayList<>()).build();
+        group.getMembers().add(GroupMember.builder().group(group).user(admin).isAdmin(true).build());
+        em.persist(group);
+        em.flush();
+        return group;
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .email(name + "@test.com")
+                .username(name)
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
@@ -0,0 +1,37 @@
+package com.grouppay.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FailoverIdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final IdempotencyStore redis = mock(IdempotencyStore.class);
+    private final FailoverIdempotencyStore store = new FailoverIdempotencyStore(
+            redis, new InMemoryIdempotencyStore(), Duration.ofSeconds(30), now::get);
+
+    @Test
+    void failureKeepsCallsOffRedisUntilTheCoolDownEnds() {
+        when(redis.claim(anyString(), anyString(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(store.claim("a", "hash", Duration.ofMinutes(1)));
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertTrue(store.claim("b", "hash", Duration.ofMinutes(1)));
+        verify(redis, times(1)).claim(anyString(), anyString(), any());
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        reset(redis);
+        when(redis.claim(anyString(), anyString(), any())).thenReturn(true);
+        assertTrue(store.claim("c", "hash", Duration.ofMinutes(1)));
+        assertTrue(store.claim("d", "hash", Duration.ofMinutes(1)));
+        verify(redis, times(2)).claim(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,212 @@
+package com.grouppay.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retryReplaysFirstResponseWithoutExecutingAgain() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+        FilterChain chain = created("{\"id\":1}");
+
+        MockHttpServletResponse first = post(filter, "key-1", "10.00", chain);
+        MockHttpServletResponse retry = post(filter, "key-1", "10.00", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForInFlightResult() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (req, res) -> {
+            executions.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            res.setContentType("application/json");
+            res.getWriter().write("{\"id\":7}");
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(pool.submit(() -> post(filter, "key-2", "10.00", slow)));
+            }
+            while (executions.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);   // let the duplicates reach the wait
+            release.countDown();
+
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertEquals("{\"id\":7}", response.get(5, TimeUnit.SECONDS).getContentAsString());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, executions.get(), "Only the first request may execute");
+    }
+
+    @Test
+    void reusingKeyForDifferentRequestIsRejected() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+
+        post(filter, "key-3", "10.00", created("{\"id\":1}"));
+        MockHttpServletResponse other = post(filter, "key-3", "99.00", created("{\"id\":2}"));
+
+        assertEquals(422, other.getStatus());
+        assertEquals(1, executions.get());
+        assertEquals(1, meterRegistry.get(AppConstants.METRIC_IDEMPOTENCY_REQUESTS)
+                .tag("outcome", "mismatch").counter().count());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+        FilterChain failing = (req, res) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) res).setStatus(500);
+        };
+
+        post(filter, "key-4", "10.00", failing);
+        MockHttpServletResponse retry = post(filter, "key-4", "10.00", created("{\"id\":4}"));
+
+        assertEquals(2, executions.get());
+        assertEquals("{\"id\":4}", retry.getContentAsString());
+    }
+
+    @Test
+    void fallsBackToMemoryWhenRedisIsDown() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        IdempotencyFilter filter = filter("redis", new RedisIdempotencyStore(redisTemplate, new ObjectMapper()));
+        FilterChain chain = created("{\"id\":5}");
+
+        post(filter, "key-5", "10.00", chain);
+        MockHttpServletResponse retry = post(filter, "key-5", "10.00", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        verify(redisTemplate, times(1)).opsForValue();   // the retry skipped Redis during the cool-down
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotTouched() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+        FilterChain chain = created("{\"id\":6}");
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/expenses");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void cachedBodyCanBeReadWithAReadListener() throws Exception {
+        IdempotencyFilter filter = filter("memory", null);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicInteger allDataRead = new AtomicInteger();
+        FilterChain nonBlocking = (req, res) -> {
+            req.startAsync();
+            ServletInputStream in = req.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[4];
+                    while (in.isReady() && !in.isFinished()) {
+                        int read = in.read(buffer);
+                        received.write(buffer, 0, read);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+            res.setContentType("application/json");
+            res.getWriter().write("{\"id\":7}");
+        };
+
+        post(filter, "key-7", "5.00", nonBlocking);
+
+        assertEquals("{\"2\":5.00}", received.toString(StandardCharsets.UTF_8));
+        assertEquals(1, allDataRead.get());
+    }
+
+    private IdempotencyFilter filter(String mode, RedisIdempotencyStore redisStore) {
+        return new IdempotencyFilter(new InMemoryIdempotencyStore(), redisStore, meterRegistry, mode,
+                Set.of("/expenses"), Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(5),
+                Duration.ofSeconds(30));
+    }
+
+    private FilterChain created(String body) {
+        return (req, res) -> {
+            executions.incrementAndGet();
+            req.getInputStream().readAllBytes();   // the controller still sees the body
+            res.setContentType("application/json");
+            res.getWriter().write(body);
+        };
+    }
+
+    private MockHttpServletResponse post(IdempotencyFilter filter, String key, String amount, FilterChain chain)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/expenses");
+        request.addHeader(AppConstants.IDEMPOTENCY_KEY_HEADER, key);
+        request.setParameter("groupId", "1");
+        request.setParameter("amount", amount);
+        request.setContent("{\"2\":5.00}".getBytes(StandardCharsets.UTF_8));
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,242 @@
+package com.grouppay.notification;
+
+import com.grouppay.event.EventBatchProcessor;
+import com.grouppay.event.ExpenseDeletedEvent;
+import com.grouppay.event.KafkaConsumerConfig;
+import com.grouppay.event.KafkaProducerConfig;
+import com.grouppay.event.SettlementCreatedEvent;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the notification consumers against an embedded broker. The consumers commit their own transactions,
+ * so nothing here runs inside a test transaction.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.kafka.consumer.group-id=notification-consumer-test",
+        "grouppay.kafka.partitions=3",
+        "grouppay.kafka.consumer.concurrency=3",
+        "grouppay.kafka.consumer.retry-backoff=PT0.1S"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EmbeddedKafka(kraft = true, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@Import({KafkaConsumerConfig.class, KafkaProducerConfig.class, EventBatchProcessor.class,
+        SettlementNotificationConsumer.class, ExpenseNotificationConsumer.class, NotificationService.class,
+        NotificationBatchWriter.class, SimpleMeterRegistry.class})
+class NotificationConsumerKafkaTest {
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void deletedExpenseNotifiesPayerAndParticipantsOnce() throws Exception {
+        List<User> users = createUsers("deleted", 3);
+        List<Long> ids = users.stream().map(User::getId).toList();
+
+        kafkaTemplate.send(AppConstants.EXPENSE_DELETED_TOPIC, "1", ExpenseDeletedEvent.builder()
+                .expenseId(1L)
+                .groupId(1L)
+                .amount(new BigDecimal("30.00"))
+                .currencyCode("INR")
+                .payerId(ids.get(0))
+                .participantIds(ids)    // the payer's own split must not notify them twice
+                .build());
+
+        awaitNotifications(ids, 3);
+        for (Long id : ids) {
+            assertEquals(1, notificationsFor(List.of(id)));
+        }
+    }
+
+    @Test
+    void redeliveredEventDoesNotNotifyTwice() throws Exception {
+        List<User> users = createUsers("redelivered", 3);
+        List<Long> ids = users.stream().map(User::getId).toList().subList(0, 2);
+        List<Long> marker = List.of(users.get(2).getId());
+
+        kafkaTemplate.send(AppConstants.EXPENSE_DELETED_TOPIC, "2", expenseDeleted(2L, ids)).get();
+        awaitNotifications(ids, 2);
+        // Same event again, as after a rebalance before the offset commit; the next event on the partition
+        // shows when it has been consumed
+        kafkaTemplate.send(AppConstants.EXPENSE_DELETED_TOPIC, "2", expenseDeleted(2L, ids)).get();
+        kafkaTemplate.send(AppConstants.EXPENSE_DELETED_TOPIC, "2", expenseDeleted(3L, marker)).get();
+        awaitNotifications(marker, 1);
+
+        assertEquals(2, notificationsFor(ids));
+    }
+
+    @Test
+    void poisonRecordGoesToDeadLetterTopicAndTheRestAreConsumed() throws Exception {
+        List<User> users = createUsers("poison", 2);
+        List<Long> ids = users.stream().map(User::getId).toList();
+
+        try (Consumer<String, byte[]> deadLetters = deadLetterConsumer(AppConstants.SETTLEMENT_CREATED_TOPIC)) {
+            try (KafkaProducer<String, byte[]> raw = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                    new StringSerializer(), new ByteArraySerializer())) {
+                raw.send(new ProducerRecord<>(AppConstants.SETTLEMENT_CREATED_TOPIC, "7",
+                        "not an event".getBytes(StandardCharsets.UTF_8))).get();
+            }
+            kafkaTemplate.send(AppConstants.SETTLEMENT_CREATED_TOPIC, "7", settlement(7L, 7L, 1, ids.get(0), ids.get(1))).get();
+
+            ConsumerRecord<String, byte[]> dead = KafkaTestUtils.getSingleRecord(deadLetters,
+                    AppConstants.SETTLEMENT_CREATED_TOPIC + AppConstants.DEAD_LETTER_TOPIC_SUFFIX, Duration.ofSeconds(30));
+            assertEquals("7", dead.key());
+            assertEquals("not an event", new String(dead.value(), StandardCharsets.UTF_8));
+        }
+        awaitNotifications(ids, 2);
+    }
+
+    /**
+     * Publishes settlement events for many groups and measures how fast the consumers turn them into
+     * notification rows. Run with {@code mvn test -Pbenchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void settlementFanoutThroughput() throws Exception {
+        int groups = 100;
+        int eventsPerGroup = 50;
+        List<Long> ids = createUsers("fanout", 20).stream().map(User::getId).toList();
+
+        long start = System.nanoTime();
+        for (int e = 0; e < eventsPerGroup; e++) {
+            for (int g = 0; g < groups; g++) {
+                long groupId = 1_000 + g;
+                Long payer = ids.get((g + e) % ids.size());
+                Long payee = ids.get((g + e + 1) % ids.size());
+                kafkaTemplate.send(AppConstants.SETTLEMENT_CREATED_TOPIC, String.valueOf(groupId),
+                        settlement(100_000L + e * groups + g, groupId, 1, payer, payee));
+            }
+        }
+        kafkaTemplate.flush();
+        int events = groups * eventsPerGroup;
+        awaitNotifications(ids, 2L * events);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        DistributionSummary batches = meterRegistry.find(AppConstants.METRIC_EVENT_BATCH)
+                .tag("topic", AppConstants.SETTLEMENT_CREATED_TOPIC).summary();
+        System.out.printf("%d settlement events -> %d notifications in %.2fs: %.0f events/s, mean batch %.1f records%n",
+                events, 2L * events, seconds, events / seconds, batches == null ? 0 : batches.mean());
+        assertNotNull(batches);
+        assertTrue(batches.mean() > 1, "Listeners should receive poll batches, not single records");
+    }
+
+    private static ExpenseDeletedEvent expenseDeleted(Long expenseId, List<Long> participantIds) {
+        return ExpenseDeletedEvent.builder()
+                .expenseId(expenseId)
+                .groupId(2L)
+                .amount(new BigDecimal("8.00"))
+                .currencyCode("INR")
+                .payerId(participantIds.get(0))
+                .participantIds(participantIds)
+                .build();
+    }
+
+    private static SettlementCreatedEvent settlement(Long settlementId, Long groupId, int version, Long payerId,
+                                                     Long payeeId) {
+        return SettlementCreatedEvent.builder()
+                .settlementId(settlementId)
+                .groupId(groupId)
+                .batchVersion(version)
+                .payerId(payerId)
+                .payeeId(payeeId)
+                .amount(new BigDecimal("12.50"))
+                .currencyCode("INR")
+                .build();
+    }
+
+    private Consumer<String, byte[]> deadLetterConsumer(String topic) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dead-letter-test", "true", broker);
+        Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer();
+        consumer.subscribe(List.of(topic + AppConstants.DEAD_LETTER_TOPIC_SUFFIX));
+        return consumer;
+    }
+
+    private void awaitNotifications(List<Long> userIds, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (notificationsFor(userIds) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, notificationsFor(userIds));
+    }
+
+    private long notificationsFor(List<Long> userIds) {
+        String in = String.join(",", userIds.stream().map(String::valueOf).toList());
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE user_id IN (" + in + ")", Long.class);
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        return new TransactionTemplate(transactionManager).execute(s -> {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = prefix + i + "-" + System.nanoTime();
+                users.add(userRepository.save(User.builder()
+                        .username(name)
+                        .email(name + "@example.com")
+                        .password("secret")
+                        .role(Role.USER)
+                        .build()));
+            }
+            return users;
+        });
+    }
+}
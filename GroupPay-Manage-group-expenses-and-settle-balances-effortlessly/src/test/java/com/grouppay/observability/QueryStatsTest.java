@@ -0,0 +1,93 @@
+package com.grouppay.observability;
+
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import(QueryStatsHibernateConfig.class)
+class QueryStatsTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hibernateHooksCountStatementsJdbcTimeAndEntityLoads() {
+        createUsers("hooks", 3);
+
+        QueryStats stats = QueryStats.start();
+        try {
+            assertEquals(3, userRepository.findAll().stream()
+                    .filter(u -> u.getUsername().startsWith("hooks")).count());
+        } finally {
+            QueryStats.clear();
+        }
+
+        assertEquals(1, stats.getStatements());
+        assertTrue(stats.getEntityLoads() >= 3);
+        assertTrue(stats.getJdbcNanos() > 0);
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void filterPublishesHeadersAndMetricsPerRequest() throws Exception {
+        List<User> users = createUsers("filter", 3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryStatsFilter filter = new QueryStatsFilter(registry, true, 2);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/me/summary");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/me/summary");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            for (User user : users) {
+                userRepository.findByEmail(user.getEmail()).orElseThrow();   // one query per user: N+1 shape
+            }
+            res.getWriter().write("ok");
+        });
+
+        assertEquals("3", response.getHeader(QueryStatsFilter.STATEMENTS_HEADER));
+        assertNotNull(response.getHeader(QueryStatsFilter.JDBC_TIME_HEADER));
+        assertEquals("3", response.getHeader(QueryStatsFilter.ENTITY_LOADS_HEADER));
+        assertEquals("ok", response.getContentAsString());
+        assertEquals(3, registry.get("grouppay.request.statements")
+                .tags("method", "GET", "uri", "/users/me/summary").summary().totalAmount());
+        assertEquals(1, registry.get("grouppay.request.jdbc").timer().count());
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(em.persist(User.builder()
+                    .username(prefix + i)
+                    .email(prefix + i + "@example.com")
+                    .password("secret")
+                    .role(Role.USER)
+                    .build()));
+        }
+        em.flush();
+        em.clear();
+        return users;
+    }
+}
@@ -0,0 +1,74 @@
+package com.grouppay.ratelimit;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger logins = new AtomicInteger();
+    private final FilterChain chain = (req, res) -> logins.incrementAndGet();
+    private final LoginRateLimitFilter filter =
+            new LoginRateLimitFilter(null, meterRegistry, true, "memory", Duration.ofMinutes(1), 5, 3, 1000, 1);
+
+    @Test
+    void repeatedAttemptsOnOneEmailAreRejectedBeforeLogin() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, login("10.0.0.1", "victim@example.com").getStatus());
+        }
+        // Another address, same account
+        MockHttpServletResponse rejected = login("10.0.0.2", "Victim@Example.com ");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("60", rejected.getHeader("Retry-After"));
+        assertEquals(3, logins.get(), "A rejected attempt never reaches the login");
+        assertEquals(200, login("10.0.0.2", "someone@example.com").getStatus());
+        assertEquals(1.0, meterRegistry.get(AppConstants.METRIC_LOGIN_RATE_LIMIT).tag("outcome", "rejected_email")
+                .counter().count());
+    }
+
+    @Test
+    void oneAddressSprayingAccountsIsRejected() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("10.0.0.9", "user" + i + "@example.com").getStatus());
+        }
+
+        assertEquals(429, login("10.0.0.9", "user9@example.com").getStatus());
+        assertEquals(200, login("10.0.0.10", "user9@example.com").getStatus());
+        assertEquals(1.0, meterRegistry.get(AppConstants.METRIC_LOGIN_RATE_LIMIT).tag("outcome", "rejected_ip")
+                .counter().count());
+    }
+
+    @Test
+    void otherEndpointsAreNotCounted() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/register");
+            request.setServletPath("/auth/register");
+            request.setRemoteAddr("10.0.0.20");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+
+        assertEquals(10, logins.get());
+        assertEquals(200, login("10.0.0.20", "fresh@example.com").getStatus());
+    }
+
+    private MockHttpServletResponse login(String address, String email) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", LoginRateLimitFilter.LOGIN_PATH);
+        request.setServletPath(LoginRateLimitFilter.LOGIN_PATH);
+        request.setRemoteAddr(address);
+        request.setParameter("email", email);
+        request.setParameter("password", "guess");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package com.grouppay.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedSlidingWindowCounterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final StripedSlidingWindowCounter counter =
+            new StripedSlidingWindowCounter(Duration.ofSeconds(60), 1024, now::get);
+
+    @Test
+    void previousWindowFadesOutAsTheWindowSlides() {
+        now.set(60_000 * 100);   // start of a window
+        for (int i = 0; i < 10; i++) {
+            counter.increment("ip:1.2.3.4");
+        }
+        assertEquals(11, counter.increment("ip:1.2.3.4"));
+
+        now.addAndGet(60_000 + 15_000);   // a quarter into the next window: 3/4 of the previous 11 still count
+        assertEquals(1 + 8, counter.increment("ip:1.2.3.4"));
+        now.addAndGet(45_000);             // next window: the 11 have slid out, the 1 counts fully
+        assertEquals(1 + 1, counter.increment("ip:1.2.3.4"));
+        assertEquals(1, counter.increment("ip:5.6.7.8"), "Keys are counted separately");
+    }
+
+    @Test
+    void idleGapsStartFromZero() {
+        for (int i = 0; i < 5; i++) {
+            counter.increment("email:a@b.c");
+        }
+        now.addAndGet(60_000 * 7);
+
+        assertEquals(1, counter.increment("email:a@b.c"));
+    }
+
+    @Test
+    void concurrentIncrementsAreNeverLost() throws Exception {
+        now.set(60_000 * 200);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    counter.increment("ip:10.0.0.1");
+                    counter.increment("ip:10.0.0." + (i % 50 + 2));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Collisions can only add to a count
+        assertTrue(counter.increment("ip:10.0.0.1") >= 8001);
+    }
+
+    @Test
+    void sizedSketchStaysWithinItsOvercountUnderAFlood() {
+        now.set(60_000 * 300);
+        StripedSlidingWindowCounter sized = new StripedSlidingWindowCounter(
+                Duration.ofSeconds(60), StripedSlidingWindowCounter.widthFor(100_000, 2), now::get);
+        for (int i = 0; i < 100_000; i++) {
+            sized.increment("email:flood" + i + "@example.com");
+        }
+
+        long overLimit = IntStream.range(0, 1000)
+                .filter(i -> sized.increment("email:user" + i + "@example.com") > 1 + 2)
+                .count();
+        assertTrue(overLimit <= 20, overLimit + " of 1000 honest keys read more than 2 high");
+    }
+}
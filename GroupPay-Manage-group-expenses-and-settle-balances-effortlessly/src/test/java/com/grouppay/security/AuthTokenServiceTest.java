@@ -0,0 +1,98 @@
+package com.grouppay.security;
+
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.dto.AuthResponse;
+import com.grouppay.user.application.AuthTokenService;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token operations commit their own transactions, like in production.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "jwt.secret=test-secret-that-is-at-least-32-bytes-long")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AuthTokenService.class, JwtUtil.class, TokenRevocationList.class, SimpleMeterRegistry.class})
+class AuthTokenServiceTest {
+
+    @Autowired
+    private AuthTokenService authTokenService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Test
+    void refreshRotatesAndReuseRevokesEveryRefreshToken() {
+        User user = createUser("refresh");
+        AuthResponse login = authTokenService.issue(user.getId(), user.getEmail());
+        AuthResponse otherDevice = authTokenService.issue(user.getId(), user.getEmail());
+
+        AuthResponse refreshed = authTokenService.refresh(login.getRefreshToken());
+        assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(user.getEmail(), jwtUtil.parse(refreshed.getToken()).email());
+        assertEquals(900L, refreshed.getExpiresIn());
+
+        // The rotated token shows up again: treat it as stolen
+        RuntimeException reuse = assertThrows(RuntimeException.class, () -> authTokenService.refresh(login.getRefreshToken()));
+        assertEquals("Invalid refresh token", reuse.getMessage());
+        assertThrows(RuntimeException.class, () -> authTokenService.refresh(refreshed.getRefreshToken()));
+        assertThrows(RuntimeException.class, () -> authTokenService.refresh(otherDevice.getRefreshToken()));
+        assertThrows(RuntimeException.class, () -> authTokenService.refresh("not-a-token"));
+    }
+
+    @Test
+    void logoutRevokesTheAccessTokenAndValidTokensSkipTheDatabase() {
+        User user = createUser("logout");
+        AuthResponse session = authTokenService.issue(user.getId(), user.getEmail());
+        AuthResponse other = authTokenService.issue(user.getId(), user.getEmail());
+        String sessionJti = jwtUtil.parse(session.getToken()).jti();
+        double missesBefore = checks("filter_miss");
+
+        assertFalse(tokenRevocationList.isRevoked(sessionJti));
+        assertEquals(missesBefore + 1, checks("filter_miss"), "A valid token is answered by the filter alone");
+
+        authTokenService.logout(session.getRefreshToken(), session.getToken());
+
+        assertTrue(tokenRevocationList.isRevoked(sessionJti));
+        assertFalse(tokenRevocationList.isRevoked(jwtUtil.parse(other.getToken()).jti()));
+        assertThrows(RuntimeException.class, () -> authTokenService.refresh(session.getRefreshToken()));
+        assertNotNull(authTokenService.refresh(other.getRefreshToken()).getToken());
+    }
+
+    private double checks(String result) {
+        var counter = meterRegistry.find(AppConstants.METRIC_TOKEN_REVOCATION_CHECKS).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private User createUser(String prefix) {
+        String name = prefix + "-" + System.nanoTime();
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
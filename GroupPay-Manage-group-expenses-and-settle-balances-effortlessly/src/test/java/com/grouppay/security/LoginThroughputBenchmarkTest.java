@@ -0,0 +1,63 @@
+package com.grouppay.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Login throughput of the password hashing pool per BCrypt cost, with one hashing thread per core.
+ * <p>
+ * Each round submits {@link #LOGINS_PER_CORE} verifications per core at once, which is what a login storm
+ * looks like to the pool, and reports logins per second in total and per core. Use it to pick
+ * {@code grouppay.security.password.bcrypt-strength}: each step doubles the cost, so it should roughly halve
+ * the throughput. Plain JUnit rather than JMH, like the other benchmarks here; the warm-up round is discarded.
+ * </p>
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class LoginThroughputBenchmarkTest {
+
+    private static final int LOGINS_PER_CORE = 16;
+    private static final int[] STRENGTHS = {8, 9, 10, 11};
+
+    @Test
+    void throughputHalvesWithEachCostStep() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int logins = cores * LOGINS_PER_CORE;
+
+        System.out.printf("%-10s %8s %12s %14s %12s%n", "strength", "logins", "logins/s", "logins/s/core", "ms/login");
+        double previous = Double.MAX_VALUE;
+        for (int strength : STRENGTHS) {
+            PasswordEncoder encoder = new PasswordEncoderConfig().passwordEncoder("bcrypt", strength, 1000);
+            PasswordHasher hasher = new PasswordHasher(encoder, new SimpleMeterRegistry(), cores, logins);
+            String stored = encoder.encode("correct horse battery staple");
+
+            storm(hasher, stored, cores);   // warm-up
+            long start = System.nanoTime();
+            storm(hasher, stored, logins);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            hasher.shutdown();
+
+            double perSecond = logins / seconds;
+            System.out.printf("%-10d %8d %12.1f %14.2f %12.2f%n",
+                    strength, logins, perSecond, perSecond / cores, seconds * 1000 * cores / logins);
+            assertTrue(perSecond < previous, "A higher cost should lower throughput");
+            previous = perSecond;
+        }
+    }
+
+    private static void storm(PasswordHasher hasher, String stored, int logins) {
+        List<CompletableFuture<PasswordHasher.Verification>> results = new ArrayList<>(logins);
+        for (int i = 0; i < logins; i++) {
+            results.add(hasher.verify("correct horse battery staple", stored));
+        }
+        results.forEach(result -> assertTrue(result.join().matches()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.grouppay.security;
+
+import com.grouppay.shared.constants.AppConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void legacyAndWeakerHashesAreReplacedOnSuccessfulLogin() {
+        PasswordHasher hasher = new PasswordHasher(
+                new PasswordEncoderConfig().passwordEncoder("bcrypt", 5, 1000), meterRegistry, 2, 4);
+        // Stored before the {id} prefix existed
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+        String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+
+        PasswordHasher.Verification legacyLogin = hasher.verify("secret", legacy).join();
+        assertTrue(legacyLogin.matches());
+        assertTrue(legacyLogin.upgradedHash().startsWith("{bcrypt}$2a$05$"));
+        assertTrue(hasher.verify("secret", weaker).join().upgradedHash().startsWith("{bcrypt}$2a$05$"));
+
+        PasswordHasher.Verification current = hasher.verify("secret", legacyLogin.upgradedHash()).join();
+        assertTrue(current.matches());
+        assertNull(current.upgradedHash(), "A current hash is not rehashed");
+        assertFalse(hasher.verify("wrong", legacy).join().matches());
+    }
+
+    @Test
+    void switchingAlgorithmKeepsOldHashesVerifiable() {
+        String bcrypt = new PasswordEncoderConfig().passwordEncoder("bcrypt", 4, 1000).encode("secret");
+        PasswordHasher hasher = new PasswordHasher(
+                new PasswordEncoderConfig().passwordEncoder("pbkdf2", 4, 1000), meterRegistry, 1, 4);
+
+        PasswordHasher.Verification login = hasher.verify("secret", bcrypt).join();
+
+        assertTrue(login.matches());
+        assertTrue(login.upgradedHash().startsWith("{pbkdf2}"));
+    }
+
+    @Test
+    void unknownUserIsHashedOnThePoolAndNeverMatches() {
+        PasswordHasher hasher = new PasswordHasher(
+                new PasswordEncoderConfig().passwordEncoder("bcrypt", 4, 1000), meterRegistry, 1, 4);
+
+        assertFalse(hasher.verifyAbsentUser("secret").join().matches());
+        assertFalse(hasher.verifyAbsentUser("secret").join().matches());
+        assertEquals(2, meterRegistry.get(AppConstants.METRIC_PASSWORD_HASHING + ".queue.wait").timer().count());
+        hasher.shutdown();
+    }
+
+    @Test
+    void saturatedPoolShedsInsteadOfQueueing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        PasswordHasher hasher = new PasswordHasher(slow, meterRegistry, 1, 1);
+
+        CompletableFuture<String> running = hasher.encode("a");
+        started.await();
+        CompletableFuture<String> queued = hasher.encode("b");
+        assertEquals(1.0, meterRegistry.get(AppConstants.METRIC_PASSWORD_HASHING + ".queued").gauge().value());
+
+        assertThrows(PasswordHashingOverloadedException.class, () -> hasher.encode("c"));
+        assertEquals(1.0, meterRegistry.get(AppConstants.METRIC_PASSWORD_HASHING + ".rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.join());
+        assertEquals("hash", queued.join());
+        hasher.shutdown();
+    }
+}
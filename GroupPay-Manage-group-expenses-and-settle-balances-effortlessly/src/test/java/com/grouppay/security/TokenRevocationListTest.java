@@ -0,0 +1,106 @@
+package com.grouppay.security;
+
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.user.domain.RevokedToken;
+import com.grouppay.user.infrastructure.RevokedTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A generation lasts one access token lifetime, shortened here so the test can wait one out. Sync runs
+ * outside any transaction, as it does from the scheduler.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "jwt.secret=test-secret-that-is-at-least-32-bytes-long",
+        "grouppay.security.jwt.access-token-ttl=PT0.2S"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JwtUtil.class, TokenRevocationList.class, SimpleMeterRegistry.class})
+class TokenRevocationListTest {
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rotationDeletesExpiredRevocationsAndStillSyncsNewOnes() throws InterruptedException {
+        RevokedToken expired = revokedTokenRepository.save(RevokedToken.builder()
+                .jti(UUID.randomUUID().toString())
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build());
+        Thread.sleep(300);   // past one generation
+
+        // Revoked by another instance: only sync can put it in this instance's filter
+        String otherInstance = UUID.randomUUID().toString();
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(otherInstance)
+                .expiresAt(LocalDateTime.now().plusMinutes(15))
+                .build());
+
+        tokenRevocationList.sync();
+
+        assertFalse(revokedTokenRepository.existsById(expired.getId()), "Rotation should delete expired revocations");
+        assertTrue(tokenRevocationList.isRevoked(otherInstance));
+    }
+
+    @Test
+    void revocationCommittedAfterANewerOneIsStillSynced() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        String newer = UUID.randomUUID().toString();
+        jdbc.update("INSERT INTO revoked_tokens (id, jti, expires_at) VALUES (?, ?, ?)",
+                900_000, newer, LocalDateTime.now().plusMinutes(15));
+        tokenRevocationList.sync();
+        assertTrue(tokenRevocationList.isRevoked(newer));
+
+        // Got its id and timestamp first but committed after the sync above
+        String late = UUID.randomUUID().toString();
+        jdbc.update("INSERT INTO revoked_tokens (id, jti, expires_at, created_at) VALUES (?, ?, ?, ?)",
+                800_000, late, LocalDateTime.now().plusMinutes(15), LocalDateTime.now().minusSeconds(5));
+        tokenRevocationList.sync();
+
+        assertTrue(tokenRevocationList.isRevoked(late));
+    }
+
+    @Test
+    void rolledBackRevocationDoesNotReachTheFilter() {
+        String jti = UUID.randomUUID().toString();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tokenRevocationList.revoke(jti, Instant.now().plusSeconds(900));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(tokenRevocationList.isRevoked(jti));
+        assertEquals(1.0, meterRegistry.get(AppConstants.METRIC_TOKEN_REVOCATION_CHECKS).tag("result", "filter_miss")
+                .counter().count());
+    }
+}
@@ -0,0 +1,134 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares entity hydration against GROUP BY aggregation for a large group.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({EntityBalanceAggregator.class, SqlBalanceAggregator.class})
+class BalanceAggregationBenchmarkTest {
+
+    private static final int MEMBERS = 50;
+    private static final int EXPENSES = 2_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityBalanceAggregator entityBalanceAggregator;
+
+    @Autowired
+    private SqlBalanceAggregator sqlBalanceAggregator;
+
+    @Test
+    void aggregationLoadsFewerRowsAndAllocatesLess() {
+        Long groupId = seedGroup();
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Result entity = measure("entity", stats, () -> entityBalanceAggregator.aggregate(groupId));
+        Result sql = measure("sql", stats, () -> sqlBalanceAggregator.aggregate(groupId));
+
+        System.out.printf("%-8s %12s %12s %14s %10s%n", "path", "entities", "collections", "bytes/call", "ms/call");
+        for (Result r : List.of(entity, sql)) {
+            System.out.printf("%-8s %12d %12d %14d %10.2f%n", r.name, r.entityLoads, r.collectionLoads, r.allocatedBytes, r.millis);
+        }
+
+        assertEquals(0, sql.entityLoads, "Aggregation path must not hydrate entities");
+        assertTrue(entity.entityLoads >= EXPENSES, "Entity path loads every expense");
+        assertTrue(sql.allocatedBytes < entity.allocatedBytes, "Aggregation path should allocate less heap");
+    }
+
+    private Result measure(String name, Statistics stats, Runnable call) {
+        call.run(); // warm-up
+        em.clear();
+        stats.clear();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            call.run();
+            em.clear();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        return new Result(name, stats.getEntityLoadCount() / ROUNDS, stats.getCollectionLoadCount() / ROUNDS,
+                bytes / ROUNDS, elapsed / 1_000_000.0 / ROUNDS);
+    }
+
+    private Long seedGroup() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            users.add(em.persist(User.builder()
+                    .email("bench" + i + "@test.com")
+                    .username("bench" + i)
+                    .password("secret")
+                    .role(Role.USER)
+                    .build()));
+        }
+        Group group = em.persist(Group.builder().name("Benchmark").createdBy(users.get(0)).build());
+
+        BigDecimal share = new BigDecimal("12.34");
+        for (int e = 0; e < EXPENSES; e++) {
+            Expense expense = Expense.builder()
+                    .description("Expense " + e)
+                    .amount(share.multiply(BigDecimal.valueOf(MEMBERS)))
+                    .paidBy(users.get(e % MEMBERS))
+                    .group(group)
+                    .type(ExpenseType.EQUAL)
+                    .build();
+            List<ExpenseSplit> splits = new ArrayList<>();
+            for (User user : users) {
+                splits.add(ExpenseSplit.builder().expense(expense).user(user).amount(share).build());
+            }
+            expense.setSplits(splits);
+            em.persist(expense);
+            if (e % 200 == 0) {
+                em.flush();
+                em.clear();
+                users.replaceAll(u -> em.find(User.class, u.getId()));
+                group = em.find(Group.class, group.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+        return group.getId();
+    }
+
+    private record Result(String name, long entityLoads, long collectionLoads, long allocatedBytes, double millis) {
+    }
+}
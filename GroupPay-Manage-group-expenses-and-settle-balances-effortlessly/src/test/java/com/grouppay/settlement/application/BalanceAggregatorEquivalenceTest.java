@@ -0,0 +1,124 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({EntityBalanceAggregator.class, SqlBalanceAggregator.class})
+class BalanceAggregatorEquivalenceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityBalanceAggregator entityBalanceAggregator;
+
+    @Autowired
+    private SqlBalanceAggregator sqlBalanceAggregator;
+
+    @Test
+    void emptyGroupHasNoBalances() {
+        List<User> users = createUsers(2);
+        Group group = createGroup(users.get(0));
+
+        assertTrue(entityBalanceAggregator.aggregate(group.getId()).isEmpty());
+        assertTrue(sqlBalanceAggregator.aggregate(group.getId()).isEmpty());
+    }
+
+    @Test
+    void sqlAggregationMatchesEntityAggregation() {
+        List<User> users = createUsers(6);
+        Group group = createGroup(users.get(0));
+        Group otherGroup = createGroup(users.get(1));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 40; i++) {
+            addRandomExpense(group, users, random);
+            addRandomExpense(otherGroup, users, random); // must not leak into the first group
+        }
+        em.flush();
+        em.clear();
+
+        long[] expenseCounts = new long[2];
+        Map<String, Map<Long, BigDecimal>> expected =
+                entityBalanceAggregator.aggregate(group.getId(), count -> expenseCounts[0] = count);
+        em.clear();
+        Map<String, Map<Long, BigDecimal>> actual =
+                sqlBalanceAggregator.aggregate(group.getId(), count -> expenseCounts[1] = count);
+
+        assertArrayEquals(new long[]{40, 40}, expenseCounts, "Both aggregations count the group's expenses");
+
+        assertEquals(Set.of("INR", "USD"), expected.keySet());
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((currencyCode, balances) -> {
+            Map<Long, BigDecimal> actualBalances = actual.get(currencyCode);
+            assertEquals(balances.keySet(), actualBalances.keySet());
+            balances.forEach((userId, balance) ->
+                    assertEquals(0, balance.compareTo(actualBalances.get(userId)),
+                            "Balance mismatch for user " + userId + " in " + currencyCode + ": "
+                                    + balance + " vs " + actualBalances.get(userId)));
+            assertEquals(0, actualBalances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).signum(),
+                    "Balances in a group must sum to zero per currency");
+        });
+    }
+
+    private void addRandomExpense(Group group, List<User> users, Random random) {
+        User payer = users.get(random.nextInt(users.size()));
+        int borrowers = 1 + random.nextInt(users.size());
+        BigDecimal share = BigDecimal.valueOf(100 + random.nextInt(10_000), 2);
+
+        Expense expense = Expense.builder()
+                .description("Expense")
+                .amount(share.multiply(BigDecimal.valueOf(borrowers)))
+                .currencyCode(random.nextInt(4) == 0 ? "USD" : "INR")
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .build();
+        List<ExpenseSplit> splits = new ArrayList<>();
+        for (int i = 0; i < borrowers; i++) {
+            splits.add(ExpenseSplit.builder().expense(expense).user(users.get(i)).amount(share).build());
+        }
+        expense.setSplits(splits);
+        em.persist(expense);
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(em.persist(User.builder()
+                    .email("user" + i + "-" + System.nanoTime() + "@test.com")
+                    .username("user" + i + "-" + System.nanoTime())
+                    .password("secret")
+                    .role(Role.USER)
+                    .build()));
+        }
+        return users;
+    }
+
+    private Group createGroup(User creator) {
+        return em.persist(Group.builder().name("Trip").createdBy(creator).build());
+    }
+}
@@ -0,0 +1,154 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.settlement.domain.BalanceDelta;
+import com.grouppay.settlement.domain.BalanceDeltaReason;
+import com.grouppay.settlement.domain.BalancePoint;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({BalanceHistoryService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, SimpleMeterRegistry.class, GroupWriteLocks.class})
+class BalanceHistoryServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private BalanceHistoryService balanceHistoryService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Test
+    void balanceAsOfCountsOnlyEarlierDeltas() {
+        User alice = createUser("history-alice");
+        Group group = em.persist(Group.builder().name("History").createdBy(alice).build());
+        delta(group, alice, "INR", "100.00", T0);
+        delta(group, alice, "INR", "-30.50", T0.plusHours(1));
+        delta(group, alice, "USD", "5.00", T0.plusHours(2));
+
+        assertEquals(Map.of(), balanceHistoryService.getBalanceAsOf(group.getId(), alice.getId(), T0.minusSeconds(1)));
+        assertEquals(Map.of("INR", new BigDecimal("100.00")),
+                balanceHistoryService.getBalanceAsOf(group.getId(), alice.getId(), T0));
+        assertEquals(Map.of("INR", new BigDecimal("69.50")),
+                balanceHistoryService.getBalanceAsOf(group.getId(), alice.getId(), T0.plusMinutes(90)));
+        assertEquals(Map.of("INR", new BigDecimal("69.50"), "USD", new BigDecimal("5.00")),
+                balanceHistoryService.getBalanceAsOf(group.getId(), alice.getId(), T0.plusDays(1)));
+    }
+
+    @Test
+    void seriesIsSampledEvenlyOverTheRange() {
+        User bob = createUser("history-bob");
+        Group group = em.persist(Group.builder().name("Series").createdBy(bob).build());
+        delta(group, bob, "INR", "10.00", T0);
+        delta(group, bob, "INR", "10.00", T0.plusHours(2));
+        delta(group, bob, "INR", "-5.00", T0.plusHours(3));
+
+        List<BalancePoint> series = balanceHistoryService
+                .getBalanceSeries(group.getId(), bob.getId(), null, T0.plusHours(4), 5).get("INR");
+
+        assertEquals(List.of(T0, T0.plusHours(1), T0.plusHours(2), T0.plusHours(3), T0.plusHours(4)),
+                series.stream().map(BalancePoint::at).toList());
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("10.00"), new BigDecimal("20.00"),
+                        new BigDecimal("15.00"), new BigDecimal("15.00")),
+                series.stream().map(BalancePoint::balance).toList());
+        assertThrows(IllegalArgumentException.class, () -> balanceHistoryService
+                .getBalanceSeries(group.getId(), bob.getId(), T0.plusHours(1), T0, 5));
+    }
+
+    @Test
+    void cachedHistoryPicksUpNewDeltas() {
+        User carol = createUser("history-carol");
+        Group group = em.persist(Group.builder().name("Cached").createdBy(carol).build());
+        delta(group, carol, "INR", "1.00", T0);
+        assertEquals(new BigDecimal("1.00"),
+                balanceHistoryService.getBalanceAsOf(group.getId(), carol.getId(), T0.plusDays(1)).get("INR"));
+
+        delta(group, carol, "INR", "2.00", T0.plusHours(1));
+        assertEquals(new BigDecimal("3.00"),
+                balanceHistoryService.getBalanceAsOf(group.getId(), carol.getId(), T0.plusDays(1)).get("INR"));
+    }
+
+    @Test
+    void ledgerWritesAreLoggedAndReplayToCurrentBalance() {
+        User dave = createUser("history-dave");
+        User erin = createUser("history-erin");
+        Group group = em.persist(Group.builder().name("Ledger").createdBy(dave).build());
+        Expense dinner = addExpense(group, dave, List.of(dave, erin), new BigDecimal("40.00"));
+        balanceLedgerService.recordExpense(dinner);
+        balanceLedgerService.recordExpense(addExpense(group, erin, List.of(dave, erin), new BigDecimal("10.00")));
+        balanceLedgerService.recordPayment(group.getId(), "INR", erin.getId(), dave.getId(), new BigDecimal("5.00"));
+        balanceLedgerService.reverseExpense(dinner);
+
+        Map<Long, BigDecimal> ledger = balanceLedgerService.getBalances(group.getId()).get("INR");
+        LocalDateTime now = LocalDateTime.now().plusSeconds(1);
+        for (User user : List.of(dave, erin)) {
+            assertEquals(0, ledger.get(user.getId()).compareTo(
+                    balanceHistoryService.getBalanceAsOf(group.getId(), user.getId(), now).get("INR")));
+        }
+    }
+
+    private void delta(Group group, User user, String currencyCode, String amount, LocalDateTime at) {
+        em.persist(BalanceDelta.builder()
+                .group(group)
+                .user(user)
+                .currencyCode(currencyCode)
+                .amount(new BigDecimal(amount))
+                .reason(BalanceDeltaReason.EXPENSE)
+                .createdAt(at)
+                .build());
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> participants, BigDecimal amount) {
+        Expense expense = Expense.builder()
+                .description("Test")
+                .amount(amount)
+                .currencyCode("INR")
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .splits(new ArrayList<>())
+                .build();
+        BigDecimal share = amount.divide(BigDecimal.valueOf(participants.size()));
+        for (User participant : participants) {
+            expense.getSplits().add(ExpenseSplit.builder().expense(expense).user(participant).amount(share).build());
+        }
+        return em.persist(expense);
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .username(name)
+                .email(name + "@test.com")
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
@@ -0,0 +1,126 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.settlement.domain.CrossGroupTransfer;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({CrossGroupSettlementService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, SimpleMeterRegistry.class, GroupWriteLocks.class})
+class CrossGroupSettlementServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CrossGroupSettlementService crossGroupSettlementService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Test
+    void debtsBetweenFriendsAreNettedAcrossGroups() {
+        User alice = createUser("cross-alice");
+        User bob = createUser("cross-bob");
+        User carol = createUser("cross-carol");
+        Group trip = createGroup("Trip", alice, bob);
+        Group flat = createGroup("Flat", alice, bob, carol);
+        Group other = createGroup("Other", bob, carol);
+
+        // Trip: bob owes alice 50. Flat: alice owes bob 15, carol owes alice 4 USD. Other: not alice's group.
+        balanceLedgerService.recordExpense(addExpense(trip, alice, List.of(alice, bob), new BigDecimal("100.00"), "INR"));
+        balanceLedgerService.recordExpense(addExpense(flat, bob, List.of(alice, bob), new BigDecimal("30.00"), "INR"));
+        balanceLedgerService.recordExpense(addExpense(other, carol, List.of(bob, carol), new BigDecimal("1000.00"), "INR"));
+        balanceLedgerService.recordExpense(addExpense(flat, alice, List.of(alice, carol), new BigDecimal("8.00"), "USD"));
+
+        List<CrossGroupTransfer> transfers = crossGroupSettlementService.calculateForUser(alice.getId());
+
+        // Per group bob and alice would pay each other twice in INR; netted bob pays once
+        assertEquals(List.of(
+                new CrossGroupTransfer("INR", bob.getId(), alice.getId(), new BigDecimal("35.00")),
+                new CrossGroupTransfer("USD", carol.getId(), alice.getId(), new BigDecimal("4.00"))), transfers);
+    }
+
+    @Test
+    void greedySettlesEveryoneWithAtMostOneTransferLessThanUsers() {
+        Random random = new Random(7);
+        LongLongHashMap net = new LongLongHashMap();
+        long total = 0;
+        for (long userId = 1; userId < 2_000; userId++) {
+            long balance = random.nextInt(200_001) - 100_000;
+            net.put(userId, balance);
+            total += balance;
+        }
+        net.put(2_000, -total);
+
+        List<CrossGroupTransfer> transfers = new ArrayList<>();
+        CrossGroupSettlementService.minimizeCashFlow("INR", net, transfers);
+
+        assertTrue(transfers.size() < net.size());
+        for (CrossGroupTransfer transfer : transfers) {
+            assertTrue(transfer.amount().signum() > 0);
+            long minor = transfer.amount().movePointRight(2).longValueExact();
+            net.addTo(transfer.payerId(), minor);
+            net.addTo(transfer.payeeId(), -minor);
+        }
+        net.forEach((userId, balance) -> assertEquals(0, balance, "User " + userId + " is not settled"));
+    }
+
+    private Group createGroup(String name, User... members) {
+        Group group = Group.builder().name(name).createdBy(members[0]).members(new ArrayList<>()).build();
+        for (User member : members) {
+            group.getMembers().add(GroupMember.builder().group(group).user(member).isAdmin(false).build());
+        }
+        return em.persist(group);
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> participants, BigDecimal amount, String currencyCode) {
+        Expense expense = Expense.builder()
+                .description("Shared")
+                .amount(amount)
+                .currencyCode(currencyCode)
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .build();
+        BigDecimal share = amount.divide(BigDecimal.valueOf(participants.size()));
+        expense.setSplits(participants.stream()
+                .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                .toList());
+        return em.persist(expense);
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .username(name)
+                .email(name + "@test.com")
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
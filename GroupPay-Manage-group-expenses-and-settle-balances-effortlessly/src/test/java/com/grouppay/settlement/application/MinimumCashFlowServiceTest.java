@@ -0,0 +1,78 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.group.domain.Group;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.shared.constants.AppConstants;
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MinimumCashFlowServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MinimumCashFlowService service = new MinimumCashFlowService(userRepository, meterRegistry);
+
+    @Test
+    void recordsTimingMembersAndTransactions() {
+        stubUsers();
+
+        List<Settlement> plan = service.calculateSettlements(new Group(), "USD", Map.of(
+                1L, new BigDecimal("30.00"),
+                2L, new BigDecimal("-20.00"),
+                3L, new BigDecimal("-10.00"),
+                4L, BigDecimal.ZERO));
+
+        assertEquals(2, plan.size());
+        assertTrue(plan.stream().allMatch(s -> s.getCurrencyCode().equals("USD")));
+        assertEquals(1, meterRegistry.get(AppConstants.METRIC_SETTLEMENT_CALCULATE).tag("members", "2-5").timer().count());
+        assertEquals(3, meterRegistry.get(AppConstants.METRIC_SETTLEMENT_MEMBERS).summary().totalAmount());
+        assertEquals(2, meterRegistry.get(AppConstants.METRIC_SETTLEMENT_TRANSACTIONS).summary().totalAmount());
+    }
+
+    @Test
+    void minorUnitPlanSettlesEveryBalanceWithOneUserLookup() {
+        stubUsers();
+        LongLongHashMap net = new LongLongHashMap();
+        net.put(1, 1_001);
+        net.put(2, -1);
+        net.put(3, -500);
+        net.put(4, -500);
+
+        List<Settlement> plan = service.calculateSettlements(new Group(), "INR", net);
+
+        for (Settlement settlement : plan) {
+            long amount = settlement.getAmount().movePointRight(2).longValueExact();
+            net.addTo(settlement.getPayer().getId(), amount);
+            net.addTo(settlement.getPayee().getId(), -amount);
+        }
+        net.forEach((userId, balance) -> assertEquals(0, balance));
+        assertEquals(3, plan.size());
+        assertEquals(new BigDecimal("5.00"), plan.get(0).getAmount());
+        verify(userRepository, times(1)).findAllById(any());
+    }
+
+    private void stubUsers() {
+        when(userRepository.findAllById(any())).thenAnswer(inv -> {
+            List<User> users = new ArrayList<>();
+            for (Long id : inv.<Iterable<Long>>getArgument(0)) {
+                users.add(User.builder().id(id).build());
+            }
+            return users;
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.shared.util.LongLongHashMap;
+import com.grouppay.shared.util.MinorUnits;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the boxed balance pipeline ({@code Map<Long, BigDecimal>} merging, then a list of
+ * {@code (Long, BigDecimal)} balances scanned for the max creditor / debtor) against the primitive one
+ * ({@link LongLongHashMap} in minor units, then {@link CashFlowMinimizer}) on a synthetic 10k-member group.
+ * <p>
+ * Both run on the same ledger-shaped input rows and produce plans that settle every balance. Reports time,
+ * heap allocated by the calling thread and GC activity per run. Plain JUnit rather than JMH, like the other
+ * benchmarks here; warm-up rounds are discarded.
+ * </p>
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class SettlementPipelineBenchmarkTest {
+
+    private static final int MEMBERS = 10_000;
+    private static final int ROWS_PER_MEMBER = 4;
+    private static final int WARMUP = 2;
+    private static final int ROUNDS = 3;
+
+    @Test
+    void primitivePipelineAllocatesLessAndIsFaster() {
+        Rows rows = syntheticRows();
+
+        Result boxed = measure("boxed", () -> boxedPipeline(rows));
+        Result primitive = measure("primitive", () -> primitivePipeline(rows));
+
+        System.out.printf("%-10s %10s %14s %10s %10s %12s%n",
+                "pipeline", "ms/run", "bytes/run", "gc count", "gc ms", "transfers");
+        for (Result r : List.of(boxed, primitive)) {
+            System.out.printf("%-10s %10.2f %14d %10d %10d %12d%n",
+                    r.name, r.millis, r.allocatedBytes, r.gcCount, r.gcMillis, r.transfers);
+        }
+
+        assertTrue(primitive.transfers < MEMBERS, "N users need at most N - 1 transfers");
+        assertTrue(primitive.allocatedBytes < boxed.allocatedBytes, "Primitive pipeline should allocate less heap");
+        assertTrue(primitive.millis < boxed.millis, "Primitive pipeline should be faster");
+    }
+
+    /**
+     * The pipeline before minor units: boxed merge, then the O(N^2) max/min scan over boxed balances.
+     */
+    private static int boxedPipeline(Rows rows) {
+        Map<Long, BigDecimal> net = new HashMap<>();
+        for (int i = 0; i < rows.userIds.length; i++) {
+            net.merge(rows.userIds[i], rows.amounts[i], BigDecimal::add);
+        }
+        List<Long> ids = new ArrayList<>();
+        List<BigDecimal> balances = new ArrayList<>();
+        net.forEach((userId, balance) -> {
+            if (balance.signum() != 0) {
+                ids.add(userId);
+                balances.add(balance);
+            }
+        });
+
+        int transfers = 0;
+        while (true) {
+            int credit = 0;
+            int debit = 0;
+            for (int i = 1; i < balances.size(); i++) {
+                if (balances.get(i).compareTo(balances.get(credit)) > 0) credit = i;
+                if (balances.get(i).compareTo(balances.get(debit)) < 0) debit = i;
+            }
+            if (balances.isEmpty() || balances.get(credit).signum() == 0 && balances.get(debit).signum() == 0) {
+                return transfers;
+            }
+            BigDecimal amount = balances.get(credit).min(balances.get(debit).abs());
+            balances.set(credit, balances.get(credit).subtract(amount));
+            balances.set(debit, balances.get(debit).add(amount));
+            transfers++;
+        }
+    }
+
+    private static int primitivePipeline(Rows rows) {
+        LongLongHashMap net = new LongLongHashMap(MEMBERS);
+        for (int i = 0; i < rows.userIds.length; i++) {
+            net.addTo(rows.userIds[i], MinorUnits.of(rows.amounts[i]));
+        }
+        int[] transfers = new int[1];
+        CashFlowMinimizer.minimize(net, (payerId, payeeId, amount) -> transfers[0]++);
+        return transfers[0];
+    }
+
+    private Result measure(String name, Pipeline pipeline) {
+        for (int i = 0; i < WARMUP; i++) {
+            pipeline.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int transfers = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            transfers = pipeline.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        return new Result(name, elapsed / 1_000_000.0 / ROUNDS, bytes / ROUNDS,
+                (gcCount() - gcCountBefore) / ROUNDS, (gcMillis() - gcMillisBefore) / ROUNDS, transfers);
+    }
+
+    /**
+     * Ledger-shaped rows: every member appears several times (e.g. once per currency or group) with a
+     * random amount, and one extra row makes the total zero.
+     */
+    private static Rows syntheticRows() {
+        Random random = new Random(11);
+        int count = MEMBERS * ROWS_PER_MEMBER + 1;
+        long[] userIds = new long[count];
+        BigDecimal[] amounts = new BigDecimal[count];
+        long total = 0;
+        for (int i = 0; i < count - 1; i++) {
+            long minor = random.nextInt(2_000_001) - 1_000_000;
+            userIds[i] = 1 + i % MEMBERS;
+            amounts[i] = MinorUnits.toAmount(minor);
+            total += minor;
+        }
+        userIds[count - 1] = 1;
+        amounts[count - 1] = MinorUnits.toAmount(-total);
+        return new Rows(userIds, amounts);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    @FunctionalInterface
+    private interface Pipeline {
+        int run();
+    }
+
+    private record Rows(long[] userIds, BigDecimal[] amounts) {
+    }
+
+    private record Result(String name, double millis, long allocatedBytes, long gcCount, long gcMillis, int transfers) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.grouppay.settlement.application;
+
+import com.grouppay.expense.domain.Expense;
+import com.grouppay.expense.domain.ExpenseSplit;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.shared.concurrency.GroupWriteLocks;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+@Import({SettlementService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, MinimumCashFlowService.class,
+        SettlementEventPublisher.class, NotificationService.class, NotificationBatchWriter.class, SimpleMeterRegistry.class, GroupWriteLocks.class})
+class SettlementServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private BalanceCalculationService balanceCalculationService;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Test
+    void markPaidIsIdempotentAndFeedsBalances() {
+        User alice = createUser("alice");
+        User bob = createUser("bob");
+        Group group = em.persist(Group.builder().name("Trip").createdBy(alice).build());
+        Expense expense = addExpense(group, alice, List.of(alice, bob), new BigDecimal("50.00"));
+        balanceLedgerService.recordExpense(expense);
+
+        List<Settlement> plan = settlementService.createSettlementPlan(group.getId());
+        assertEquals(1, plan.size());
+        assertEquals(1, plan.get(0).getBatchVersion());
+        assertEquals(0, new BigDecimal("50.00").compareTo(plan.get(0).getAmount()));
+
+        Long settlementId = plan.get(0).getId();
+        settlementService.markPaid(settlementId, "pay-1");
+        settlementService.markPaid(settlementId, "pay-1");   // client retry
+        settlementService.markPaid(settlementId, "pay-2");   // already settled, new key
+        em.flush();
+
+        Map<String, Map<Long, BigDecimal>> ledger = balanceLedgerService.getBalances(group.getId());
+        assertEquals(0, ledger.get("INR").get(alice.getId()).signum());
+        assertEquals(0, ledger.get("INR").get(bob.getId()).signum());
+        assertBalancesEqual(balanceCalculationService.calculateNetBalances(group.getId()), ledger);
+
+        List<Settlement> next = settlementService.createSettlementPlan(group.getId());
+        assertTrue(next.isEmpty());
+        assertEquals(1, settlementService.getCurrentPlan(group.getId()).size(), "Empty batch keeps previous plan as latest");
+    }
+
+    @Test
+    void idempotencyKeyCannotBeReusedForAnotherSettlement() {
+        User alice = createUser("carol");
+        User bob = createUser("dave");
+        User eve = createUser("eve");
+        Group group = em.persist(Group.builder().name("Flat").createdBy(alice).build());
+        balanceLedgerService.recordExpense(addExpense(group, alice, List.of(bob, eve), new BigDecimal("10.00")));
+
+        List<Settlement> plan = settlementService.createSettlementPlan(group.getId());
+        assertEquals(2, plan.size());
+
+        settlementService.markPaid(plan.get(0).getId(), "same-key");
+        assertThrows(IllegalArgumentException.class,
+                () -> settlementService.markPaid(plan.get(1).getId(), "same-key"));
+    }
+
+    @Test
+    void ledgerIsRebuiltForGroupsCreatedBeforeIt() {
+        User alice = createUser("frank");
+        User bob = createUser("grace");
+        Group group = em.persist(Group.builder().name("Legacy").createdBy(alice).build());
+        addExpense(group, alice, List.of(alice, bob), new BigDecimal("20.00")); // never recorded in the ledger
+        em.flush();
+
+        assertBalancesEqual(balanceCalculationService.calculateNetBalances(group.getId()),
+                balanceLedgerService.getBalances(group.getId()));
+    }
+
+    @Test
+    void plansAndPaymentsAreKeptPerCurrency() {
+        User alice = createUser("heidi");
+        User bob = createUser("ivan");
+        Group group = em.persist(Group.builder().name("Abroad").createdBy(alice).build());
+        balanceLedgerService.recordExpense(addExpense(group, alice, List.of(alice, bob), new BigDecimal("30.00"), "INR"));
+        balanceLedgerService.recordExpense(addExpense(group, bob, List.of(alice, bob), new BigDecimal("20.00"), "USD"));
+
+        List<Settlement> plan = settlementService.createSettlementPlan(group.getId());
+        assertEquals(2, plan.size());
+        Settlement inr = plan.stream().filter(s -> s.getCurrencyCode().equals("INR")).findFirst().orElseThrow();
+        Settlement usd = plan.stream().filter(s -> s.getCurrencyCode().equals("USD")).findFirst().orElseThrow();
+        assertEquals(bob.getId(), inr.getPayer().getId());
+        assertEquals(alice.getId(), usd.getPayer().getId());
+        assertEquals(inr.getBatchVersion(), usd.getBatchVersion());
+
+        settlementService.markPaid(usd.getId(), "usd-1");
+        em.flush();
+
+        Map<String, Map<Long, BigDecimal>> ledger = balanceLedgerService.getBalances(group.getId());
+        assertEquals(0, ledger.get("USD").get(alice.getId()).signum());
+        assertEquals(0, new BigDecimal("30.00").compareTo(ledger.get("INR").get(alice.getId())),
+                "A USD payment must not touch INR balances");
+        assertBalancesEqual(balanceCalculationService.calculateNetBalances(group.getId()), ledger);
+    }
+
+    private void assertBalancesEqual(Map<String, Map<Long, BigDecimal>> expected, Map<String, Map<Long, BigDecimal>> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((currencyCode, balances) -> {
+            assertEquals(balances.keySet(), actual.get(currencyCode).keySet());
+            balances.forEach((userId, balance) -> assertEquals(0, balance.compareTo(actual.get(currencyCode).get(userId))));
+        });
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> borrowers, BigDecimal share) {
+        return addExpense(group, payer, borrowers, share, "INR");
+    }
+
+    private Expense addExpense(Group group, User payer, List<User> borrowers, BigDecimal share, String currencyCode) {
+        Expense expense = Expense.builder()
+                .description("Dinner")
+                .amount(share.multiply(BigDecimal.valueOf(borrowers.size())))
+                .currencyCode(currencyCode)
+                .paidBy(payer)
+                .group(group)
+                .type(ExpenseType.EQUAL)
+                .build();
+        expense.setSplits(borrowers.stream()
+                .map(user -> ExpenseSplit.builder().expense(expense).user(user).amount(share).build())
+                .toList());
+        return em.persist(expense);
+    }
+
+    private User createUser(String name) {
+        return em.persist(User.builder()
+                .email(name + "@test.com")
+                .username(name)
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+}
@@ -0,0 +1,356 @@
+package com.grouppay.shared.concurrency;
+
+import com.grouppay.currency.application.FxRateService;
+import com.grouppay.currency.infrastructure.DbFxRateProvider;
+import com.grouppay.currency.infrastructure.FileFxRateProvider;
+import com.grouppay.expense.application.AddExpenseService;
+import com.grouppay.expense.domain.ExpenseType;
+import com.grouppay.expense.infrastructure.ExpenseRepository;
+import com.grouppay.group.application.AddMemberService;
+import com.grouppay.group.domain.Group;
+import com.grouppay.group.domain.GroupMember;
+import com.grouppay.group.infrastructure.GroupActivityWriter;
+import com.grouppay.group.infrastructure.GroupMemberBatchWriter;
+import com.grouppay.group.infrastructure.GroupRepository;
+import com.grouppay.notification.application.NotificationService;
+import com.grouppay.notification.infrastructure.NotificationBatchWriter;
+import com.grouppay.settlement.application.BalanceCalculationService;
+import com.grouppay.settlement.application.BalanceLedgerService;
+import com.grouppay.settlement.application.EntityBalanceAggregator;
+import com.grouppay.settlement.application.MinimumCashFlowService;
+import com.grouppay.settlement.application.SettlementEventPublisher;
+import com.grouppay.settlement.application.SettlementService;
+import com.grouppay.settlement.application.SqlBalanceAggregator;
+import com.grouppay.settlement.domain.Settlement;
+import com.grouppay.settlement.infrastructure.SettlementPaymentRepository;
+import com.grouppay.settlement.infrastructure.SettlementRepository;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many writers hitting the same group at once must not lose any expense or membership change.
+ * Every writer commits its own transaction, so the test itself runs without one.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AddExpenseService.class, AddMemberService.class, BalanceLedgerService.class, GroupActivityWriter.class, BalanceCalculationService.class,
+        EntityBalanceAggregator.class, SqlBalanceAggregator.class, NotificationService.class, NotificationBatchWriter.class, SimpleMeterRegistry.class,
+        FxRateService.class, FileFxRateProvider.class, DbFxRateProvider.class,
+        GroupWriteLocks.class, TransactionRetryExecutor.class, GroupMemberBatchWriter.class,
+        SettlementService.class, MinimumCashFlowService.class, SettlementEventPublisher.class})
+class GroupWriteConcurrencyTest {
+
+    private static final int WRITERS = 500;
+    private static final int MEMBERS = 10;
+
+    @Autowired
+    private AddExpenseService addExpenseService;
+
+    @Autowired
+    private AddMemberService addMemberService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private BalanceCalculationService balanceCalculationService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private SettlementRepository settlementRepository;
+
+    @Autowired
+    private SettlementPaymentRepository settlementPaymentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void concurrentExpenseAddsLoseNoBalanceUpdates() throws Exception {
+        List<User> users = createUsers("stress-expense", MEMBERS);
+        Long groupId = createGroup(users);
+
+        // Writer i pays 10.00 split equally, so each member owes 1.00 per expense
+        List<Object> results = runConcurrently(WRITERS, i -> addExpenseService.addExpense(
+                users.get(i % MEMBERS).getId(), groupId, "Expense " + i, new BigDecimal("10.00"),
+                "INR", ExpenseType.EQUAL, null, null));
+        results.forEach(r -> assertFalse(r instanceof Throwable, () -> "Writer failed: " + r));
+
+        assertEquals(WRITERS, (long) tx.execute(s -> expenseRepository.countByGroupId(groupId)));
+
+        Map<Long, BigDecimal> ledger = tx.execute(s -> balanceLedgerService.getBalances(groupId)).get("INR");
+        Map<Long, BigDecimal> replayed = tx.execute(s -> balanceCalculationService.calculateNetBalances(groupId)).get("INR");
+        Map<Long, BigDecimal> expected = new HashMap<>();
+        for (int i = 0; i < WRITERS; i++) {
+            expected.merge(users.get(i % MEMBERS).getId(), new BigDecimal("10.00"), BigDecimal::add);
+        }
+        users.forEach(u -> expected.merge(u.getId(), new BigDecimal(-WRITERS), BigDecimal::add));
+
+        assertEquals(expected.keySet(), ledger.keySet());
+        expected.forEach((userId, balance) -> {
+            assertEquals(0, balance.compareTo(ledger.get(userId)), "Ledger lost an update for user " + userId);
+            assertEquals(0, balance.compareTo(replayed.get(userId)));
+        });
+    }
+
+    @Test
+    void concurrentMembershipChangesAreNotLost() throws Exception {
+        List<User> owner = createUsers("stress-owner", 1);
+        List<User> joiners = createUsers("stress-joiner", 50);
+        Long groupId = createGroup(owner);
+
+        List<Object> results = runConcurrently(joiners.size(),
+                i -> addMemberService.addMember(groupId, joiners.get(i).getId()));
+        results.forEach(r -> assertFalse(r instanceof Throwable, () -> "Writer failed: " + r));
+
+        Set<Long> expected = new HashSet<>();
+        expected.add(owner.get(0).getId());
+        joiners.forEach(u -> expected.add(u.getId()));
+        assertEquals(expected, memberIds(groupId));
+        assertEquals(Long.valueOf(joiners.size()), tx.execute(s -> groupRepository.findById(groupId).orElseThrow().getVersion()),
+                "Every membership change bumps the group version, also as seen through the cache");
+    }
+
+    @Test
+    void concurrentAddsOfSameUserAdmitExactlyOne() throws Exception {
+        List<User> owner = createUsers("stress-dup-owner", 1);
+        User joiner = createUsers("stress-dup-joiner", 1).get(0);
+        Long groupId = createGroup(owner);
+
+        List<Object> results = runConcurrently(20, i -> addMemberService.addMember(groupId, joiner.getId()));
+
+        assertEquals(1, results.stream().filter(GroupMember.class::isInstance).count());
+        assertTrue(results.stream().filter(r -> !(r instanceof GroupMember))
+                .allMatch(IllegalArgumentException.class::isInstance), () -> "Unexpected outcomes: " + results);
+        assertEquals(Set.of(owner.get(0).getId(), joiner.getId()), memberIds(groupId));
+    }
+
+    @Test
+    void concurrentPaymentsOfOneSettlementApplyOnce() throws Exception {
+        List<User> users = createUsers("stress-pay", 2);
+        Long groupId = createGroup(users);
+        Long settlementId = createSettlement(groupId, users.get(1), users.get(0), new BigDecimal("25.00"));
+
+        // Different keys: every caller may see the settlement unpaid before the first one commits
+        List<Object> results = runConcurrently(20, i -> settlementService.markPaid(settlementId, "pay-" + settlementId + "-" + i));
+        results.forEach(r -> assertInstanceOf(Settlement.class, r, () -> "Payer failed: " + r));
+
+        assertEquals(1L, (long) tx.execute(s -> settlementPaymentRepository.findAll().stream()
+                .filter(p -> p.getSettlement().getId().equals(settlementId)).count()));
+        Map<Long, BigDecimal> ledger = tx.execute(s -> balanceLedgerService.getBalances(groupId)).get("INR");
+        assertEquals(0, new BigDecimal("25.00").compareTo(ledger.get(users.get(1).getId())), "Payment applied more than once");
+        assertEquals(0, new BigDecimal("-25.00").compareTo(ledger.get(users.get(0).getId())));
+    }
+
+    @Test
+    void concurrentReuseOfOneKeyForTwoSettlementsPaysOnlyOne() throws Exception {
+        List<User> users = createUsers("stress-key", 3);
+        Long groupId = createGroup(users);
+        List<Long> settlementIds = List.of(
+                createSettlement(groupId, users.get(1), users.get(0), new BigDecimal("5.00")),
+                createSettlement(groupId, users.get(2), users.get(0), new BigDecimal("5.00")));
+        String key = "shared-" + settlementIds.get(0);
+
+        List<Object> results = runConcurrently(20, i -> settlementService.markPaid(settlementIds.get(i % 2), key));
+
+        // The losers either see their own settlement already paid with the key, or are told it belongs to another
+        assertTrue(results.stream().allMatch(r -> r instanceof Settlement || r instanceof IllegalArgumentException),
+                () -> "Unexpected outcomes: " + results);
+        assertEquals(1L, (long) tx.execute(s -> settlementPaymentRepository.findByIdempotencyKey(key).stream().count()));
+        assertEquals(1L, (long) tx.execute(s -> settlementIds.stream()
+                .filter(id -> settlementRepository.findById(id).orElseThrow().isSettled()).count()));
+    }
+
+    @Test
+    void lockingGroupsThatShareStripesInOppositeIdOrderDoesNotDeadlock() throws Exception {
+        GroupWriteLocks locks = new GroupWriteLocks(4, Duration.ofSeconds(2));
+        // Groups a < b and c < d where c shares b's stripe and d shares a's: id order takes the stripes
+        // of the two pairs in opposite orders
+        long a = nextId(0, id -> locks.stripeIndex(id) > 0);
+        long b = nextId(a, id -> locks.stripeIndex(id) < locks.stripeIndex(a));
+        long c = nextId(b, id -> locks.stripeIndex(id) == locks.stripeIndex(b));
+        long d = nextId(c, id -> locks.stripeIndex(id) == locks.stripeIndex(a));
+        List<List<Long>> pairs = List.of(List.of(a, b), List.of(c, d));
+
+        List<Object> results = runConcurrently(20, i -> tx.execute(s -> {
+            locks.lockAllUntilCompletion(pairs.get(i % 2));
+            return "locked";
+        }));
+
+        results.forEach(r -> assertEquals("locked", r, () -> "Locker failed: " + r));
+    }
+
+    @Test
+    void localLockTimeoutIsNotRetried() throws Exception {
+        GroupWriteLocks locks = new GroupWriteLocks(4, Duration.ofMillis(50));
+        TransactionRetryExecutor retryExecutor = new TransactionRetryExecutor(transactionManager, new SimpleMeterRegistry(),
+                5, Duration.ofMillis(1), Duration.ofMillis(1));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        try {
+            holder.submit(() -> tx.execute(s -> {
+                locks.lockUntilCompletion(1L);
+                held.countDown();
+                try {
+                    return release.await(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(held.await(1, TimeUnit.MINUTES));
+
+            AtomicInteger attempts = new AtomicInteger();
+            assertThrows(GroupLockTimeoutException.class, () -> retryExecutor.execute(() -> {
+                attempts.incrementAndGet();
+                locks.lockUntilCompletion(1L);
+                return null;
+            }));
+            assertEquals(1, attempts.get());
+        } finally {
+            release.countDown();
+            holder.shutdown();
+        }
+    }
+
+    /**
+     * Starts {@code count} writers behind a latch so they hit the group together.
+     *
+     * @return Each writer's result, or the exception it threw.
+     */
+    private List<Object> runConcurrently(int count, Writer writer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return writer.write(index);
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(2, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long nextId(long after, LongPredicate matches) {
+        return LongStream.rangeClosed(after + 1, after + 1000).filter(matches).findFirst().orElseThrow();
+    }
+
+    private Set<Long> memberIds(Long groupId) {
+        return tx.execute(s -> groupRepository.findById(groupId).orElseThrow().getMembers().stream()
+                .map(m -> m.getUser().getId())
+                .collect(Collectors.toSet()));
+    }
+
+    private List<User> createUsers(String prefix, int count) {
+        return tx.execute(s -> {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = prefix + i + "-" + System.nanoTime();
+                users.add(userRepository.save(User.builder()
+                        .username(name)
+                        .email(name + "@example.com")
+                        .password("secret")
+                        .role(Role.USER)
+                        .build()));
+            }
+            return users;
+        });
+    }
+
+    private Long createGroup(List<User> members) {
+        return tx.execute(s -> {
+            Group group = Group.builder().name("Stress").createdBy(members.get(0)).members(new ArrayList<>()).build();
+            for (User user : members) {
+                group.getMembers().add(GroupMember.builder().group(group).user(user).isAdmin(false).build());
+            }
+            return groupRepository.save(group).getId();
+        });
+    }
+
+    private Long createSettlement(Long groupId, User payer, User payee, BigDecimal amount) {
+        return tx.execute(s -> settlementRepository.save(Settlement.builder()
+                .group(groupRepository.getReferenceById(groupId))
+                .payer(payer)
+                .payee(payee)
+                .amount(amount)
+                .batchVersion(1)
+                .build()).getId());
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        Object write(int index);
+    }
+}
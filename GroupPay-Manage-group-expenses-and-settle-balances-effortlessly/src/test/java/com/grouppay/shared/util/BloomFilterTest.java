@@ -0,0 +1,34 @@
+package com.grouppay.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAddedValuesAndStaysNearTheTargetRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] added = new String[10_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = UUID.randomUUID().toString();
+            filter.add(added[i]);
+        }
+
+        for (String value : added) {
+            assertTrue(filter.mightContain(value));
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.02, "False positive rate " + falsePositives / (double) probes);
+        // ~9.6 bits per value at 1%
+        assertTrue(filter.bitSize() < 10_000 * 10 + 64);
+    }
+}
@@ -0,0 +1,47 @@
+package com.grouppay.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void matchesHashMapThroughResizes() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000) - 100;   // includes 0 and negative keys
+            long delta = random.nextInt(2_001) - 1_000;
+            assertEquals(expected.merge(key, delta, Long::sum), map.addTo(key, delta));
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> {
+            assertTrue(map.containsKey(key));
+            assertEquals(value, map.get(key));
+        });
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void absentKeysReadAsZero() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(7, 3);
+
+        assertEquals(0, map.get(8));
+        assertFalse(map.containsKey(0));
+        assertFalse(map.containsKey(8));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.get(7));
+    }
+}
@@ -0,0 +1,134 @@
+package com.grouppay.user.application;
+
+import com.grouppay.security.OpaqueTokens;
+import com.grouppay.security.PasswordEncoderConfig;
+import com.grouppay.security.PasswordHasher;
+import com.grouppay.user.domain.Role;
+import com.grouppay.user.domain.User;
+import com.grouppay.user.infrastructure.PasswordResetTokenRepository;
+import com.grouppay.user.infrastructure.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reset requests commit their own transactions, like in production, so tokens reach the sender.
+ */
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "grouppay.security.password-reset.purge-chunk-size=2",
+        "grouppay.security.password.bcrypt-strength=4"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+@Import({PasswordResetService.class, PasswordEncoderConfig.class, PasswordHasher.class, SimpleMeterRegistry.class,
+        PasswordResetServiceTest.CapturingSender.class})
+class PasswordResetServiceTest {
+
+    @Autowired
+    private PasswordResetService passwordResetService;
+
+    @Autowired
+    private PasswordResetTokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CapturingSender sender;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void onlyTheLatestTokenIsStoredHashedAndWorksOnce() {
+        User user = createUser("reset");
+        passwordResetService.initiatePasswordReset(user.getEmail());
+        String first = sender.tokens.get(user.getEmail());
+        passwordResetService.initiatePasswordReset(user.getEmail());
+        String second = sender.tokens.get(user.getEmail());
+        assertNotEquals(first, second);
+
+        assertEquals(1, tokensOf(user), "A new request replaces the user's token");
+        assertTrue(tokenRepository.findByTokenHash(OpaqueTokens.hash(second)).isPresent());
+        assertTrue(tokenRepository.findAll().stream().noneMatch(t -> t.getTokenHash().equals(second)));
+        assertEquals("Invalid token",
+                assertThrows(RuntimeException.class, () -> passwordResetService.resetPassword(first, "new-password")).getMessage());
+
+        passwordResetService.resetPassword(second, "new-password").join();
+
+        assertTrue(passwordEncoder.matches("new-password", userRepository.findById(user.getId()).orElseThrow().getPassword()));
+        assertThrows(RuntimeException.class, () -> passwordResetService.resetPassword(second, "again"));
+        assertEquals(0, tokensOf(user));
+    }
+
+    @Test
+    void unknownEmailIsAnsweredLikeAKnownOne() {
+        String email = "nobody-" + System.nanoTime() + "@example.com";
+
+        assertDoesNotThrow(() -> passwordResetService.initiatePasswordReset(email));
+        assertFalse(sender.tokens.containsKey(email));
+    }
+
+    @Test
+    void expiredTokensArePurgedInChunks() {
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 5; i++) {
+            Long userId = createUser("expired" + i).getId();
+            String hash = OpaqueTokens.hash("expired-" + i + System.nanoTime());
+            transaction.executeWithoutResult(status -> tokenRepository.upsert(userId, hash, past));
+        }
+        User active = createUser("active");
+        passwordResetService.initiatePasswordReset(active.getEmail());
+        String token = sender.tokens.get(active.getEmail());
+
+        assertEquals(5, passwordResetService.purgeExpiredTokens());
+
+        assertEquals(1, tokensOf(active));
+        assertTrue(tokenRepository.findByTokenHash(OpaqueTokens.hash(token)).isPresent());
+    }
+
+    private long tokensOf(User user) {
+        return tokenRepository.findAll().stream().filter(t -> t.getUser().getId().equals(user.getId())).count();
+    }
+
+    private User createUser(String prefix) {
+        String name = prefix + "-" + System.nanoTime();
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("secret")
+                .role(Role.USER)
+                .build());
+    }
+
+    static class CapturingSender implements PasswordResetTokenSender {
+        final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+        @Override
+        public void send(User user, String token) {
+            tokens.put(user.getEmail(), token);
+        }
+    }
+}